@@ -0,0 +1,67 @@
+package xyz.bannach.bnnch_sort.bench;
+
+import java.util.concurrent.TimeUnit;
+import net.minecraft.SharedConstants;
+import net.minecraft.data.registries.VanillaRegistries;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.flag.FeatureFlags;
+import net.minecraft.world.item.CreativeModeTabs;
+import xyz.bannach.bnnch_sort.sorting.CreativeTabIndex;
+import xyz.bannach.bnnch_sort.sorting.NameRankTable;
+
+/**
+ * Prepares the game state the sorting kernel reads, without a client or server.
+ *
+ * <p>Bootstraps the vanilla registries, fills the creative tabs from the built-in registries, and
+ * builds the {@link CreativeTabIndex} and {@link NameRankTable} that a server builds when it
+ * starts, so benchmarks measure the same lookups a running server performs.
+ *
+ * <h2>Side: Common</h2>
+ *
+ * <p>Benchmark-only; never loaded by the mod.
+ *
+ * @see ItemSorterBenchmark
+ * @since 1.2.0
+ */
+public final class HeadlessBootstrap {
+
+  /** How long to wait for the background name rank build. */
+  private static final long NAME_RANK_TIMEOUT_SECONDS = 60;
+
+  /** Whether the game state has been prepared in this JVM. */
+  private static boolean bootstrapped;
+
+  /** Private constructor to prevent instantiation. */
+  private HeadlessBootstrap() {}
+
+  /**
+   * Prepares the game state once per JVM.
+   *
+   * @throws IllegalStateException if the item name ranks are not built in time
+   */
+  public static synchronized void init() {
+    if (bootstrapped) {
+      return;
+    }
+    SharedConstants.tryDetectVersion();
+    Bootstrap.bootStrap();
+    CreativeModeTabs.tryRebuildTabContents(
+        FeatureFlags.DEFAULT_FLAGS, false, VanillaRegistries.createLookup());
+    CreativeTabIndex.rebuild();
+
+    // Name ranks are built in the background; sorts fall back to display names until then
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(NAME_RANK_TIMEOUT_SECONDS);
+    while (NameRankTable.current() == null) {
+      if (System.nanoTime() > deadline) {
+        throw new IllegalStateException("Item name ranks were not built in time");
+      }
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while building item name ranks", e);
+      }
+    }
+    bootstrapped = true;
+  }
+}
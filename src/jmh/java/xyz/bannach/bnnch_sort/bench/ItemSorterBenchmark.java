@@ -0,0 +1,79 @@
+package xyz.bannach.bnnch_sort.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.world.item.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import xyz.bannach.bnnch_sort.sorting.ItemSorter;
+import xyz.bannach.bnnch_sort.sorting.SortMethod;
+import xyz.bannach.bnnch_sort.sorting.SortOrder;
+import xyz.bannach.bnnch_sort.sorting.SortPreference;
+import xyz.bannach.bnnch_sort.test.InventoryGenerator;
+
+/**
+ * Benchmarks {@link ItemSorter#sort} for every sort method and order.
+ *
+ * <p>Inventories range from a chest (27 slots), the player's inventory (36), and a double chest
+ * (54) to storage-mod sizes (1k and 10k). The input list is never modified by a sort, so every
+ * invocation sorts the same unsorted inventory.
+ *
+ * <h2>Side: Common</h2>
+ *
+ * <p>Benchmark-only; never loaded by the mod.
+ *
+ * @see InventoryGenerator
+ * @since 1.2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemSorterBenchmark {
+
+  /** Number of slots in the inventory. */
+  @Param({"27", "36", "54", "1000", "10000"})
+  public int slots;
+
+  /** Sort method; every method when not given. */
+  @Param
+  public SortMethod method;
+
+  /** Sort order; every order when not given. */
+  @Param
+  public SortOrder order;
+
+  /** Shape of the inventory; every workload when not given. */
+  @Param
+  public InventoryGenerator.Workload workload;
+
+  /** The inventory to sort. */
+  private List<ItemStack> inventory;
+
+  /** The preference to sort with. */
+  private SortPreference preference;
+
+  /** Bootstraps the game state and generates the inventory. */
+  @Setup(Level.Trial)
+  public void setup() {
+    HeadlessBootstrap.init();
+    inventory = InventoryGenerator.generate(slots, workload, InventoryGenerator.SEED);
+    preference = new SortPreference(method, order);
+  }
+
+  /**
+   * Sorts the inventory.
+   *
+   * @return the sorted stacks, consumed by JMH
+   */
+  @Benchmark
+  public List<ItemStack> sort() {
+    return ItemSorter.sort(inventory, preference);
+  }
+}
@@ -0,0 +1,61 @@
+package xyz.bannach.bnnch_sort.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.world.item.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import xyz.bannach.bnnch_sort.sorting.ItemSorter;
+import xyz.bannach.bnnch_sort.test.InventoryGenerator;
+
+/**
+ * Benchmarks {@link ItemSorter#mergeStacks}, which does not depend on the sort method or order.
+ *
+ * <h2>Side: Common</h2>
+ *
+ * <p>Benchmark-only; never loaded by the mod.
+ *
+ * @see InventoryGenerator
+ * @see ItemSorterBenchmark
+ * @since 1.2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MergeStacksBenchmark {
+
+  /** Number of slots in the inventory. */
+  @Param({"27", "36", "54", "1000", "10000"})
+  public int slots;
+
+  /** Shape of the inventory; every workload when not given. */
+  @Param
+  public InventoryGenerator.Workload workload;
+
+  /** The inventory to merge. */
+  private List<ItemStack> inventory;
+
+  /** Bootstraps the game state and generates the inventory. */
+  @Setup(Level.Trial)
+  public void setup() {
+    HeadlessBootstrap.init();
+    inventory = InventoryGenerator.generate(slots, workload, InventoryGenerator.SEED);
+  }
+
+  /**
+   * Merges the inventory's stacks.
+   *
+   * @return the merged stacks, consumed by JMH
+   */
+  @Benchmark
+  public List<ItemStack> mergeStacks() {
+    return ItemSorter.mergeStacks(inventory);
+  }
+}
@@ -0,0 +1,27 @@
+/**
+ * JMH benchmarks for the Bnnch: Sort sorting kernel.
+ *
+ * <p>This package measures {@link xyz.bannach.bnnch_sort.sorting.ItemSorter} on inventories made by
+ * {@link xyz.bannach.bnnch_sort.test.InventoryGenerator}, from a single chest up to 10k storage
+ * slots. The benchmarks bootstrap the vanilla registries headlessly, without a client or server.
+ *
+ * <h2>Key Components</h2>
+ *
+ * <ul>
+ *   <li>{@link xyz.bannach.bnnch_sort.bench.ItemSorterBenchmark} - Sorts with every method and
+ *       order
+ *   <li>{@link xyz.bannach.bnnch_sort.bench.MergeStacksBenchmark} - Merges partial stacks
+ *   <li>{@link xyz.bannach.bnnch_sort.bench.HeadlessBootstrap} - Prepares registries, creative
+ *       tabs, and item name ranks
+ * </ul>
+ *
+ * <h2>Running Benchmarks</h2>
+ *
+ * <pre>{@code ./gradlew.bat jmh}</pre>
+ *
+ * <p>Time per operation and the GC profiler's allocation rate are written to {@code
+ * build/results/jmh/results.json}.
+ *
+ * @since 1.2.0
+ */
+package xyz.bannach.bnnch_sort.bench;
@@ -6,7 +6,9 @@ import net.neoforged.fml.ModContainer;
 import net.neoforged.fml.common.Mod;
 import net.neoforged.fml.config.ModConfig;
 import net.neoforged.fml.event.lifecycle.FMLCommonSetupEvent;
+import net.neoforged.fml.event.lifecycle.InterModProcessEvent;
 import org.slf4j.Logger;
+import xyz.bannach.bnnch_sort.util.SortabilityRegistry;
 
 /**
  * Main entrypoint for the Bnnch: Sort mod.
@@ -21,6 +23,7 @@ import org.slf4j.Logger;
  *   <li>Register {@link ModAttachments} for player sort preferences
  *   <li>Register client and server configuration files
  *   <li>Log initialization message on common setup
+ *   <li>Collect slot sortability declarations from other mods
  * </ul>
  *
  * <h2>Side: Common</h2>
@@ -51,6 +54,7 @@ public class BnnchSort {
    */
   public BnnchSort(IEventBus modEventBus, ModContainer modContainer) {
     modEventBus.addListener(this::commonSetup);
+    modEventBus.addListener(this::processInterModMessages);
     xyz.bannach.bnnch_sort.ModAttachments.ATTACHMENT_TYPES.register(modEventBus);
     modContainer.registerConfig(ModConfig.Type.CLIENT, Config.CLIENT_SPEC);
     modContainer.registerConfig(ModConfig.Type.SERVER, Config.SERVER_SPEC);
@@ -66,4 +70,16 @@ public class BnnchSort {
   private void commonSetup(final FMLCommonSetupEvent event) {
     LOGGER.info("Bnnch: Sort initialized");
   }
+
+  /**
+   * Handles the inter-mod message processing event.
+   *
+   * <p>Compiles the slot and container sortability declarations other mods sent to this mod.
+   *
+   * @param event the inter-mod processing event fired during mod loading
+   * @see SortabilityRegistry
+   */
+  private void processInterModMessages(final InterModProcessEvent event) {
+    event.enqueueWork(() -> SortabilityRegistry.processInterModMessages(MODID));
+  }
 }
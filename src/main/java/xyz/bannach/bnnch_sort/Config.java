@@ -1,11 +1,13 @@
 package xyz.bannach.bnnch_sort;
 
+import java.util.List;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
 import net.neoforged.fml.event.config.ModConfigEvent;
 import net.neoforged.neoforge.common.ModConfigSpec;
 import xyz.bannach.bnnch_sort.sorting.SortMethod;
 import xyz.bannach.bnnch_sort.sorting.SortOrder;
+import xyz.bannach.bnnch_sort.util.SortabilityRegistry;
 
 /**
  * Configuration management for the Bnnch: Sort mod.
@@ -18,6 +20,7 @@ import xyz.bannach.bnnch_sort.sorting.SortOrder;
  *
  * <ul>
  *   <li>{@link #showSortButton} - Whether to display the sort button on container screens
+ *   <li>{@link #predictSorts} - Whether to show sorts before the server confirms them
  * </ul>
  *
  * <h2>Server Configuration</h2>
@@ -25,6 +28,19 @@ import xyz.bannach.bnnch_sort.sorting.SortOrder;
  * <ul>
  *   <li>{@link #defaultSortMethod} - Default sort method for new players
  *   <li>{@link #defaultSortOrder} - Default sort order for new players
+ *   <li>{@link #radixSortThreshold} - Slot count at which sorting switches to radix sort
+ *   <li>{@link #parallelSortThreshold} - Slot count at which sorting switches to parallel sort
+ *   <li>{@link #sortRequestsPerSecond} - Sustained sort requests accepted per player per second
+ *   <li>{@link #sortRequestBurst} - Sort requests a player may send at once
+ *   <li>{@link #sortTickBudgetMillis} - Time per tick that queued sorts may take
+ *   <li>{@link #sortMsptThreshold} - Average tick time above which sorting backs off
+ *   <li>{@link #offThreadSortThreshold} - Slot count at which containers are planned off-thread
+ *   <li>{@link #incrementalSortThreshold} - Slot count at which container sorts span several ticks
+ *   <li>{@link #incrementalSortChunk} - Slots an incremental sort reads per step
+ *   <li>{@link #acceptClientPlans} - Whether clients plan their own sorts for the server to check
+ *   <li>{@link #compactSortSync} - Whether sorts are sent to the sorting player as slot moves
+ *   <li>Sortable and unsortable slot and container class lists, compiled into {@link
+ *       SortabilityRegistry}
  * </ul>
  *
  * <h2>Side: Common</h2>
@@ -84,6 +100,16 @@ public class Config {
           .comment("Show a tooltip when hovering over an empty locked slot")
           .define("showLockTooltip", true);
 
+  /** Config value for whether to predict sorts on the client. */
+  private static final ModConfigSpec.BooleanValue PREDICT_SORTS =
+      CLIENT_BUILDER
+          .comment(
+              "Show sorts immediately instead of waiting for the server, which corrects the"
+                  + " inventory if its sort comes out differently. On a dedicated server, sorts are"
+                  + " only shown early with the English (en_us) language and not by category,"
+                  + " since item names and creative tabs may differ from the server's")
+          .define("predictSorts", true);
+
   /** Config value for the default sort method applied to new players. */
   private static final ModConfigSpec.EnumValue<SortMethod> DEFAULT_SORT_METHOD =
       SERVER_BUILDER
@@ -96,6 +122,116 @@ public class Config {
           .comment("Default sort order for new players")
           .defineEnum("defaultSortOrder", SortOrder.ASCENDING);
 
+  /** Config value for the slot count at which sorting switches to radix sort. */
+  private static final ModConfigSpec.IntValue RADIX_SORT_THRESHOLD =
+      SERVER_BUILDER
+          .comment("Number of stacks at or above which sorting uses a radix sort")
+          .defineInRange("radixSortThreshold", 512, 0, Integer.MAX_VALUE);
+
+  /** Config value for the slot count at which sorting switches to a parallel sort. */
+  private static final ModConfigSpec.IntValue PARALLEL_SORT_THRESHOLD =
+      SERVER_BUILDER
+          .comment("Number of stacks at or above which sorting uses a parallel sort")
+          .defineInRange("parallelSortThreshold", 8192, 0, Integer.MAX_VALUE);
+
+  /** Config value for the sustained sort request rate accepted from each player. */
+  private static final ModConfigSpec.IntValue SORT_REQUESTS_PER_SECOND =
+      SERVER_BUILDER
+          .comment(
+              "Sort requests accepted per player per second once the burst is used up (0 = no"
+                  + " limit)")
+          .defineInRange("sortRequestsPerSecond", 10, 0, 1000);
+
+  /** Config value for the number of sort requests a player may send at once. */
+  private static final ModConfigSpec.IntValue SORT_REQUEST_BURST =
+      SERVER_BUILDER
+          .comment("Sort requests a player may send at once before the rate limit applies")
+          .defineInRange("sortRequestBurst", 5, 1, 1000);
+
+  /** Config value for the time per tick that queued sorts may take. */
+  private static final ModConfigSpec.DoubleValue SORT_TICK_BUDGET_MILLIS =
+      SERVER_BUILDER
+          .comment("Milliseconds per server tick that queued sorts may take")
+          .defineInRange("sortTickBudgetMillis", 5.0, 0.0, 50.0);
+
+  /** Config value for the average tick time above which sorting backs off. */
+  private static final ModConfigSpec.DoubleValue SORT_MSPT_THRESHOLD =
+      SERVER_BUILDER
+          .comment(
+              "Average milliseconds per tick above which the sort budget shrinks and command sorts"
+                  + " are deferred")
+          .defineInRange("sortMsptThreshold", 40.0, 0.0, 1000.0);
+
+  /** Config value for the slot count at which container sorts are planned off the server thread. */
+  private static final ModConfigSpec.IntValue OFF_THREAD_SORT_THRESHOLD =
+      SERVER_BUILDER
+          .comment(
+              "Number of container slots at or above which sorts are planned off the server thread"
+                  + " (0 = never)")
+          .defineInRange("offThreadSortThreshold", 1024, 0, Integer.MAX_VALUE);
+
+  /** Config value for the slot count at which container sorts are spread over several ticks. */
+  private static final ModConfigSpec.IntValue INCREMENTAL_SORT_THRESHOLD =
+      SERVER_BUILDER
+          .comment(
+              "Number of container slots at or above which sorts are spread over several ticks with"
+                  + " progress feedback (0 = never)")
+          .defineInRange("incrementalSortThreshold", 8192, 0, Integer.MAX_VALUE);
+
+  /** Config value for the number of slots an incremental sort reads per step. */
+  private static final ModConfigSpec.IntValue INCREMENTAL_SORT_CHUNK =
+      SERVER_BUILDER
+          .comment("Number of slots an incremental sort reads per step")
+          .defineInRange("incrementalSortChunk", 2048, 64, Integer.MAX_VALUE);
+
+  /** Config value for whether clients may send sort plans for the server to check and apply. */
+  private static final ModConfigSpec.BooleanValue ACCEPT_CLIENT_PLANS =
+      SERVER_BUILDER
+          .comment(
+              "Let clients plan their own sorts; the server only checks and applies them, and"
+                  + " plans sorts itself when a plan is stale or invalid. Sort orders depend on"
+                  + " item names and creative tabs, so on a dedicated server only English (en_us)"
+                  + " clients send plans, and never for category sorts")
+          .define("acceptClientPlans", false);
+
+  /** Config value for whether sorts are sent to the sorting player as moves of held stacks. */
+  private static final ModConfigSpec.BooleanValue COMPACT_SORT_SYNC =
+      SERVER_BUILDER
+          .comment(
+              "Send sorts to the sorting player as moves of stacks their client already holds,"
+                  + " instead of resending every changed stack in full")
+          .define("compactSortSync", true);
+
+  /** Config value listing slot classes to sort in addition to the built-in ones. */
+  private static final ModConfigSpec.ConfigValue<List<? extends String>> SORTABLE_SLOT_CLASSES =
+      SERVER_BUILDER
+          .comment("Fully qualified slot class names to treat as sortable, including subclasses")
+          .defineListAllowEmpty(
+              "sortableSlotClasses", List.of(), () -> "", o -> o instanceof String);
+
+  /** Config value listing slot classes that are never sorted. */
+  private static final ModConfigSpec.ConfigValue<List<? extends String>> UNSORTABLE_SLOT_CLASSES =
+      SERVER_BUILDER
+          .comment("Fully qualified slot class names to never sort, including subclasses")
+          .defineListAllowEmpty(
+              "unsortableSlotClasses", List.of(), () -> "", o -> o instanceof String);
+
+  /** Config value listing container classes whose base slots are always sorted. */
+  private static final ModConfigSpec.ConfigValue<List<? extends String>> SORTABLE_CONTAINERS =
+      SERVER_BUILDER
+          .comment(
+              "Fully qualified container class names whose sortable slots are always sorted, even"
+                  + " next to special slots")
+          .defineListAllowEmpty(
+              "sortableContainerClasses", List.of(), () -> "", o -> o instanceof String);
+
+  /** Config value listing container classes that are never sorted. */
+  private static final ModConfigSpec.ConfigValue<List<? extends String>> UNSORTABLE_CONTAINERS =
+      SERVER_BUILDER
+          .comment("Fully qualified container class names to never sort, including subclasses")
+          .defineListAllowEmpty(
+              "unsortableContainerClasses", List.of(), () -> "", o -> o instanceof String);
+
   /** The built client configuration specification. Registered in {@link BnnchSort}. */
   static final ModConfigSpec CLIENT_SPEC = CLIENT_BUILDER.build();
 
@@ -138,6 +274,18 @@ public class Config {
    */
   public static boolean showLockTooltip = true;
 
+  /**
+   * Whether to sort on the client before the server confirms the sort.
+   *
+   * <p>Sorts the client cannot order the way a dedicated server does are not predicted; see {@link
+   * #acceptClientPlans}.
+   *
+   * <p>Default: {@code true}
+   *
+   * <p>Side: Client only
+   */
+  public static boolean predictSorts = true;
+
   /**
    * The default sort method assigned to new players.
    *
@@ -156,6 +304,113 @@ public class Config {
    */
   public static SortOrder defaultSortOrder = SortOrder.ASCENDING;
 
+  /**
+   * The number of stacks at or above which sorting uses a radix sort instead of a merge sort.
+   *
+   * <p>Default: {@code 512}
+   *
+   * <p>Side: Server only
+   */
+  public static int radixSortThreshold = 512;
+
+  /**
+   * The number of stacks at or above which sorting uses a parallel sort instead of a radix sort.
+   *
+   * <p>Default: {@code 8192}
+   *
+   * <p>Side: Server only
+   */
+  public static int parallelSortThreshold = 8192;
+
+  /**
+   * The sustained number of sort requests accepted per player per second, or 0 for no limit.
+   *
+   * <p>Default: {@code 10}
+   *
+   * <p>Side: Server only
+   */
+  public static int sortRequestsPerSecond = 10;
+
+  /**
+   * The number of sort requests a player may send at once before the rate limit applies.
+   *
+   * <p>Default: {@code 5}
+   *
+   * <p>Side: Server only
+   */
+  public static int sortRequestBurst = 5;
+
+  /**
+   * The time in milliseconds per server tick that queued sorts may take.
+   *
+   * <p>Default: {@code 5.0}
+   *
+   * <p>Side: Server only
+   */
+  public static double sortTickBudgetMillis = 5.0;
+
+  /**
+   * The average milliseconds per tick above which the sort budget shrinks and command sorts are
+   * deferred.
+   *
+   * <p>Default: {@code 40.0}
+   *
+   * <p>Side: Server only
+   */
+  public static double sortMsptThreshold = 40.0;
+
+  /**
+   * The number of container slots at or above which sorts are planned off the server thread, or 0
+   * to always plan on the server thread.
+   *
+   * <p>Default: {@code 1024}
+   *
+   * <p>Side: Server only
+   */
+  public static int offThreadSortThreshold = 1024;
+
+  /**
+   * The number of container slots at or above which sorts are spread over several ticks with
+   * progress feedback, or 0 to never spread them.
+   *
+   * <p>Default: {@code 8192}
+   *
+   * <p>Side: Server only
+   */
+  public static int incrementalSortThreshold = 8192;
+
+  /**
+   * The number of slots an incremental sort reads per step.
+   *
+   * <p>Default: {@code 2048}
+   *
+   * <p>Side: Server only
+   */
+  public static int incrementalSortChunk = 2048;
+
+  /**
+   * Whether clients plan their own sorts and send the plans for the server to check and apply.
+   *
+   * <p>Every sort order breaks ties by item name, and category order also depends on creative tab
+   * contents. A client connected to a dedicated server, which names items in {@link
+   * net.minecraft.locale.Language#DEFAULT}, therefore only sends plans when it uses that language
+   * too, and never for category sorts.
+   *
+   * <p>Default: {@code false}
+   *
+   * <p>Side: Server, synced to clients so they know to send plans
+   */
+  public static boolean acceptClientPlans = false;
+
+  /**
+   * Whether sorts are sent to the sorting player as moves of stacks their client already holds.
+   *
+   * <p>Default: {@code true}
+   *
+   * <p>Side: Server only
+   */
+  public static boolean compactSortSync = true;
+
   /**
    * Handles configuration loading events.
    *
@@ -192,9 +447,26 @@ public class Config {
       lockModifierKey = LOCK_MODIFIER_KEY.get();
       lockTintColor = parseColor(LOCK_TINT_COLOR.get(), 0x80FFD700);
       showLockTooltip = SHOW_LOCK_TOOLTIP.get();
+      predictSorts = PREDICT_SORTS.get();
     } else if (spec == SERVER_SPEC) {
       defaultSortMethod = DEFAULT_SORT_METHOD.get();
       defaultSortOrder = DEFAULT_SORT_ORDER.get();
+      radixSortThreshold = RADIX_SORT_THRESHOLD.get();
+      parallelSortThreshold = PARALLEL_SORT_THRESHOLD.get();
+      sortRequestsPerSecond = SORT_REQUESTS_PER_SECOND.get();
+      sortRequestBurst = SORT_REQUEST_BURST.get();
+      sortTickBudgetMillis = SORT_TICK_BUDGET_MILLIS.get();
+      sortMsptThreshold = SORT_MSPT_THRESHOLD.get();
+      offThreadSortThreshold = OFF_THREAD_SORT_THRESHOLD.get();
+      incrementalSortThreshold = INCREMENTAL_SORT_THRESHOLD.get();
+      incrementalSortChunk = INCREMENTAL_SORT_CHUNK.get();
+      acceptClientPlans = ACCEPT_CLIENT_PLANS.get();
+      compactSortSync = COMPACT_SORT_SYNC.get();
+      SortabilityRegistry.applyConfig(
+          SORTABLE_SLOT_CLASSES.get(),
+          UNSORTABLE_SLOT_CLASSES.get(),
+          SORTABLE_CONTAINERS.get(),
+          UNSORTABLE_CONTAINERS.get());
     }
   }
 
@@ -13,6 +13,7 @@ import net.neoforged.neoforge.client.event.ScreenEvent;
 import net.neoforged.neoforge.event.entity.player.ItemTooltipEvent;
 import xyz.bannach.bnnch_sort.BnnchSort;
 import xyz.bannach.bnnch_sort.Config;
+import xyz.bannach.bnnch_sort.util.SlotLayout;
 
 /**
  * Client-side event handlers for screen interactions and rendering.
@@ -28,6 +29,7 @@ import xyz.bannach.bnnch_sort.Config;
  *   <li>{@link ScreenEvent.MouseButtonPressed.Pre} - Mouse input for sort/cycle keybinds
  *   <li>{@link ScreenEvent.Init.Post} - Screen initialization for button injection
  *   <li>{@link ScreenEvent.Render.Post} - Screen rendering for feedback overlay
+ *   <li>{@link ScreenEvent.Closing} - Dropping the closed menu's cached slot layout
  * </ul>
  *
  * <h2>Side: Client-only</h2>
@@ -151,4 +153,16 @@ public class ClientEvents {
     guiGraphics.fill(x - 4, y - 2, x + textWidth + 4, y + font.lineHeight + 2, 0xAA000000);
     guiGraphics.drawString(font, message, x, y, 0xFFFFFF);
   }
+
+  /**
+   * Handles screen closing events by dropping the closed menu's cached slot layout.
+   *
+   * @param event the screen closing event
+   */
+  @SubscribeEvent
+  public static void onScreenClosing(ScreenEvent.Closing event) {
+    if (event.getScreen() instanceof AbstractContainerScreen<?> screen) {
+      SlotLayout.invalidate(screen.getMenu());
+    }
+  }
 }
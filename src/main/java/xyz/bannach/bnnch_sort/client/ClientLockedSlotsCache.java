@@ -1,15 +1,15 @@
 package xyz.bannach.bnnch_sort.client;
 
-import java.util.HashSet;
-import java.util.Set;
 import net.neoforged.neoforge.network.handling.IPayloadContext;
 import xyz.bannach.bnnch_sort.network.SyncLockedSlotsPayload;
+import xyz.bannach.bnnch_sort.sorting.LockedSlots;
 
 /**
  * Client-side cache for the player's locked slots.
  *
- * <p>Maintains a local copy of the locked slot set on the client for rendering overlays and
- * tooltips. Updated when the server sends a {@link SyncLockedSlotsPayload}.
+ * <p>Maintains a local copy of the locked slot mask on the client for rendering overlays and
+ * tooltips. Updated when the server sends a {@link SyncLockedSlotsPayload}. Lookups are a single
+ * mask test, so the per-frame render path never allocates.
  *
  * <h2>Side: Client-only</h2>
  *
@@ -20,16 +20,16 @@ public class ClientLockedSlotsCache {
 
   private ClientLockedSlotsCache() {}
 
-  private static volatile Set<Integer> lockedSlots = Set.of();
+  private static volatile long lockedMask;
 
   /**
    * Handles incoming locked slots sync payloads from the server.
    *
-   * @param payload the sync payload containing the locked slot set
+   * @param payload the sync payload containing the locked slots
    * @param context the network context
    */
   public static void handle(SyncLockedSlotsPayload payload, IPayloadContext context) {
-    context.enqueueWork(() -> lockedSlots = Set.copyOf(payload.lockedSlots()));
+    context.enqueueWork(() -> lockedMask = payload.lockedSlots().mask());
   }
 
   /**
@@ -38,13 +38,7 @@ public class ClientLockedSlotsCache {
    * @param slotIndex the slot index to toggle
    */
   public static void toggleLocal(int slotIndex) {
-    Set<Integer> newSlots = new HashSet<>(lockedSlots);
-    if (newSlots.contains(slotIndex)) {
-      newSlots.remove(slotIndex);
-    } else {
-      newSlots.add(slotIndex);
-    }
-    lockedSlots = Set.copyOf(newSlots);
+    lockedMask ^= LockedSlots.bit(slotIndex);
   }
 
   /**
@@ -54,16 +48,16 @@ public class ClientLockedSlotsCache {
    * @return true if the slot is locked
    */
   public static boolean isLocked(int slotIndex) {
-    return lockedSlots.contains(slotIndex);
+    return (lockedMask & LockedSlots.bit(slotIndex)) != 0;
   }
 
   /**
-   * Returns the current set of locked slots.
+   * Returns the current locked slots.
    *
-   * @return unmodifiable set of locked slot indices
+   * @return the locked slots
    */
-  public static Set<Integer> getLockedSlots() {
-    return lockedSlots;
+  public static LockedSlots getLockedSlots() {
+    return new LockedSlots(lockedMask);
   }
 
   /**
@@ -74,12 +68,6 @@ public class ClientLockedSlotsCache {
    * @return the count of locked slots in the range
    */
   public static int countInRange(int from, int to) {
-    int count = 0;
-    for (int slot : lockedSlots) {
-      if (slot >= from && slot <= to) {
-        count++;
-      }
-    }
-    return count;
+    return getLockedSlots().countInRange(from, to);
   }
 }
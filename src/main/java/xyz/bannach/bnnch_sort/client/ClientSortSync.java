@@ -0,0 +1,148 @@
+package xyz.bannach.bnnch_sort.client;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import java.util.List;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.ItemStack;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+import xyz.bannach.bnnch_sort.network.SortSyncPayload;
+
+/**
+ * Applies sorts the server describes as moves of stacks the client already holds.
+ *
+ * <p>Each {@link SortSyncPayload.Change} names a source slot whose stack before the sort has the
+ * new item and components. All sources are read before any slot is written, so moves between slots
+ * of the same sort never see each other's results.
+ *
+ * <h2>Request Records</h2>
+ *
+ * <p>A predicted sort ({@link SortPredictor}) has already rearranged the client's slots by the time
+ * the server's description arrives, and locked stacks may have grown in place. {@link #remember}
+ * therefore records the stacks a region held when each sort request was sent, with their counts,
+ * under the request's sequence number. Moves are only ever read from the record of the request the
+ * payload answers, never from the live slots. The server only sends moves once it has checked that
+ * the record still matches ({@link xyz.bannach.bnnch_sort.server.SortSync}), so requests for
+ * several regions sent back to back each keep their own record.
+ *
+ * <p>Records are dropped when their reply arrives, when a request for another menu is recorded, and
+ * beyond the last {@link #MAX_RECORDS}, since sorts that change nothing get no reply.
+ *
+ * <h2>Resync</h2>
+ *
+ * <p>A move without a matching record cannot be resolved and is skipped. The menu then keeps its
+ * old state ID, so the server resends the whole menu on the next click. Slots sent in full are
+ * applied either way.
+ *
+ * <h2>Side: Client-only</h2>
+ *
+ * @see SortSyncPayload
+ * @see xyz.bannach.bnnch_sort.server.SortSync
+ * @since 1.2.0
+ */
+public final class ClientSortSync {
+
+  /** Number of request records kept while waiting for replies. */
+  private static final int MAX_RECORDS = 16;
+
+  /** Records of the regions requests were sent for, by request sequence number, oldest first. */
+  private static final Int2ObjectLinkedOpenHashMap<Record> RECORDS =
+      new Int2ObjectLinkedOpenHashMap<>();
+
+  /** Private constructor to prevent instantiation. */
+  private ClientSortSync() {}
+
+  /**
+   * The stacks a region held when a sort request was sent.
+   *
+   * @param containerId the ID of the menu the region belongs to
+   * @param stacks the stack in each slot, by menu slot index
+   * @param counts the item count of each stack, since a predicted sort may grow stacks in place
+   */
+  private record Record(
+      int containerId, Int2ObjectOpenHashMap<ItemStack> stacks, Int2IntOpenHashMap counts) {}
+
+  /**
+   * Records what a region holds when a sort request is sent, before a prediction may rearrange it.
+   *
+   * @param sequence the request's sequence number
+   * @param menu the open menu
+   * @param slots the slots about to be sorted
+   */
+  public static void remember(int sequence, AbstractContainerMenu menu, List<Slot> slots) {
+    if (!RECORDS.isEmpty() && RECORDS.get(RECORDS.lastIntKey()).containerId() != menu.containerId) {
+      RECORDS.clear();
+    }
+    Int2ObjectOpenHashMap<ItemStack> stacks = new Int2ObjectOpenHashMap<>(slots.size());
+    Int2IntOpenHashMap counts = new Int2IntOpenHashMap(slots.size());
+    for (Slot slot : slots) {
+      ItemStack stack = slot.getItem();
+      stacks.put(slot.index, stack);
+      counts.put(slot.index, stack.getCount());
+    }
+    RECORDS.put(sequence, new Record(menu.containerId, stacks, counts));
+    if (RECORDS.size() > MAX_RECORDS) {
+      RECORDS.removeFirst();
+    }
+  }
+
+  /**
+   * Handles incoming sort descriptions from the server.
+   *
+   * @param payload the payload describing the changed slots
+   * @param context the network context
+   */
+  public static void handle(SortSyncPayload payload, IPayloadContext context) {
+    context.enqueueWork(() -> apply(context.player(), payload));
+  }
+
+  /**
+   * Applies a sort description to the player's open menu.
+   *
+   * <p>The menu adopts the payload's new state ID only if it held the state the sort started from
+   * and every move could be read from the request's record. Otherwise its state ID is left behind,
+   * so the server resends the whole menu on the next click.
+   *
+   * @param player the local player
+   * @param payload the payload describing the changed slots
+   */
+  private static void apply(Player player, SortSyncPayload payload) {
+    Record record = RECORDS.remove(payload.sequence());
+    AbstractContainerMenu menu = player.containerMenu;
+    if (menu.containerId != payload.containerId()) {
+      return;
+    }
+    if (record != null && record.containerId() != menu.containerId) {
+      record = null;
+    }
+    boolean inSync = menu.getStateId() == payload.previousStateId();
+
+    List<SortSyncPayload.Change> changes = payload.changes();
+    ItemStack[] stacks = new ItemStack[changes.size()];
+    for (int i = 0; i < stacks.length; i++) {
+      SortSyncPayload.Change change = changes.get(i);
+      int source = change.source();
+      if (source < 0) {
+        stacks[i] = change.stack();
+      } else if (record != null && record.stacks().containsKey(source)) {
+        // Stacks are only ever grown in place, so the recorded count tells if it was empty
+        stacks[i] =
+            record.counts().get(source) <= 0
+                ? ItemStack.EMPTY
+                : record.stacks().get(source).copyWithCount(change.count());
+      } else {
+        inSync = false;
+      }
+    }
+    int stateId = inSync ? payload.stateId() : menu.getStateId();
+    for (int i = 0; i < stacks.length; i++) {
+      int slot = changes.get(i).slot();
+      if (stacks[i] != null && slot >= 0 && slot < menu.slots.size()) {
+        menu.setItem(slot, stateId, stacks[i]);
+      }
+    }
+  }
+}
@@ -5,6 +5,7 @@ import net.minecraft.world.inventory.InventoryMenu;
 import net.neoforged.neoforge.client.event.ScreenEvent;
 import xyz.bannach.bnnch_sort.Config;
 import xyz.bannach.bnnch_sort.server.SortHandler;
+import xyz.bannach.bnnch_sort.util.SlotLayout;
 
 /**
  * Injects sort buttons into supported container screens.
@@ -23,7 +24,7 @@ import xyz.bannach.bnnch_sort.server.SortHandler;
  * </ul>
  *
  * <p>The detection automatically excludes containers with special slots (furnaces, crafting tables,
- * etc.) by leveraging {@link SortHandler#getTargetSlots}.
+ * etc.) by leveraging the menu's cached {@link SlotLayout}.
  *
  * <h2>Configuration</h2>
  *
@@ -35,7 +36,7 @@ import xyz.bannach.bnnch_sort.server.SortHandler;
  *
  * @see SortButton
  * @see Config#showSortButton
- * @see SortHandler#getTargetSlots
+ * @see SlotLayout
  * @since 1.0.0
  */
 public class ScreenButtonInjector {
@@ -68,7 +69,7 @@ public class ScreenButtonInjector {
 
     // Try container region first (works for vanilla chests, shulker boxes, and any modded
     // containers)
-    if (!SortHandler.getTargetSlots(menu, SortHandler.REGION_CONTAINER).isEmpty()) {
+    if (SlotLayout.of(menu).has(SortHandler.REGION_CONTAINER)) {
       sortRegion = SortHandler.REGION_CONTAINER;
     } else if (menu instanceof InventoryMenu) {
       // Fallback to player inventory for standalone inventory screen
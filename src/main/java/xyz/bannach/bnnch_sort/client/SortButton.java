@@ -70,13 +70,13 @@ public class SortButton extends Button {
   }
 
   /**
-   * Handles button press by sending a sort request to the server.
+   * Handles button press by predicting the sort locally and sending a sort request to the server.
    *
    * <p>Also displays visual feedback to the player showing the current sort settings.
    */
   @Override
   public void onPress() {
-    PacketDistributor.sendToServer(new SortRequestPayload(sortRegion));
+    PacketDistributor.sendToServer(SortPredictor.request(parentScreen.getMenu(), sortRegion));
     SortFeedback.showSorted(ClientPreferenceCache.getMethod(), ClientPreferenceCache.getOrder());
   }
 
@@ -1,6 +1,8 @@
 package xyz.bannach.bnnch_sort.client;
 
 import net.minecraft.network.chat.Component;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+import xyz.bannach.bnnch_sort.network.SortProgressPayload;
 import xyz.bannach.bnnch_sort.sorting.SortMethod;
 import xyz.bannach.bnnch_sort.sorting.SortOrder;
 
@@ -16,6 +18,8 @@ import xyz.bannach.bnnch_sort.sorting.SortOrder;
  * <ul>
  *   <li>{@link #showSorted(SortMethod, SortOrder)} - Displayed after a sort operation
  *   <li>{@link #showPreferenceChange(SortMethod, SortOrder)} - Displayed when preferences change
+ *   <li>{@link #showProgress(int)} - Displayed while the server sorts a huge container over several
+ *       ticks
  * </ul>
  *
  * <h2>Rendering</h2>
@@ -85,6 +89,38 @@ public class SortFeedback {
     displayOverlay(message);
   }
 
+  /**
+   * Displays the progress of a sort the server spreads over several ticks.
+   *
+   * <p>Shows "message.bnnch_sort.sort_progress" with the percentage while the sort runs, the
+   * regular sorted message once it completes, and "message.bnnch_sort.sort_abandoned" if the
+   * server gave up because planning failed.
+   *
+   * @param percent the completed percentage, or {@link SortProgressPayload#ABANDONED}
+   */
+  public static void showProgress(int percent) {
+    if (percent == SortProgressPayload.ABANDONED) {
+      displayOverlay(Component.translatable("message.bnnch_sort.sort_abandoned"));
+    } else if (percent >= 100) {
+      showSorted(ClientPreferenceCache.getMethod(), ClientPreferenceCache.getOrder());
+    } else {
+      displayOverlay(Component.translatable("message.bnnch_sort.sort_progress", percent));
+    }
+  }
+
+  /**
+   * Handles a sort progress payload from the server.
+   *
+   * <p>This method is registered as the packet handler for {@link SortProgressPayload} and
+   * enqueues the feedback update on the client thread.
+   *
+   * @param payload the progress payload
+   * @param context the network context
+   */
+  public static void handleProgress(SortProgressPayload payload, IPayloadContext context) {
+    context.enqueueWork(() -> showProgress(payload.percent()));
+  }
+
   /**
    * Sets the overlay message and its expiry time.
    *
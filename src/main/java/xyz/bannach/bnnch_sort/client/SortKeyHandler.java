@@ -15,6 +15,7 @@ import org.lwjgl.glfw.GLFW;
 import xyz.bannach.bnnch_sort.network.CyclePreferencePayload;
 import xyz.bannach.bnnch_sort.network.SortRequestPayload;
 import xyz.bannach.bnnch_sort.server.SortHandler;
+import xyz.bannach.bnnch_sort.util.SlotLayout;
 import xyz.bannach.bnnch_sort.util.SlotUtils;
 
 /**
@@ -167,8 +168,9 @@ public class SortKeyHandler {
   /**
    * Processes a sort input action on a container screen.
    *
-   * <p>Determines the region from the hovered slot, validates it's sortable, and sends a sort
-   * request to the server. Also displays feedback to the player.
+   * <p>Determines the region from the hovered slot, validates it's sortable, predicts the sort
+   * locally ({@link SortPredictor}), and sends a sort request to the server. Also displays feedback
+   * to the player.
    *
    * @param screen the container screen receiving input
    */
@@ -184,11 +186,11 @@ public class SortKeyHandler {
 
     int region = determineRegion(hoveredSlot);
     AbstractContainerMenu menu = screen.getMenu();
-    if (SortHandler.getTargetSlots(menu, region).isEmpty()) {
+    if (!SlotLayout.of(menu).has(region)) {
       return;
     }
 
-    PacketDistributor.sendToServer(new SortRequestPayload(region));
+    PacketDistributor.sendToServer(SortPredictor.request(menu, region));
     SortFeedback.showSorted(ClientPreferenceCache.getMethod(), ClientPreferenceCache.getOrder());
   }
 
@@ -0,0 +1,170 @@
+package xyz.bannach.bnnch_sort.client;
+
+import java.util.List;
+import net.minecraft.client.Minecraft;
+import net.minecraft.locale.Language;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.Slot;
+import xyz.bannach.bnnch_sort.Config;
+import xyz.bannach.bnnch_sort.network.SortPlanPayload;
+import xyz.bannach.bnnch_sort.network.SortRequestPayload;
+import xyz.bannach.bnnch_sort.server.SortHandler;
+import xyz.bannach.bnnch_sort.sorting.LockedSlots;
+import xyz.bannach.bnnch_sort.sorting.SlotSorter;
+import xyz.bannach.bnnch_sort.sorting.SortMethod;
+import xyz.bannach.bnnch_sort.sorting.SortPlan;
+import xyz.bannach.bnnch_sort.sorting.SortPreference;
+
+/**
+ * Predicts sorts on the client so the sorted layout shows before the server responds.
+ *
+ * <p>When the player sorts, the same {@link SlotSorter} pipeline the server uses runs on the
+ * client's copy of the menu with the cached preference ({@link ClientPreferenceCache}) and locked
+ * slots ({@link ClientLockedSlotsCache}), much like {@link ClientLockedSlotsCache#toggleLocal}
+ * predicts lock toggles.
+ *
+ * <h2>Reconciliation</h2>
+ *
+ * <p>The resulting prediction key travels with the {@link SortRequestPayload}. The server's slot
+ * updates for a correct prediction carry what the client already shows, so nothing visibly
+ * changes. If the server's sort came out differently, or the request was dropped, the server
+ * resends the whole menu. Prediction outcomes are counted in {@link
+ * xyz.bannach.bnnch_sort.metrics.SortMetrics}. For every request, predicted or not, the slots'
+ * stacks from before it are recorded by {@link ClientSortSync} under its sequence number, and the
+ * request carries the menu's state ID and the region's checksum, so the server can tell whether
+ * that record still matches when it describes the sort as moves.
+ *
+ * <h2>Client Plans</h2>
+ *
+ * <p>When the server accepts client plans ({@link Config#acceptClientPlans}), {@link #request}
+ * plans the sort with {@link SlotSorter#plan} and sends the plan in a {@link SortPlanPayload}, so
+ * the server only has to check it. Regions of more than {@link SortPlanPayload#MAX_SLOTS} slots,
+ * and regions where a locked slot would be topped up, are requested without a plan.
+ *
+ * <h2>Limits</h2>
+ *
+ * <p>Regions that the server sorts over several ticks or off its main thread are only predicted
+ * when the client sends their plan, since the server then applies it in one step. Nothing is
+ * predicted while {@link Config#predictSorts} is off or the player is a spectator.
+ *
+ * <p>Every sort method breaks ties by display name, which the client resolves in its own language,
+ * and {@link SortMethod#CATEGORY} also follows the client's creative tabs. On a dedicated server,
+ * which uses {@link Language#DEFAULT}, sorts are therefore neither planned nor predicted unless the
+ * client uses that language too, and category sorts never are. The integrated server shares the
+ * client's language and tabs, so it has no such limit.
+ *
+ * <h2>Side: Client-only</h2>
+ *
+ * @see SlotSorter
+ * @see SortHandler
+ * @since 1.2.0
+ */
+public final class SortPredictor {
+
+  /** Private constructor to prevent instantiation. */
+  private SortPredictor() {}
+
+  /**
+   * Creates the request for a sort of a region, planning and predicting the sort where possible.
+   *
+   * @param menu the open menu
+   * @param region the region code
+   * @return a {@link SortPlanPayload} if the client planned the sort, or a {@link
+   *     SortRequestPayload} otherwise
+   */
+  public static CustomPacketPayload request(AbstractContainerMenu menu, int region) {
+    Minecraft minecraft = Minecraft.getInstance();
+    List<Slot> slots = SortHandler.getTargetSlots(menu, region);
+    int sequence = SortRequestPayload.nextSequence();
+    int stateId = menu.getStateId();
+    long before = SlotSorter.checksum(slots);
+    ClientSortSync.remember(sequence, menu, slots);
+    if (!Config.acceptClientPlans
+        || minecraft.player == null
+        || minecraft.player.isSpectator()
+        || !ordersLikeServer(minecraft)
+        || slots.isEmpty()
+        || slots.size() > SortPlanPayload.MAX_SLOTS) {
+      return new SortRequestPayload(region, sequence, stateId, before, predict(menu, region));
+    }
+
+    LockedSlots lockedSlots = lockedSlots(region);
+    SortPreference preference = preference();
+    SortPlan plan = SlotSorter.plan(slots, lockedSlots, preference);
+    if (plan == null) {
+      return new SortRequestPayload(region, sequence, stateId, before, predict(menu, region));
+    }
+    long prediction = SlotSorter.NO_PREDICTION;
+    if (Config.predictSorts) {
+      if (SlotSorter.applyPlan(slots, lockedSlots, preference, plan) != SlotSorter.INVALID_PLAN) {
+        prediction = SlotSorter.predictionKey(before, SlotSorter.checksum(slots));
+      }
+    }
+    return new SortPlanPayload(region, sequence, stateId, before, prediction, plan);
+  }
+
+  /**
+   * Sorts a region of the client's menu the way the server is expected to.
+   *
+   * <p>The region must already be recorded with {@link ClientSortSync#remember}.
+   *
+   * @param menu the open menu
+   * @param region the region code
+   * @return the prediction key to send with the request, or {@link SlotSorter#NO_PREDICTION}
+   */
+  private static long predict(AbstractContainerMenu menu, int region) {
+    Minecraft minecraft = Minecraft.getInstance();
+    if (!Config.predictSorts
+        || minecraft.player == null
+        || minecraft.player.isSpectator()
+        || !ordersLikeServer(minecraft)) {
+      return SlotSorter.NO_PREDICTION;
+    }
+    List<Slot> slots = SortHandler.getTargetSlots(menu, region);
+    if (slots.isEmpty()
+        || (region == SortHandler.REGION_CONTAINER && !SortHandler.sortsInline(slots.size()))) {
+      return SlotSorter.NO_PREDICTION;
+    }
+
+    long before = SlotSorter.checksum(slots);
+    SlotSorter.sort(slots, lockedSlots(region), preference());
+    return SlotSorter.predictionKey(before, SlotSorter.checksum(slots));
+  }
+
+  /**
+   * Returns whether the client orders stacks exactly like the server with the cached preference.
+   *
+   * @param minecraft the client
+   * @return true if the server is integrated, or the client uses the server's language and the
+   *     method does not depend on creative tabs
+   */
+  private static boolean ordersLikeServer(Minecraft minecraft) {
+    if (minecraft.hasSingleplayerServer()) {
+      return true;
+    }
+    return ClientPreferenceCache.getMethod() != SortMethod.CATEGORY
+        && Language.DEFAULT.equals(minecraft.getLanguageManager().getSelected());
+  }
+
+  /**
+   * Returns the locked slots that apply to a region.
+   *
+   * @param region the region code
+   * @return the player's locked slots, or none for the container region
+   */
+  private static LockedSlots lockedSlots(int region) {
+    return region == SortHandler.REGION_CONTAINER
+        ? LockedSlots.EMPTY
+        : ClientLockedSlotsCache.getLockedSlots();
+  }
+
+  /**
+   * Returns the player's cached sort preference.
+   *
+   * @return the preference
+   */
+  private static SortPreference preference() {
+    return new SortPreference(ClientPreferenceCache.getMethod(), ClientPreferenceCache.getOrder());
+  }
+}
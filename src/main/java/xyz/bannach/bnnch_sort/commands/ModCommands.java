@@ -5,13 +5,13 @@ import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.suggestion.SuggestionProvider;
 import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
 import net.minecraft.commands.SharedSuggestionProvider;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerPlayer;
-import net.minecraft.world.inventory.AbstractContainerMenu;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
 import net.neoforged.neoforge.event.RegisterCommandsEvent;
@@ -19,9 +19,12 @@ import net.neoforged.neoforge.network.PacketDistributor;
 import xyz.bannach.bnnch_sort.BnnchSort;
 import xyz.bannach.bnnch_sort.Config;
 import xyz.bannach.bnnch_sort.ModAttachments;
+import xyz.bannach.bnnch_sort.metrics.LatencyHistogram;
+import xyz.bannach.bnnch_sort.metrics.SortMetrics;
 import xyz.bannach.bnnch_sort.network.SyncLockedSlotsPayload;
 import xyz.bannach.bnnch_sort.network.SyncPreferencePayload;
 import xyz.bannach.bnnch_sort.server.SortHandler;
+import xyz.bannach.bnnch_sort.server.SortScheduler;
 import xyz.bannach.bnnch_sort.sorting.LockedSlots;
 import xyz.bannach.bnnch_sort.sorting.SortMethod;
 import xyz.bannach.bnnch_sort.sorting.SortOrder;
@@ -40,6 +43,7 @@ import xyz.bannach.bnnch_sort.sorting.SortPreference;
  *   <li>{@code /bnnchsort change <method> <order>} - Change sort preferences
  *   <li>{@code /bnnchsort reset} - Reset preferences to server defaults
  *   <li>{@code /bnnchsort config [key]} - View configuration values
+ *   <li>{@code /bnnchsort stats} - View sort statistics (operators only)
  *   <li>{@code /bnnchsort help} - Display help information
  * </ul>
  *
@@ -123,6 +127,10 @@ public class ModCommands {
                                     .suggests(ORDER_SUGGESTIONS)
                                     .executes(ModCommands::executeChange))))
             .then(Commands.literal("reset").executes(ModCommands::executeReset))
+            .then(
+                Commands.literal("stats")
+                    .requires(source -> source.hasPermission(2))
+                    .executes(ModCommands::executeStats))
             .then(
                 Commands.literal("config")
                     .executes(context -> executeConfig(context, null))
@@ -138,7 +146,8 @@ public class ModCommands {
    * Executes the /bnnchsort sortinv command to sort player inventory.
    *
    * <p>Sorts the specified region of the player's inventory using their current sort preferences.
-   * Valid regions are "all", "main", and "hotbar".
+   * Valid regions are "all", "main", and "hotbar". The sort runs immediately unless {@link
+   * SortScheduler} defers it because the server is overloaded.
    *
    * @param context the command context containing the source
    * @param region the inventory region to sort
@@ -158,21 +167,22 @@ public class ModCommands {
       return 0;
     }
 
-    AbstractContainerMenu menu = player.containerMenu;
-
     String regionKey;
+    Runnable sort;
     switch (region.toLowerCase()) {
       case "hotbar" -> {
-        SortHandler.sortRegion(player, menu, SortHandler.REGION_PLAYER_HOTBAR);
+        sort = () -> sortPlayerRegions(player, SortHandler.REGION_PLAYER_HOTBAR);
         regionKey = "command.bnnch_sort.sortinv.region.hotbar";
       }
       case "main" -> {
-        SortHandler.sortRegion(player, menu, SortHandler.REGION_PLAYER_MAIN);
+        sort = () -> sortPlayerRegions(player, SortHandler.REGION_PLAYER_MAIN);
         regionKey = "command.bnnch_sort.sortinv.region.main";
       }
       case "all" -> {
-        SortHandler.sortRegion(player, menu, SortHandler.REGION_PLAYER_MAIN);
-        SortHandler.sortRegion(player, menu, SortHandler.REGION_PLAYER_HOTBAR);
+        sort =
+            () ->
+                sortPlayerRegions(
+                    player, SortHandler.REGION_PLAYER_MAIN, SortHandler.REGION_PLAYER_HOTBAR);
         regionKey = "command.bnnch_sort.sortinv.region.all";
       }
       default -> {
@@ -183,18 +193,35 @@ public class ModCommands {
       }
     }
 
-    menu.broadcastChanges();
+    // Command sorts are background work, deferred while the server is overloaded
+    boolean ran = SortScheduler.runOrDefer(context.getSource().getServer(), sort);
+    String messageKey =
+        ran ? "command.bnnch_sort.sortinv.success" : "command.bnnch_sort.sortinv.deferred";
     context
         .getSource()
         .sendSuccess(
-            () ->
-                Component.translatable(
-                    "command.bnnch_sort.sortinv.success", Component.translatable(regionKey)),
-            false);
+            () -> Component.translatable(messageKey, Component.translatable(regionKey)), false);
 
     return 1;
   }
 
+  /**
+   * Sorts regions of a player's inventory in their currently open menu.
+   *
+   * <p>Does nothing if the player disconnected or entered spectator mode since the sort was queued.
+   *
+   * @param player the player whose inventory is sorted
+   * @param regions the region codes to sort, in order
+   */
+  private static void sortPlayerRegions(ServerPlayer player, int... regions) {
+    if (player.hasDisconnected() || player.isSpectator()) {
+      return;
+    }
+    for (int region : regions) {
+      SortHandler.sortRegion(player, player.containerMenu, region);
+    }
+  }
+
   /**
    * Executes the /bnnchsort unlock command to clear all locked slots.
    *
@@ -211,16 +238,16 @@ public class ModCommands {
     }
 
     LockedSlots locked = player.getData(ModAttachments.LOCKED_SLOTS);
-    if (locked.slots().isEmpty()) {
+    if (locked.isEmpty()) {
       context
           .getSource()
           .sendSuccess(() -> Component.translatable("command.bnnch_sort.unlock.none"), false);
       return 1;
     }
 
-    int count = locked.slots().size();
+    int count = locked.count();
     player.setData(ModAttachments.LOCKED_SLOTS, LockedSlots.EMPTY);
-    PacketDistributor.sendToPlayer(player, new SyncLockedSlotsPayload(LockedSlots.EMPTY.slots()));
+    PacketDistributor.sendToPlayer(player, new SyncLockedSlotsPayload(LockedSlots.EMPTY));
 
     context
         .getSource()
@@ -263,6 +290,11 @@ public class ModCommands {
     context
         .getSource()
         .sendSuccess(() -> Component.translatable("command.bnnch_sort.help.unlock"), false);
+    if (context.getSource().hasPermission(2)) {
+      context
+          .getSource()
+          .sendSuccess(() -> Component.translatable("command.bnnch_sort.help.stats"), false);
+    }
     context
         .getSource()
         .sendSuccess(
@@ -463,6 +495,82 @@ public class ModCommands {
     return 1;
   }
 
+  /**
+   * Executes the /bnnchsort stats command to display sort metrics.
+   *
+   * <p>Shows the counters of {@link SortMetrics} since the server started: sorts by region and
+   * method, sort latency, slot work, request handling, and client predictions and plans.
+   *
+   * @param context the command context containing the source
+   * @return 1 (always succeeds)
+   */
+  private static int executeStats(CommandContext<CommandSourceStack> context) {
+    CommandSourceStack source = context.getSource();
+    source.sendSuccess(() -> Component.translatable("command.bnnch_sort.stats.header"), false);
+    source.sendSuccess(
+        () ->
+            Component.translatable(
+                "command.bnnch_sort.stats.sorts",
+                SortMetrics.sorts(),
+                SortMetrics.noOps(),
+                SortMetrics.memoHits()),
+        false);
+    source.sendSuccess(
+        () ->
+            Component.translatable(
+                "command.bnnch_sort.stats.regions",
+                SortMetrics.sorts(SortHandler.REGION_CONTAINER),
+                SortMetrics.sorts(SortHandler.REGION_PLAYER_MAIN),
+                SortMetrics.sorts(SortHandler.REGION_PLAYER_HOTBAR)),
+        false);
+    for (SortMethod method : SortMethod.values()) {
+      source.sendSuccess(
+          () ->
+              Component.translatable(
+                  "command.bnnch_sort.stats.method",
+                  Component.translatable(method.getTranslationKey()),
+                  SortMetrics.sorts(method)),
+          false);
+    }
+    LatencyHistogram latency = SortMetrics.latency();
+    source.sendSuccess(
+        () ->
+            Component.translatable(
+                "command.bnnch_sort.stats.latency",
+                TimeUnit.NANOSECONDS.toMicros(latency.percentile(50)),
+                TimeUnit.NANOSECONDS.toMicros(latency.percentile(99)),
+                TimeUnit.NANOSECONDS.toMicros(latency.max())),
+        false);
+    source.sendSuccess(
+        () ->
+            Component.translatable(
+                "command.bnnch_sort.stats.slots",
+                SortMetrics.slotsProcessed(),
+                SortMetrics.slotsWritten(),
+                SortMetrics.stacksMerged()),
+        false);
+    source.sendSuccess(
+        () ->
+            Component.translatable(
+                "command.bnnch_sort.stats.requests",
+                SortMetrics.mergedRequests(),
+                SortMetrics.droppedRequests(),
+                SortMetrics.deferredSorts(),
+                SortMetrics.stalePlans()),
+        false);
+    source.sendSuccess(
+        () ->
+            Component.translatable(
+                "command.bnnch_sort.stats.client",
+                SortMetrics.predictions(),
+                SortMetrics.mispredictions(),
+                SortMetrics.clientPlans(),
+                SortMetrics.rejectedClientPlans()),
+        false);
+
+    return 1;
+  }
+
   /**
    * Parses a sort method from its string name.
    *
@@ -0,0 +1,136 @@
+package xyz.bannach.bnnch_sort.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * A lock-free histogram of durations in nanoseconds.
+ *
+ * <p>Durations are counted in log-linear buckets: each power of two is split into four equal
+ * buckets, so a reported percentile is at most 25% above the true value. Recording is two atomic
+ * increments and a max update, with no allocation.
+ *
+ * <h2>Side: Common</h2>
+ *
+ * <p>Safe to record into and read from any thread. Reads are not atomic snapshots, so a percentile
+ * read while durations are recorded may include some of them and not others.
+ *
+ * @see SortMetrics
+ * @since 1.2.0
+ */
+public final class LatencyHistogram {
+
+  /** Buckets per power of two, as a power of two itself. */
+  private static final int SUB_BUCKET_BITS = 2;
+
+  /** Buckets per power of two. */
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /** Number of buckets, enough for every non-negative {@code long}. */
+  private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+  /** Number of durations in each bucket. */
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  /** Longest duration recorded. */
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /** Creates an empty histogram. */
+  public LatencyHistogram() {}
+
+  /**
+   * Records a duration.
+   *
+   * @param nanos the duration in nanoseconds; negative durations count as zero
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(bucket(value));
+    max.accumulate(value);
+  }
+
+  /**
+   * Returns the number of durations recorded.
+   *
+   * @return the count
+   */
+  public long count() {
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      total += counts.get(i);
+    }
+    return total;
+  }
+
+  /**
+   * Returns an upper bound for the given percentile of the recorded durations.
+   *
+   * @param percentile the percentile, in {@code [0, 100]}
+   * @return the upper bound in nanoseconds, never above {@link #max()}, or 0 if nothing was
+   *     recorded
+   */
+  public long percentile(double percentile) {
+    long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, percentile) / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(upperBound(i), max());
+      }
+    }
+    return max();
+  }
+
+  /**
+   * Returns the longest duration recorded.
+   *
+   * @return the maximum in nanoseconds, or 0 if nothing was recorded
+   */
+  public long max() {
+    return max.get();
+  }
+
+  /**
+   * Returns the bucket a duration is counted in.
+   *
+   * <p>Values below {@link #SUB_BUCKETS} get a bucket each; above that, the exponent selects a
+   * group of {@link #SUB_BUCKETS} buckets and the bits after the leading one select the bucket.
+   *
+   * @param value the non-negative duration
+   * @return the bucket index
+   */
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  /**
+   * Returns the largest duration counted in a bucket.
+   *
+   * @param bucket the bucket index
+   * @return the bucket's inclusive upper bound
+   */
+  static long upperBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long sub = bucket % SUB_BUCKETS;
+    long width = 1L << (exponent - SUB_BUCKET_BITS);
+    long lower = (1L << exponent) + sub * width;
+    return lower + width - 1;
+  }
+}
@@ -0,0 +1,76 @@
+package xyz.bannach.bnnch_sort.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import net.minecraft.world.entity.player.Player;
+
+/**
+ * JFR event for one slot lock toggle, from the request until the locked slots were sent back.
+ *
+ * <p>The event is disabled by default; enable {@value #NAME} in a recording's settings to collect
+ * it.
+ *
+ * <h2>Side: Server-only</h2>
+ *
+ * @see xyz.bannach.bnnch_sort.server.LockHandler
+ * @since 1.2.0
+ */
+@Name(LockEvent.NAME)
+@Label("Slot Lock Toggle")
+@Category({"Bnnch: Sort"})
+@Description("A player locking or unlocking an inventory slot")
+@Enabled(false)
+@StackTrace(false)
+public final class LockEvent extends Event {
+
+  /** The event's name in recordings. */
+  public static final String NAME = "xyz.bannach.bnnch_sort.Lock";
+
+  @Label("Player")
+  String player;
+
+  @Label("Menu")
+  @Description("Class of the menu open while toggling")
+  String menu;
+
+  @Label("Slot")
+  @Description("Inventory index of the toggled slot")
+  int slot;
+
+  @Label("Locked")
+  @Description("Whether the slot is locked after the toggle")
+  boolean locked;
+
+  @Label("Locked Slots")
+  @Description("Number of locked slots after the toggle")
+  int lockedSlots;
+
+  /** Creates an event; call {@link #begin()} when the toggle starts. */
+  public LockEvent() {}
+
+  /**
+   * Ends the event and commits it if it is being recorded.
+   *
+   * @param player the player who toggled the lock
+   * @param slot the inventory index of the toggled slot
+   * @param locked whether the slot is locked after the toggle
+   * @param lockedSlots the number of locked slots after the toggle
+   */
+  public void report(Player player, int slot, boolean locked, int lockedSlots) {
+    end();
+    if (!shouldCommit()) {
+      return;
+    }
+    this.player = player.getScoreboardName();
+    this.menu = player.containerMenu.getClass().getName();
+    this.slot = slot;
+    this.locked = locked;
+    this.lockedSlots = lockedSlots;
+    commit();
+  }
+}
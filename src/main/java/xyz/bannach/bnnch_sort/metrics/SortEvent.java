@@ -0,0 +1,174 @@
+package xyz.bannach.bnnch_sort.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import xyz.bannach.bnnch_sort.sorting.SortMethod;
+import xyz.bannach.bnnch_sort.sorting.SortPhases;
+
+/**
+ * JFR event for one sort of a region, from the request until its result was sent.
+ *
+ * <p>The event is disabled by default; enable {@value #NAME} in a recording's settings to collect
+ * it. While it is disabled, {@link #phases()} returns null so the sort reads no clock, and {@link
+ * #report} returns without touching its fields.
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>{@code
+ * SortEvent event = new SortEvent();
+ * event.begin();
+ * SortPhases phases = event.phases();
+ * int changed = SlotSorter.sort(slots, lockedSlots, preference, phases);
+ * event.report(player, menu, region, slots.size(), method, SortEvent.SORTED, changed, phases);
+ * }</pre>
+ *
+ * <h2>Side: Server-only</h2>
+ *
+ * @see SortPhases
+ * @see xyz.bannach.bnnch_sort.server.SortHandler
+ * @since 1.2.0
+ */
+@Name(SortEvent.NAME)
+@Label("Inventory Sort")
+@Category({"Bnnch: Sort"})
+@Description("A sort of one region of a menu")
+@Enabled(false)
+@StackTrace(false)
+public final class SortEvent extends Event {
+
+  /** The event's name in recordings. */
+  public static final String NAME = "xyz.bannach.bnnch_sort.Sort";
+
+  /** Outcome of a sort that ran the full pipeline. */
+  public static final String SORTED = "sorted";
+
+  /** Outcome of a sort skipped because the region was already sorted. */
+  public static final String ALREADY_SORTED = "already sorted";
+
+  /** Outcome of a sort skipped because the region was unchanged since its last sort. */
+  public static final String UNCHANGED = "unchanged";
+
+  /** Outcome of a sort handed to a worker thread; a later event reports the applied plan. */
+  public static final String PLANNING = "planning off thread";
+
+  /** Outcome of a sort whose plan was computed off the server thread. */
+  public static final String OFF_THREAD_PLAN = "off-thread plan";
+
+  /** Outcome of a sort whose plan was computed by the client. */
+  public static final String CLIENT_PLAN = "client plan";
+
+  @Label("Player")
+  String player;
+
+  @Label("Menu")
+  @Description("Class of the sorted menu")
+  String menu;
+
+  @Label("Region")
+  String region;
+
+  @Label("Slots")
+  int slots;
+
+  @Label("Method")
+  String method;
+
+  @Label("Outcome")
+  String outcome;
+
+  @Label("Slots Changed")
+  int slotsChanged;
+
+  @Label("Snapshot")
+  @Description("Gathering the slots' stacks and checking whether they are sorted")
+  @Timespan(Timespan.NANOSECONDS)
+  long snapshot;
+
+  @Label("Merge")
+  @Description("Topping up locked stacks and condensing partial stacks")
+  @Timespan(Timespan.NANOSECONDS)
+  long merge;
+
+  @Label("Key")
+  @Description("Extracting sort keys")
+  @Timespan(Timespan.NANOSECONDS)
+  long key;
+
+  @Label("Sort")
+  @Description("Ordering the keys and laying out the plan")
+  @Timespan(Timespan.NANOSECONDS)
+  long sort;
+
+  @Label("Write-back")
+  @Description("Writing changed slots")
+  @Timespan(Timespan.NANOSECONDS)
+  long writeBack;
+
+  @Label("Broadcast")
+  @Description("Sending the changed slots to players")
+  @Timespan(Timespan.NANOSECONDS)
+  long broadcast;
+
+  /** Creates an event; call {@link #begin()} when the sort starts. */
+  public SortEvent() {}
+
+  /**
+   * Returns phase timings for the sort if the event is being recorded.
+   *
+   * @return new phase timings, or null while the event is disabled
+   */
+  public SortPhases phases() {
+    return isEnabled() ? new SortPhases() : null;
+  }
+
+  /**
+   * Ends the event and commits it if it is being recorded.
+   *
+   * @param player the player who sorted
+   * @param menu the sorted menu
+   * @param region the region code
+   * @param slots the number of slots in the region
+   * @param method the sort method
+   * @param outcome what became of the sort, one of this class's outcome constants
+   * @param slotsChanged the number of slots the sort wrote
+   * @param phases the sort's phase timings, or null if it was not timed
+   */
+  public void report(
+      Player player,
+      AbstractContainerMenu menu,
+      int region,
+      int slots,
+      SortMethod method,
+      String outcome,
+      int slotsChanged,
+      SortPhases phases) {
+    end();
+    if (!shouldCommit()) {
+      return;
+    }
+    this.player = player.getScoreboardName();
+    this.menu = menu.getClass().getName();
+    this.region = SortMetrics.regionName(region);
+    this.slots = slots;
+    this.method = method.getSerializedName();
+    this.outcome = outcome;
+    this.slotsChanged = slotsChanged;
+    if (phases != null) {
+      snapshot = phases.nanos(SortPhases.SNAPSHOT);
+      merge = phases.nanos(SortPhases.MERGE);
+      key = phases.nanos(SortPhases.KEY);
+      sort = phases.nanos(SortPhases.SORT);
+      writeBack = phases.nanos(SortPhases.WRITE_BACK);
+      broadcast = phases.nanos(SortPhases.BROADCAST);
+    }
+    commit();
+  }
+}
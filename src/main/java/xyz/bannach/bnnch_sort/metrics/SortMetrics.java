@@ -0,0 +1,427 @@
+package xyz.bannach.bnnch_sort.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import xyz.bannach.bnnch_sort.sorting.SortMethod;
+
+/**
+ * Process-wide counters for sort operations.
+ *
+ * <p>Counters are cumulative since server start and safe to update from any thread. Every counter
+ * is a {@link LongAdder} or a {@link LatencyHistogram}, so recording never locks or allocates;
+ * reading sums the adders' cells and is meant for occasional reports, such as {@code /bnnchsort
+ * stats} and {@link SortMetricsJmx}.
+ *
+ * <h2>Counters</h2>
+ *
+ * <ul>
+ *   <li>{@link #sorts()} - Sort operations requested, including no-ops
+ *   <li>{@link #noOps()} - Sorts skipped because the region was already sorted
+ *   <li>{@link #memoHits()} - No-ops detected by an unchanged contents fingerprint
+ *   <li>{@link #sorts(int)} - Sorts of each region, including no-ops
+ *   <li>{@link #sorts(SortMethod)} - Sorts with each method, including no-ops
+ *   <li>{@link #latency()} and {@link #latency(int)} - Time from the start of each sort until its
+ *       result was written, overall and per region
+ *   <li>{@link #slotsProcessed()} - Slots in the regions sorts looked at, including no-ops
+ *   <li>{@link #slotsWritten()} - Slots whose contents a sort changed
+ *   <li>{@link #stacksMerged()} - Stacks that sorts merged into other stacks
+ *   <li>{@link #mergedRequests()} - Requests merged into a sort already queued for the region
+ *   <li>{@link #droppedRequests()} - Requests dropped as stale, duplicated, or over the rate limit
+ *   <li>{@link #deferredSorts()} - Sorts carried over to a later tick by the tick budget
+ *   <li>{@link #stalePlans()} - Off-thread plans discarded because the slots changed or planning
+ *       failed
+ *   <li>{@link #predictions()} - Client-predicted sorts checked against the server's sort
+ *   <li>{@link #mispredictions()} - Client-predicted sorts that differed and were resynced
+ *   <li>{@link #clientPlans()} - Client-computed plans received
+ *   <li>{@link #rejectedClientPlans()} - Client-computed plans that were stale or invalid, so the
+ *       server planned the sort itself
+ * </ul>
+ *
+ * <h2>Side: Server-only</h2>
+ *
+ * <p>Updated by {@link xyz.bannach.bnnch_sort.server.SortHandler}, {@link
+ * xyz.bannach.bnnch_sort.server.SortRequestLimiter}, and {@link
+ * xyz.bannach.bnnch_sort.server.SortScheduler}.
+ *
+ * @since 1.2.0
+ */
+public final class SortMetrics {
+
+  /** Sort operations requested, including no-ops. */
+  private static final LongAdder SORTS = new LongAdder();
+
+  /** Sorts skipped because the region was already sorted. */
+  private static final LongAdder NO_OPS = new LongAdder();
+
+  /** No-ops detected by an unchanged contents fingerprint. */
+  private static final LongAdder MEMO_HITS = new LongAdder();
+
+  /** Number of sort regions; region codes index the per-region metrics. */
+  public static final int REGIONS = 3;
+
+  /** Region names, indexed by region code. */
+  private static final String[] REGION_NAMES = {"container", "main", "hotbar"};
+
+  /** Sorts of each region, including no-ops. */
+  private static final LongAdder[] SORTS_BY_REGION = adders(REGIONS);
+
+  /** Sorts with each method, including no-ops, by method ordinal. */
+  private static final LongAdder[] SORTS_BY_METHOD = adders(SortMethod.values().length);
+
+  /** Time from the start of each sort until its result was written. */
+  private static final LatencyHistogram LATENCY = new LatencyHistogram();
+
+  /** Sort latency of each region. */
+  private static final LatencyHistogram[] LATENCY_BY_REGION = {
+    new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram()
+  };
+
+  /** Slots in the regions sorts looked at, including no-ops. */
+  private static final LongAdder SLOTS_PROCESSED = new LongAdder();
+
+  /** Slots whose contents a sort changed. */
+  private static final LongAdder SLOTS_WRITTEN = new LongAdder();
+
+  /** Stacks that sorts merged into other stacks. */
+  private static final LongAdder STACKS_MERGED = new LongAdder();
+
+  /** Requests merged into a sort already queued for the region. */
+  private static final LongAdder MERGED_REQUESTS = new LongAdder();
+
+  /** Requests dropped as stale, duplicated, or over the rate limit. */
+  private static final LongAdder DROPPED_REQUESTS = new LongAdder();
+
+  /** Sorts carried over to a later tick by the tick budget. */
+  private static final LongAdder DEFERRED_SORTS = new LongAdder();
+
+  /** Off-thread plans discarded because the slots changed or planning failed. */
+  private static final LongAdder STALE_PLANS = new LongAdder();
+
+  /** Client-predicted sorts checked against the server's sort. */
+  private static final LongAdder PREDICTIONS = new LongAdder();
+
+  /** Client-predicted sorts that differed from the server's sort. */
+  private static final LongAdder MISPREDICTIONS = new LongAdder();
+
+  /** Client-computed plans received. */
+  private static final LongAdder CLIENT_PLANS = new LongAdder();
+
+  /** Client-computed plans that were stale or invalid. */
+  private static final LongAdder REJECTED_CLIENT_PLANS = new LongAdder();
+
+  /** Private constructor to prevent instantiation. */
+  private SortMetrics() {}
+
+  /**
+   * Records a sort that ran the full pipeline.
+   *
+   * @param region the region code
+   * @param method the sort method
+   * @param slots the number of slots in the region
+   * @param changedSlots the number of slots the sort wrote
+   * @param mergedStacks the number of stacks merged into other stacks
+   * @param nanos the time from the start of the sort until its result was written
+   */
+  public static void recordSort(
+      int region, SortMethod method, int slots, int changedSlots, int mergedStacks, long nanos) {
+    record(region, method, slots, nanos);
+    SLOTS_WRITTEN.add(changedSlots);
+    STACKS_MERGED.add(mergedStacks);
+  }
+
+  /**
+   * Records a sort skipped because the region was already sorted.
+   *
+   * @param region the region code
+   * @param method the sort method
+   * @param slots the number of slots in the region
+   * @param nanos the time it took to find the region sorted
+   */
+  public static void recordNoOp(int region, SortMethod method, int slots, long nanos) {
+    record(region, method, slots, nanos);
+    NO_OPS.increment();
+  }
+
+  /**
+   * Records a sort skipped because the region's fingerprint matched its last sorted state.
+   *
+   * @param region the region code
+   * @param method the sort method
+   * @param slots the number of slots in the region
+   * @param nanos the time it took to find the region unchanged
+   */
+  public static void recordMemoHit(int region, SortMethod method, int slots, long nanos) {
+    MEMO_HITS.increment();
+    recordNoOp(region, method, slots, nanos);
+  }
+
+  /** Records a request merged into a sort already queued for the same region. */
+  public static void recordMergedRequest() {
+    MERGED_REQUESTS.increment();
+  }
+
+  /** Records a request dropped as stale, duplicated, or over the rate limit. */
+  public static void recordDroppedRequest() {
+    DROPPED_REQUESTS.increment();
+  }
+
+  /** Records a queued sort that ran in a later tick than the one it was queued for. */
+  public static void recordDeferredSort() {
+    DEFERRED_SORTS.increment();
+  }
+
+  /** Records an off-thread plan discarded because the slots changed or planning failed. */
+  public static void recordStalePlan() {
+    STALE_PLANS.increment();
+  }
+
+  /**
+   * Records a client-predicted sort checked against the server's sort.
+   *
+   * @param matched whether the client's prediction matched
+   */
+  public static void recordPrediction(boolean matched) {
+    PREDICTIONS.increment();
+    if (!matched) {
+      MISPREDICTIONS.increment();
+    }
+  }
+
+  /**
+   * Records a client-computed plan.
+   *
+   * @param accepted whether the plan was applied, rather than stale or invalid
+   */
+  public static void recordClientPlan(boolean accepted) {
+    CLIENT_PLANS.increment();
+    if (!accepted) {
+      REJECTED_CLIENT_PLANS.increment();
+    }
+  }
+
+  /**
+   * Returns the number of sort operations requested, including no-ops.
+   *
+   * @return the sort count
+   */
+  public static long sorts() {
+    return SORTS.sum();
+  }
+
+  /**
+   * Returns the number of sorts skipped because the region was already sorted.
+   *
+   * @return the no-op count
+   */
+  public static long noOps() {
+    return NO_OPS.sum();
+  }
+
+  /**
+   * Returns the number of no-ops detected by an unchanged contents fingerprint.
+   *
+   * @return the memo hit count
+   */
+  public static long memoHits() {
+    return MEMO_HITS.sum();
+  }
+
+  /**
+   * Returns the number of sorts of a region, including no-ops.
+   *
+   * @param region the region code
+   * @return the sort count, or 0 for an unknown region
+   */
+  public static long sorts(int region) {
+    return region >= 0 && region < REGIONS ? SORTS_BY_REGION[region].sum() : 0;
+  }
+
+  /**
+   * Returns the number of sorts with a method, including no-ops.
+   *
+   * @param method the sort method
+   * @return the sort count
+   */
+  public static long sorts(SortMethod method) {
+    return SORTS_BY_METHOD[method.ordinal()].sum();
+  }
+
+  /**
+   * Returns the latency of all sorts.
+   *
+   * @return the latency histogram
+   */
+  public static LatencyHistogram latency() {
+    return LATENCY;
+  }
+
+  /**
+   * Returns the latency of sorts of a region.
+   *
+   * @param region the region code
+   * @return the latency histogram
+   * @throws ArrayIndexOutOfBoundsException if the region code is unknown
+   */
+  public static LatencyHistogram latency(int region) {
+    return LATENCY_BY_REGION[region];
+  }
+
+  /**
+   * Returns the number of slots in the regions sorts looked at, including no-ops.
+   *
+   * @return the processed slot count
+   */
+  public static long slotsProcessed() {
+    return SLOTS_PROCESSED.sum();
+  }
+
+  /**
+   * Returns the number of slots whose contents sorts changed.
+   *
+   * @return the slot write count
+   */
+  public static long slotsWritten() {
+    return SLOTS_WRITTEN.sum();
+  }
+
+  /**
+   * Returns the number of stacks that sorts merged into other stacks.
+   *
+   * @return the merged stack count
+   */
+  public static long stacksMerged() {
+    return STACKS_MERGED.sum();
+  }
+
+  /**
+   * Returns the number of requests merged into a sort already queued for the region.
+   *
+   * @return the merged request count
+   */
+  public static long mergedRequests() {
+    return MERGED_REQUESTS.sum();
+  }
+
+  /**
+   * Returns the number of requests dropped as stale, duplicated, or over the rate limit.
+   *
+   * @return the dropped request count
+   */
+  public static long droppedRequests() {
+    return DROPPED_REQUESTS.sum();
+  }
+
+  /**
+   * Returns the number of sorts carried over to a later tick by the tick budget.
+   *
+   * @return the deferred sort count
+   */
+  public static long deferredSorts() {
+    return DEFERRED_SORTS.sum();
+  }
+
+  /**
+   * Returns the number of off-thread plans discarded because the slots changed or planning failed.
+   *
+   * @return the stale plan count
+   */
+  public static long stalePlans() {
+    return STALE_PLANS.sum();
+  }
+
+  /**
+   * Returns the number of client-predicted sorts checked against the server's sort.
+   *
+   * @return the prediction count
+   */
+  public static long predictions() {
+    return PREDICTIONS.sum();
+  }
+
+  /**
+   * Returns the number of client-predicted sorts that differed from the server's sort.
+   *
+   * @return the misprediction count
+   */
+  public static long mispredictions() {
+    return MISPREDICTIONS.sum();
+  }
+
+  /**
+   * Returns the number of client-computed plans received.
+   *
+   * @return the client plan count
+   */
+  public static long clientPlans() {
+    return CLIENT_PLANS.sum();
+  }
+
+  /**
+   * Returns the number of client-computed plans that were stale or invalid.
+   *
+   * @return the rejected client plan count
+   */
+  public static long rejectedClientPlans() {
+    return REJECTED_CLIENT_PLANS.sum();
+  }
+
+  /**
+   * Returns the fraction of client-predicted sorts that differed from the server's sort.
+   *
+   * @return the misprediction rate in {@code [0, 1]}, or 0 before the first prediction
+   */
+  public static double mispredictionRate() {
+    long predictions = PREDICTIONS.sum();
+    return predictions == 0 ? 0.0 : (double) MISPREDICTIONS.sum() / predictions;
+  }
+
+  /**
+   * Returns the fraction of sorts that were skipped as already sorted.
+   *
+   * @return the no-op rate in {@code [0, 1]}, or 0 before the first sort
+   */
+  public static double noOpRate() {
+    long sorts = SORTS.sum();
+    return sorts == 0 ? 0.0 : (double) NO_OPS.sum() / sorts;
+  }
+
+  /**
+   * Returns the name of a region, as reported to JMX and JFR.
+   *
+   * @param region the region code
+   * @return the region's name, or "unknown"
+   */
+  public static String regionName(int region) {
+    return region >= 0 && region < REGIONS ? REGION_NAMES[region] : "unknown";
+  }
+
+  /**
+   * Records what every sort has in common.
+   *
+   * @param region the region code
+   * @param method the sort method
+   * @param slots the number of slots in the region
+   * @param nanos the sort's latency
+   */
+  private static void record(int region, SortMethod method, int slots, long nanos) {
+    SORTS.increment();
+    SORTS_BY_REGION[region].increment();
+    SORTS_BY_METHOD[method.ordinal()].increment();
+    SLOTS_PROCESSED.add(slots);
+    LATENCY.record(nanos);
+    LATENCY_BY_REGION[region].record(nanos);
+  }
+
+  /**
+   * Creates an array of adders.
+   *
+   * @param size the number of adders
+   * @return the adders
+   */
+  private static LongAdder[] adders(int size) {
+    LongAdder[] adders = new LongAdder[size];
+    for (int i = 0; i < size; i++) {
+      adders[i] = new LongAdder();
+    }
+    return adders;
+  }
+}
@@ -0,0 +1,171 @@
+package xyz.bannach.bnnch_sort.metrics;
+
+import com.mojang.logging.LogUtils;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import xyz.bannach.bnnch_sort.sorting.SortMethod;
+
+/**
+ * Publishes {@link SortMetrics} as a JMX MBean named {@value #NAME}.
+ *
+ * <p>The MBean holds no state of its own; every attribute reads the counters when a JMX client
+ * fetches it, so publishing the metrics costs nothing while nobody is looking.
+ *
+ * <h2>Lifecycle</h2>
+ *
+ * <p>{@link #register()} is called when the server starts and {@link #unregister()} when it stops.
+ * A bean left behind by an earlier server in the same JVM, such as an integrated server that was
+ * restarted, is replaced. Failures are logged and never stop the server.
+ *
+ * <h2>Side: Server-only</h2>
+ *
+ * @see SortMetricsMXBean
+ * @see xyz.bannach.bnnch_sort.server.ServerEvents
+ * @since 1.2.0
+ */
+public final class SortMetricsJmx implements SortMetricsMXBean {
+
+  /** The MBean's object name. */
+  public static final String NAME = "xyz.bannach.bnnch_sort:type=SortMetrics";
+
+  private static final Logger LOGGER = LogUtils.getLogger();
+
+  /** Private constructor; the bean is only created by {@link #register()}. */
+  private SortMetricsJmx() {}
+
+  /** Registers the MBean with the platform MBean server, replacing any earlier registration. */
+  public static void register() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(NAME);
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+      server.registerMBean(new SortMetricsJmx(), name);
+    } catch (JMException | SecurityException e) {
+      LOGGER.warn("Failed to register sort metrics MBean", e);
+    }
+  }
+
+  /** Unregisters the MBean from the platform MBean server, if it is registered. */
+  public static void unregister() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(NAME);
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+    } catch (JMException | SecurityException e) {
+      LOGGER.warn("Failed to unregister sort metrics MBean", e);
+    }
+  }
+
+  @Override
+  public long getSorts() {
+    return SortMetrics.sorts();
+  }
+
+  @Override
+  public Map<String, Long> getSortsByRegion() {
+    Map<String, Long> sorts = new LinkedHashMap<>();
+    for (int region = 0; region < SortMetrics.REGIONS; region++) {
+      sorts.put(SortMetrics.regionName(region), SortMetrics.sorts(region));
+    }
+    return sorts;
+  }
+
+  @Override
+  public Map<String, Long> getSortsByMethod() {
+    Map<String, Long> sorts = new LinkedHashMap<>();
+    for (SortMethod method : SortMethod.values()) {
+      sorts.put(method.getSerializedName(), SortMetrics.sorts(method));
+    }
+    return sorts;
+  }
+
+  @Override
+  public long getNoOps() {
+    return SortMetrics.noOps();
+  }
+
+  @Override
+  public long getMemoHits() {
+    return SortMetrics.memoHits();
+  }
+
+  @Override
+  public long getLatencyP50Micros() {
+    return TimeUnit.NANOSECONDS.toMicros(SortMetrics.latency().percentile(50));
+  }
+
+  @Override
+  public long getLatencyP99Micros() {
+    return TimeUnit.NANOSECONDS.toMicros(SortMetrics.latency().percentile(99));
+  }
+
+  @Override
+  public long getLatencyMaxMicros() {
+    return TimeUnit.NANOSECONDS.toMicros(SortMetrics.latency().max());
+  }
+
+  @Override
+  public long getSlotsProcessed() {
+    return SortMetrics.slotsProcessed();
+  }
+
+  @Override
+  public long getSlotsWritten() {
+    return SortMetrics.slotsWritten();
+  }
+
+  @Override
+  public long getStacksMerged() {
+    return SortMetrics.stacksMerged();
+  }
+
+  @Override
+  public long getMergedRequests() {
+    return SortMetrics.mergedRequests();
+  }
+
+  @Override
+  public long getDroppedRequests() {
+    return SortMetrics.droppedRequests();
+  }
+
+  @Override
+  public long getDeferredSorts() {
+    return SortMetrics.deferredSorts();
+  }
+
+  @Override
+  public long getStalePlans() {
+    return SortMetrics.stalePlans();
+  }
+
+  @Override
+  public long getPredictions() {
+    return SortMetrics.predictions();
+  }
+
+  @Override
+  public long getMispredictions() {
+    return SortMetrics.mispredictions();
+  }
+
+  @Override
+  public long getClientPlans() {
+    return SortMetrics.clientPlans();
+  }
+
+  @Override
+  public long getRejectedClientPlans() {
+    return SortMetrics.rejectedClientPlans();
+  }
+}
@@ -0,0 +1,150 @@
+package xyz.bannach.bnnch_sort.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface through which {@link SortMetrics} are read over JMX.
+ *
+ * <p>Each attribute reads the matching {@link SortMetrics} counter when it is fetched. Latencies
+ * are reported in microseconds, as percentile upper bounds from {@link LatencyHistogram}.
+ *
+ * <h2>Side: Server-only</h2>
+ *
+ * @see SortMetricsJmx
+ * @since 1.2.0
+ */
+public interface SortMetricsMXBean {
+
+  /**
+   * Returns the number of sort operations requested, including no-ops.
+   *
+   * @return the sort count
+   */
+  long getSorts();
+
+  /**
+   * Returns the number of sorts of each region, including no-ops.
+   *
+   * @return the sort counts keyed by region name
+   */
+  Map<String, Long> getSortsByRegion();
+
+  /**
+   * Returns the number of sorts with each method, including no-ops.
+   *
+   * @return the sort counts keyed by method name
+   */
+  Map<String, Long> getSortsByMethod();
+
+  /**
+   * Returns the number of sorts skipped because the region was already sorted.
+   *
+   * @return the no-op count
+   */
+  long getNoOps();
+
+  /**
+   * Returns the number of no-ops detected by an unchanged contents fingerprint.
+   *
+   * @return the memo hit count
+   */
+  long getMemoHits();
+
+  /**
+   * Returns the median sort latency.
+   *
+   * @return the 50th percentile in microseconds
+   */
+  long getLatencyP50Micros();
+
+  /**
+   * Returns the 99th percentile sort latency.
+   *
+   * @return the 99th percentile in microseconds
+   */
+  long getLatencyP99Micros();
+
+  /**
+   * Returns the longest sort latency.
+   *
+   * @return the maximum in microseconds
+   */
+  long getLatencyMaxMicros();
+
+  /**
+   * Returns the number of slots in the regions sorts looked at, including no-ops.
+   *
+   * @return the processed slot count
+   */
+  long getSlotsProcessed();
+
+  /**
+   * Returns the number of slots whose contents sorts changed.
+   *
+   * @return the slot write count
+   */
+  long getSlotsWritten();
+
+  /**
+   * Returns the number of stacks that sorts merged into other stacks.
+   *
+   * @return the merged stack count
+   */
+  long getStacksMerged();
+
+  /**
+   * Returns the number of requests merged into a sort already queued for the region.
+   *
+   * @return the merged request count
+   */
+  long getMergedRequests();
+
+  /**
+   * Returns the number of requests dropped as stale, duplicated, or over the rate limit.
+   *
+   * @return the dropped request count
+   */
+  long getDroppedRequests();
+
+  /**
+   * Returns the number of sorts carried over to a later tick by the tick budget.
+   *
+   * @return the deferred sort count
+   */
+  long getDeferredSorts();
+
+  /**
+   * Returns the number of off-thread plans discarded because the slots changed or planning failed.
+   *
+   * @return the stale plan count
+   */
+  long getStalePlans();
+
+  /**
+   * Returns the number of client-predicted sorts checked against the server's sort.
+   *
+   * @return the prediction count
+   */
+  long getPredictions();
+
+  /**
+   * Returns the number of client-predicted sorts that differed from the server's sort.
+   *
+   * @return the misprediction count
+   */
+  long getMispredictions();
+
+  /**
+   * Returns the number of client-computed plans received.
+   *
+   * @return the client plan count
+   */
+  long getClientPlans();
+
+  /**
+   * Returns the number of client-computed plans that were stale or invalid.
+   *
+   * @return the rejected client plan count
+   */
+  long getRejectedClientPlans();
+}
@@ -0,0 +1,90 @@
+package xyz.bannach.bnnch_sort.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+
+/**
+ * JFR event for sending the result of one sort to players.
+ *
+ * <p>The event is disabled by default; enable {@value #NAME} in a recording's settings to collect
+ * it.
+ *
+ * <h2>Side: Server-only</h2>
+ *
+ * @see xyz.bannach.bnnch_sort.server.SortSync
+ * @since 1.2.0
+ */
+@Name(SortSyncEvent.NAME)
+@Label("Sort Sync")
+@Category({"Bnnch: Sort"})
+@Description("Sending the slots a sort changed to players")
+@Enabled(false)
+@StackTrace(false)
+public final class SortSyncEvent extends Event {
+
+  /** The event's name in recordings. */
+  public static final String NAME = "xyz.bannach.bnnch_sort.SortSync";
+
+  @Label("Player")
+  String player;
+
+  @Label("Menu")
+  @Description("Class of the sorted menu")
+  String menu;
+
+  @Label("Slots")
+  @Description("Number of slots in the sorted region")
+  int slots;
+
+  @Label("Compact")
+  @Description("Whether the sorting player was sent moves rather than vanilla slot updates")
+  boolean compact;
+
+  @Label("Changes")
+  @Description("Number of changed slots sent as moves or full stacks")
+  int changes;
+
+  @Label("Moves")
+  @Description("Number of changed slots sent as moves of stacks the client holds")
+  int moves;
+
+  /** Creates an event; call {@link #begin()} when sending starts. */
+  public SortSyncEvent() {}
+
+  /**
+   * Ends the event and commits it if it is being recorded.
+   *
+   * @param player the player who sorted, or null
+   * @param menu the sorted menu
+   * @param slots the number of slots in the sorted region
+   * @param compact whether the changes were sent as moves
+   * @param changes the number of changes sent, or 0 for vanilla slot updates
+   * @param moves the number of changes sent as moves
+   */
+  public void report(
+      Player player,
+      AbstractContainerMenu menu,
+      int slots,
+      boolean compact,
+      int changes,
+      int moves) {
+    end();
+    if (!shouldCommit()) {
+      return;
+    }
+    this.player = player == null ? null : player.getScoreboardName();
+    this.menu = menu.getClass().getName();
+    this.slots = slots;
+    this.compact = compact;
+    this.changes = changes;
+    this.moves = moves;
+    commit();
+  }
+}
@@ -0,0 +1,30 @@
+/**
+ * Runtime metrics for the Bnnch: Sort mod.
+ *
+ * <p>This package contains lightweight counters that record how much sorting work the server
+ * performs and how much it avoids.
+ *
+ * <h2>Key Components</h2>
+ *
+ * <ul>
+ *   <li>{@link xyz.bannach.bnnch_sort.metrics.SortMetrics} - Counts sorts by region and method,
+ *       slot work, and request handling
+ *   <li>{@link xyz.bannach.bnnch_sort.metrics.LatencyHistogram} - Lock-free histogram of sort
+ *       latencies
+ *   <li>{@link xyz.bannach.bnnch_sort.metrics.SortMetricsJmx} - Publishes the counters as a JMX
+ *       MBean
+ *   <li>{@link xyz.bannach.bnnch_sort.metrics.SortEvent}, {@link
+ *       xyz.bannach.bnnch_sort.metrics.LockEvent}, and {@link
+ *       xyz.bannach.bnnch_sort.metrics.SortSyncEvent} - JFR events for individual sorts, lock
+ *       toggles, and sort syncs, disabled unless a recording enables them
+ * </ul>
+ *
+ * <h2>Side: Server-only</h2>
+ *
+ * <p>Counters are updated by the server-side sort handler and read by {@code /bnnchsort stats}
+ * and JMX clients.
+ *
+ * @see xyz.bannach.bnnch_sort.server.SortHandler
+ * @since 1.2.0
+ */
+package xyz.bannach.bnnch_sort.metrics;
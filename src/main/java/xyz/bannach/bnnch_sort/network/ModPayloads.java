@@ -7,6 +7,8 @@ import net.neoforged.neoforge.network.registration.PayloadRegistrar;
 import xyz.bannach.bnnch_sort.BnnchSort;
 import xyz.bannach.bnnch_sort.client.ClientLockedSlotsCache;
 import xyz.bannach.bnnch_sort.client.ClientPreferenceCache;
+import xyz.bannach.bnnch_sort.client.ClientSortSync;
+import xyz.bannach.bnnch_sort.client.SortFeedback;
 import xyz.bannach.bnnch_sort.server.LockHandler;
 import xyz.bannach.bnnch_sort.server.PreferenceHandler;
 import xyz.bannach.bnnch_sort.server.SortHandler;
@@ -24,6 +26,9 @@ import xyz.bannach.bnnch_sort.server.SortHandler;
  *   <li>{@link SortRequestPayload} - Client → Server: Request to sort an inventory region
  *   <li>{@link CyclePreferencePayload} - Client → Server: Request to cycle sort preferences
  *   <li>{@link SyncPreferencePayload} - Server → Client: Sync current preferences to client
+ *   <li>{@link SortProgressPayload} - Server → Client: Progress of a sort spread over ticks
+ *   <li>{@link SortPlanPayload} - Client → Server: Request to apply a sort the client planned
+ *   <li>{@link SortSyncPayload} - Server → Client: A sort's changes as moves of held stacks
  * </ul>
  *
  * <h2>Side: Common</h2>
@@ -45,14 +50,14 @@ public class ModPayloads {
    * Registers all mod network payloads.
    *
    * <p>This method is called during network initialization and registers handlers for all custom
-   * packets used by the mod. The protocol version "1" ensures compatibility checking between client
+   * packets used by the mod. The protocol version "8" ensures compatibility checking between client
    * and server.
    *
    * @param event the payload registration event
    */
   @SubscribeEvent
   public static void register(RegisterPayloadHandlersEvent event) {
-    PayloadRegistrar registrar = event.registrar("1");
+    PayloadRegistrar registrar = event.registrar("8");
     registrar.playToServer(
         SortRequestPayload.TYPE, SortRequestPayload.STREAM_CODEC, SortHandler::handle);
     registrar.playToServer(
@@ -69,5 +74,11 @@ public class ModPayloads {
         SyncLockedSlotsPayload.TYPE,
         SyncLockedSlotsPayload.STREAM_CODEC,
         ClientLockedSlotsCache::handle);
+    registrar.playToClient(
+        SortProgressPayload.TYPE, SortProgressPayload.STREAM_CODEC, SortFeedback::handleProgress);
+    registrar.playToServer(
+        SortPlanPayload.TYPE, SortPlanPayload.STREAM_CODEC, SortHandler::handlePlan);
+    registrar.playToClient(
+        SortSyncPayload.TYPE, SortSyncPayload.STREAM_CODEC, ClientSortSync::handle);
   }
 }
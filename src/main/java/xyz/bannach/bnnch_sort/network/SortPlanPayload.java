@@ -0,0 +1,127 @@
+package xyz.bannach.bnnch_sort.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.DecoderException;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.NotNull;
+import xyz.bannach.bnnch_sort.BnnchSort;
+import xyz.bannach.bnnch_sort.server.SortHandler;
+import xyz.bannach.bnnch_sort.sorting.SlotSorter;
+import xyz.bannach.bnnch_sort.sorting.SortPlan;
+
+/**
+ * Network payload sent from client to server with a sort the client planned itself.
+ *
+ * <p>Sent instead of a {@link SortRequestPayload} when the server accepts client plans ({@link
+ * xyz.bannach.bnnch_sort.Config#acceptClientPlans}). Along with the region, sequence number, and
+ * menu state ID of a request, it carries the checksum of the region the client planned from
+ * ({@link SlotSorter#checksum}) and the plan itself, positioned over the region's unlocked slots.
+ * The server checks the plan in linear time and plans the sort itself if the plan is stale or
+ * invalid.
+ *
+ * <h2>Direction</h2>
+ *
+ * <p>Client → Server
+ *
+ * <h2>Encoding</h2>
+ *
+ * <p>The plan travels as its slot count followed by a source and a count per slot, all as VarInts,
+ * with sources shifted up by one so empty slots take a single byte. Plans of more than {@link
+ * #MAX_SLOTS} slots are refused when decoding, which keeps the payload within the serverbound size
+ * limit.
+ *
+ * <h2>Handling</h2>
+ *
+ * <p>Handled by {@link SortHandler#handlePlan(SortPlanPayload,
+ * net.neoforged.neoforge.network.handling.IPayloadContext)}
+ *
+ * @param region the inventory region to sort (see {@link SortHandler} for region constants)
+ * @param sequence the client's request sequence number
+ * @param stateId the menu's state ID when the client planned the sort
+ * @param checksum the checksum of the region's slots the plan was computed from
+ * @param prediction the client's prediction key, or {@link SlotSorter#NO_PREDICTION}
+ * @param plan the planned sort of the region's unlocked slots
+ * @see SortRequestPayload
+ * @see SlotSorter#applyPlan
+ * @since 1.2.0
+ */
+public record SortPlanPayload(
+    int region, int sequence, int stateId, long checksum, long prediction, SortPlan plan)
+    implements CustomPacketPayload {
+
+  /** Maximum number of slots a plan may cover. */
+  public static final int MAX_SLOTS = 4096;
+
+  /** The payload type identifier for registration and dispatch. */
+  public static final Type<SortPlanPayload> TYPE =
+      new Type<>(ResourceLocation.fromNamespaceAndPath(BnnchSort.MODID, "sort_plan"));
+
+  /** Stream codec for encoding a plan as its slot sources and counts. */
+  private static final StreamCodec<ByteBuf, SortPlan> PLAN_CODEC =
+      StreamCodec.of(SortPlanPayload::encodePlan, SortPlanPayload::decodePlan);
+
+  /** Codec for encoding and decoding this payload to/from a byte buffer. */
+  public static final StreamCodec<ByteBuf, SortPlanPayload> STREAM_CODEC =
+      StreamCodec.composite(
+          ByteBufCodecs.VAR_INT,
+          SortPlanPayload::region,
+          ByteBufCodecs.INT,
+          SortPlanPayload::sequence,
+          ByteBufCodecs.VAR_INT,
+          SortPlanPayload::stateId,
+          ByteBufCodecs.LONG,
+          SortPlanPayload::checksum,
+          ByteBufCodecs.LONG,
+          SortPlanPayload::prediction,
+          PLAN_CODEC,
+          SortPlanPayload::plan,
+          SortPlanPayload::new);
+
+  /**
+   * Writes a plan to a buffer.
+   *
+   * @param buffer the buffer to write to
+   * @param plan the plan
+   */
+  private static void encodePlan(ByteBuf buffer, SortPlan plan) {
+    ByteBufCodecs.VAR_INT.encode(buffer, plan.size());
+    for (int i = 0; i < plan.size(); i++) {
+      ByteBufCodecs.VAR_INT.encode(buffer, plan.source(i) + 1);
+      ByteBufCodecs.VAR_INT.encode(buffer, plan.count(i));
+    }
+  }
+
+  /**
+   * Reads a plan from a buffer.
+   *
+   * @param buffer the buffer to read from
+   * @return the plan
+   * @throws DecoderException if the plan covers more than {@link #MAX_SLOTS} slots
+   */
+  private static SortPlan decodePlan(ByteBuf buffer) {
+    int size = ByteBufCodecs.VAR_INT.decode(buffer);
+    if (size < 0 || size > MAX_SLOTS) {
+      throw new DecoderException("Sort plan of " + size + " slots exceeds " + MAX_SLOTS);
+    }
+    int[] sources = new int[size];
+    int[] counts = new int[size];
+    for (int i = 0; i < size; i++) {
+      sources[i] = ByteBufCodecs.VAR_INT.decode(buffer) - 1;
+      counts[i] = ByteBufCodecs.VAR_INT.decode(buffer);
+    }
+    return SortPlan.of(sources, counts);
+  }
+
+  /**
+   * Returns the payload type for this packet.
+   *
+   * @return the registered payload type
+   */
+  @Override
+  public @NotNull Type<? extends CustomPacketPayload> type() {
+    return TYPE;
+  }
+}
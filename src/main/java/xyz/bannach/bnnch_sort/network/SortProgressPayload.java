@@ -0,0 +1,51 @@
+package xyz.bannach.bnnch_sort.network;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.NotNull;
+import xyz.bannach.bnnch_sort.BnnchSort;
+import xyz.bannach.bnnch_sort.client.SortFeedback;
+
+/**
+ * Network payload sent from server to client to report the progress of a sort spread over ticks.
+ *
+ * <h2>Direction</h2>
+ *
+ * <p>Server → Client
+ *
+ * <h2>Handling</h2>
+ *
+ * <p>Handled by {@link SortFeedback#handleProgress(SortProgressPayload,
+ * net.neoforged.neoforge.network.handling.IPayloadContext)}
+ *
+ * @param percent the completed percentage (0-100), or {@link #ABANDONED} if the sort was given up
+ * @see xyz.bannach.bnnch_sort.server.SortHandler
+ * @since 1.2.0
+ */
+public record SortProgressPayload(int percent) implements CustomPacketPayload {
+
+  /** Progress value reported when planning failed and the sort was given up. */
+  public static final int ABANDONED = -1;
+
+  /** The payload type identifier for registration and dispatch. */
+  public static final Type<SortProgressPayload> TYPE =
+      new Type<>(ResourceLocation.fromNamespaceAndPath(BnnchSort.MODID, "sort_progress"));
+
+  /** Codec for encoding and decoding this payload to/from a byte buffer. */
+  public static final StreamCodec<ByteBuf, SortProgressPayload> STREAM_CODEC =
+      StreamCodec.composite(
+          ByteBufCodecs.VAR_INT, SortProgressPayload::percent, SortProgressPayload::new);
+
+  /**
+   * Returns the payload type for this packet.
+   *
+   * @return the registered payload type
+   */
+  @Override
+  public @NotNull Type<? extends CustomPacketPayload> type() {
+    return TYPE;
+  }
+}
@@ -1,6 +1,7 @@
 package xyz.bannach.bnnch_sort.network;
 
 import io.netty.buffer.ByteBuf;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.minecraft.network.codec.ByteBufCodecs;
 import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
@@ -8,12 +9,19 @@ import net.minecraft.resources.ResourceLocation;
 import org.jetbrains.annotations.NotNull;
 import xyz.bannach.bnnch_sort.BnnchSort;
 import xyz.bannach.bnnch_sort.server.SortHandler;
+import xyz.bannach.bnnch_sort.sorting.SlotSorter;
 
 /**
  * Network payload sent from client to server to request inventory sorting.
  *
  * <p>This payload is sent when the player triggers a sort action via keybind or button click. It
- * contains the region identifier specifying which inventory area to sort.
+ * contains the region identifier specifying which inventory area to sort, a sequence number that
+ * increases with every request the client sends so the server can drop stale or duplicate
+ * requests, and the key of the client's predicted sort ({@link
+ * xyz.bannach.bnnch_sort.client.SortPredictor}), if it made one. It also carries the menu's state
+ * ID and the region's checksum when the client sent it, so the server can tell whether the client
+ * still holds the region it recorded for the request ({@link
+ * xyz.bannach.bnnch_sort.server.SortSync}).
  *
  * <h2>Direction</h2>
  *
@@ -25,12 +33,21 @@ import xyz.bannach.bnnch_sort.server.SortHandler;
  * net.neoforged.neoforge.network.handling.IPayloadContext)}
  *
  * @param region the inventory region to sort (see {@link SortHandler} for region constants)
+ * @param sequence the client's request sequence number
+ * @param stateId the menu's state ID when the client sent the request
+ * @param checksum the checksum of the region's slots when the client sent the request
+ * @param prediction the client's prediction key, or {@link SlotSorter#NO_PREDICTION}
  * @see SortHandler#REGION_CONTAINER
  * @see SortHandler#REGION_PLAYER_MAIN
  * @see SortHandler#REGION_PLAYER_HOTBAR
  * @since 1.0.0
  */
-public record SortRequestPayload(int region) implements CustomPacketPayload {
+public record SortRequestPayload(
+    int region, int sequence, int stateId, long checksum, long prediction)
+    implements CustomPacketPayload {
+
+  /** Sequence number of the next request sent by this client. */
+  private static final AtomicInteger NEXT_SEQUENCE = new AtomicInteger();
 
   /** The payload type identifier for registration and dispatch. */
   public static final Type<SortRequestPayload> TYPE =
@@ -39,7 +56,26 @@ public record SortRequestPayload(int region) implements CustomPacketPayload {
   /** Codec for encoding and decoding this payload to/from a byte buffer. */
   public static final StreamCodec<ByteBuf, SortRequestPayload> STREAM_CODEC =
       StreamCodec.composite(
-          ByteBufCodecs.VAR_INT, SortRequestPayload::region, SortRequestPayload::new);
+          ByteBufCodecs.VAR_INT,
+          SortRequestPayload::region,
+          ByteBufCodecs.INT,
+          SortRequestPayload::sequence,
+          ByteBufCodecs.VAR_INT,
+          SortRequestPayload::stateId,
+          ByteBufCodecs.LONG,
+          SortRequestPayload::checksum,
+          ByteBufCodecs.LONG,
+          SortRequestPayload::prediction,
+          SortRequestPayload::new);
+
+  /**
+   * Returns this client's next request sequence number, shared with {@link SortPlanPayload}.
+   *
+   * @return the sequence number
+   */
+  public static int nextSequence() {
+    return NEXT_SEQUENCE.incrementAndGet();
+  }
 
   /**
    * Returns the payload type for this packet.
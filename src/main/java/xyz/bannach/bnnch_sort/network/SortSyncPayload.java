@@ -0,0 +1,160 @@
+package xyz.bannach.bnnch_sort.network;
+
+import java.util.List;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import xyz.bannach.bnnch_sort.BnnchSort;
+import xyz.bannach.bnnch_sort.client.ClientSortSync;
+
+/**
+ * Network payload sent from server to client describing a sort as moves of stacks the client
+ * already holds.
+ *
+ * <p>Vanilla menu synchronization sends the full stack, components included, for every slot a sort
+ * changed. Most of those stacks are already on the client in another slot, so this payload instead
+ * names, for each changed slot, a menu slot whose stack before the sort had the same item and
+ * components, together with the new count. Only stacks the client cannot find, and slots that
+ * become empty, are sent in full.
+ *
+ * <h2>Direction</h2>
+ *
+ * <p>Server → Client
+ *
+ * <h2>State IDs</h2>
+ *
+ * <p>The payload carries the menu's state ID before and after the sort. The client only adopts the
+ * new state ID if it held the state the sort started from, so a client that was out of sync keeps
+ * its old state ID and vanilla's full resynchronization corrects it on the next click.
+ *
+ * <h2>Sources</h2>
+ *
+ * <p>Moves name slots as they were when the client sent the request the sort answers, which the
+ * client recorded under the request's sequence number. The server only sends this payload once it
+ * has checked that nothing changed those slots since; otherwise the sort is sent the vanilla way.
+ *
+ * <h2>Encoding</h2>
+ *
+ * <p>Each move is its target slot, its source slot plus one, and its count, all as VarInts. A full
+ * stack is its target slot, a zero, and the stack.
+ *
+ * <h2>Handling</h2>
+ *
+ * <p>Handled by {@link ClientSortSync#handle(SortSyncPayload,
+ * net.neoforged.neoforge.network.handling.IPayloadContext)}
+ *
+ * @param containerId the ID of the menu the sort changed
+ * @param sequence the sequence number of the client request the sort answers
+ * @param previousStateId the menu's state ID the sort started from
+ * @param stateId the menu's state ID after the sort
+ * @param changes the changed slots
+ * @see xyz.bannach.bnnch_sort.server.SortSync
+ * @since 1.2.0
+ */
+public record SortSyncPayload(
+    int containerId, int sequence, int previousStateId, int stateId, List<Change> changes)
+    implements CustomPacketPayload {
+
+  /** The payload type identifier for registration and dispatch. */
+  public static final Type<SortSyncPayload> TYPE =
+      new Type<>(ResourceLocation.fromNamespaceAndPath(BnnchSort.MODID, "sort_sync"));
+
+  /** Stream codec for a single changed slot. */
+  private static final StreamCodec<RegistryFriendlyByteBuf, Change> CHANGE_CODEC =
+      StreamCodec.of(SortSyncPayload::encodeChange, SortSyncPayload::decodeChange);
+
+  /** Codec for encoding and decoding this payload to/from a byte buffer. */
+  public static final StreamCodec<RegistryFriendlyByteBuf, SortSyncPayload> STREAM_CODEC =
+      StreamCodec.composite(
+          ByteBufCodecs.VAR_INT,
+          SortSyncPayload::containerId,
+          ByteBufCodecs.INT,
+          SortSyncPayload::sequence,
+          ByteBufCodecs.VAR_INT,
+          SortSyncPayload::previousStateId,
+          ByteBufCodecs.VAR_INT,
+          SortSyncPayload::stateId,
+          CHANGE_CODEC.apply(ByteBufCodecs.list()),
+          SortSyncPayload::changes,
+          SortSyncPayload::new);
+
+  /**
+   * Writes a changed slot to a buffer.
+   *
+   * @param buffer the buffer to write to
+   * @param change the changed slot
+   */
+  private static void encodeChange(RegistryFriendlyByteBuf buffer, Change change) {
+    ByteBufCodecs.VAR_INT.encode(buffer, change.slot());
+    ByteBufCodecs.VAR_INT.encode(buffer, change.source() + 1);
+    if (change.source() >= 0) {
+      ByteBufCodecs.VAR_INT.encode(buffer, change.count());
+    } else {
+      ItemStack.OPTIONAL_STREAM_CODEC.encode(buffer, change.stack());
+    }
+  }
+
+  /**
+   * Reads a changed slot from a buffer.
+   *
+   * @param buffer the buffer to read from
+   * @return the changed slot
+   */
+  private static Change decodeChange(RegistryFriendlyByteBuf buffer) {
+    int slot = ByteBufCodecs.VAR_INT.decode(buffer);
+    int source = ByteBufCodecs.VAR_INT.decode(buffer) - 1;
+    if (source >= 0) {
+      return Change.move(slot, source, ByteBufCodecs.VAR_INT.decode(buffer));
+    }
+    return Change.full(slot, ItemStack.OPTIONAL_STREAM_CODEC.decode(buffer));
+  }
+
+  /**
+   * Returns the payload type for this packet.
+   *
+   * @return the registered payload type
+   */
+  @Override
+  public @NotNull Type<? extends CustomPacketPayload> type() {
+    return TYPE;
+  }
+
+  /**
+   * One slot changed by a sort.
+   *
+   * @param slot the menu slot index that changed
+   * @param source the menu slot index whose stack before the sort has the new item and
+   *     components, or -1 if the new stack is sent in full
+   * @param count the new item count, when moved from a source slot
+   * @param stack the new stack, when sent in full; empty otherwise
+   */
+  public record Change(int slot, int source, int count, ItemStack stack) {
+
+    /**
+     * Creates a change that copies the item and components of another slot's stack.
+     *
+     * @param slot the menu slot index that changed
+     * @param source the menu slot index holding the same item and components before the sort
+     * @param count the new item count
+     * @return the change
+     */
+    public static Change move(int slot, int source, int count) {
+      return new Change(slot, source, count, ItemStack.EMPTY);
+    }
+
+    /**
+     * Creates a change that carries the new stack in full.
+     *
+     * @param slot the menu slot index that changed
+     * @param stack the new stack, possibly empty
+     * @return the change
+     */
+    public static Change full(int slot, ItemStack stack) {
+      return new Change(slot, -1, stack.getCount(), stack);
+    }
+  }
+}
@@ -1,14 +1,13 @@
 package xyz.bannach.bnnch_sort.network;
 
 import io.netty.buffer.ByteBuf;
-import java.util.HashSet;
-import java.util.Set;
 import net.minecraft.network.codec.ByteBufCodecs;
 import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.resources.ResourceLocation;
 import org.jetbrains.annotations.NotNull;
 import xyz.bannach.bnnch_sort.BnnchSort;
+import xyz.bannach.bnnch_sort.sorting.LockedSlots;
 
 /**
  * Network payload sent from server to client to synchronize locked slot state.
@@ -17,25 +16,27 @@ import xyz.bannach.bnnch_sort.BnnchSort;
  *
  * <p>Server → Client
  *
- * @param lockedSlots the set of locked slot indices
+ * <h2>Encoding</h2>
+ *
+ * <p>The locked slots travel as their fixed-width 8-byte {@link LockedSlots#mask()}.
+ *
+ * @param lockedSlots the locked slots
  * @since 1.1.0
  */
-public record SyncLockedSlotsPayload(Set<Integer> lockedSlots) implements CustomPacketPayload {
+public record SyncLockedSlotsPayload(LockedSlots lockedSlots) implements CustomPacketPayload {
 
   /** The payload type identifier for registration and dispatch. */
   public static final Type<SyncLockedSlotsPayload> TYPE =
       new Type<>(ResourceLocation.fromNamespaceAndPath(BnnchSort.MODID, "sync_locked_slots"));
 
-  /** Stream codec for encoding a set of integers over the network. */
-  private static final StreamCodec<ByteBuf, Set<Integer>> INT_SET_CODEC =
-      ByteBufCodecs.VAR_INT
-          .apply(ByteBufCodecs.list())
-          .map(HashSet::new, set -> set.stream().sorted().toList());
+  /** Stream codec for encoding locked slots as their mask over the network. */
+  private static final StreamCodec<ByteBuf, LockedSlots> MASK_CODEC =
+      ByteBufCodecs.LONG.map(LockedSlots::new, LockedSlots::mask);
 
   /** Codec for encoding and decoding this payload to/from a byte buffer. */
   public static final StreamCodec<ByteBuf, SyncLockedSlotsPayload> STREAM_CODEC =
       StreamCodec.composite(
-          INT_SET_CODEC, SyncLockedSlotsPayload::lockedSlots, SyncLockedSlotsPayload::new);
+          MASK_CODEC, SyncLockedSlotsPayload::lockedSlots, SyncLockedSlotsPayload::new);
 
   /**
    * Returns the payload type for this packet.
@@ -11,6 +11,10 @@
  * <ul>
  *   <li>{@link xyz.bannach.bnnch_sort.network.SortRequestPayload} - Client-to-server request to
  *       sort a specific inventory region
+ *   <li>{@link xyz.bannach.bnnch_sort.network.SortPlanPayload} - Client-to-server request to apply
+ *       a sort the client planned itself
+ *   <li>{@link xyz.bannach.bnnch_sort.network.SortSyncPayload} - Server-to-client description of a
+ *       sort as moves of stacks the client already holds
  *   <li>{@link xyz.bannach.bnnch_sort.network.CyclePreferencePayload} - Client-to-server request to
  *       cycle the player's sort preferences
  *   <li>{@link xyz.bannach.bnnch_sort.network.SyncPreferencePayload} - Server-to-client sync of the
@@ -13,6 +13,7 @@
  *   <li>{@link xyz.bannach.bnnch_sort.server} - Server-side event handlers and sort processing
  *   <li>{@link xyz.bannach.bnnch_sort.client} - Client-side UI, keybindings, and feedback
  *   <li>{@link xyz.bannach.bnnch_sort.commands} - Brigadier slash commands
+ *   <li>{@link xyz.bannach.bnnch_sort.metrics} - Runtime sort metrics
  *   <li>{@link xyz.bannach.bnnch_sort.test} - NeoForge GameTest framework tests
  * </ul>
  *
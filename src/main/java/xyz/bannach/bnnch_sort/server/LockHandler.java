@@ -4,6 +4,7 @@ import net.minecraft.server.level.ServerPlayer;
 import net.neoforged.neoforge.network.PacketDistributor;
 import net.neoforged.neoforge.network.handling.IPayloadContext;
 import xyz.bannach.bnnch_sort.ModAttachments;
+import xyz.bannach.bnnch_sort.metrics.LockEvent;
 import xyz.bannach.bnnch_sort.network.SyncLockedSlotsPayload;
 import xyz.bannach.bnnch_sort.network.ToggleLockPayload;
 import xyz.bannach.bnnch_sort.sorting.LockedSlots;
@@ -12,7 +13,8 @@ import xyz.bannach.bnnch_sort.sorting.LockedSlots;
  * Server-side handler for slot lock toggle requests.
  *
  * <p>Processes incoming toggle lock requests from clients, updates the player's locked slots
- * attachment, and synchronizes the full state back to the client.
+ * attachment, and synchronizes the full state back to the client. Each toggle is reported as a
+ * {@link LockEvent} while that JFR event is recorded.
  *
  * <h2>Side: Server-only</h2>
  *
@@ -33,6 +35,8 @@ public class LockHandler {
   public static void handle(ToggleLockPayload payload, IPayloadContext context) {
     context.enqueueWork(
         () -> {
+          LockEvent event = new LockEvent();
+          event.begin();
           ServerPlayer player = (ServerPlayer) context.player();
           int slotIndex = payload.slotIndex();
 
@@ -44,7 +48,8 @@ public class LockHandler {
           LockedSlots updated = current.toggle(slotIndex);
           player.setData(ModAttachments.LOCKED_SLOTS, updated);
 
-          PacketDistributor.sendToPlayer(player, new SyncLockedSlotsPayload(updated.slots()));
+          PacketDistributor.sendToPlayer(player, new SyncLockedSlotsPayload(updated));
+          event.report(player, slotIndex, updated.isLocked(slotIndex), updated.count());
         });
   }
 }
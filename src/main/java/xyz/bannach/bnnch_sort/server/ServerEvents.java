@@ -3,14 +3,23 @@ package xyz.bannach.bnnch_sort.server;
 import net.minecraft.server.level.ServerPlayer;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.TagsUpdatedEvent;
+import net.neoforged.neoforge.event.entity.player.PlayerContainerEvent;
 import net.neoforged.neoforge.event.entity.player.PlayerEvent;
+import net.neoforged.neoforge.event.server.ServerStartedEvent;
+import net.neoforged.neoforge.event.server.ServerStoppedEvent;
+import net.neoforged.neoforge.event.tick.ServerTickEvent;
 import net.neoforged.neoforge.network.PacketDistributor;
 import xyz.bannach.bnnch_sort.BnnchSort;
 import xyz.bannach.bnnch_sort.ModAttachments;
+import xyz.bannach.bnnch_sort.metrics.SortMetricsJmx;
 import xyz.bannach.bnnch_sort.network.SyncLockedSlotsPayload;
 import xyz.bannach.bnnch_sort.network.SyncPreferencePayload;
+import xyz.bannach.bnnch_sort.sorting.CreativeTabIndex;
 import xyz.bannach.bnnch_sort.sorting.LockedSlots;
+import xyz.bannach.bnnch_sort.sorting.NameRankTable;
 import xyz.bannach.bnnch_sort.sorting.SortPreference;
+import xyz.bannach.bnnch_sort.util.SlotLayout;
 
 /**
  * Server-side event listeners for the mod.
@@ -22,6 +31,13 @@ import xyz.bannach.bnnch_sort.sorting.SortPreference;
  *
  * <ul>
  *   <li>{@link PlayerEvent.PlayerLoggedInEvent} - Sync preferences on player login
+ *   <li>{@link ServerStartedEvent} - Build the creative tab index and item name ranks, and
+ *       publish sort metrics over JMX
+ *   <li>{@link TagsUpdatedEvent} - Rebuild both after tag or datapack reloads
+ *   <li>{@link PlayerContainerEvent.Close} - Drop the closed menu's cached slot layout
+ *   <li>{@link PlayerEvent.PlayerLoggedOutEvent} - Drop the player's sort request state
+ *   <li>{@link ServerTickEvent.Post} - Run queued sorts within the tick budget
+ *   <li>{@link ServerStoppedEvent} - Discard sorts still queued and withdraw the metrics MBean
  * </ul>
  *
  * <h2>Side: Server-only</h2>
@@ -55,7 +71,75 @@ public class ServerEvents {
           player, new SyncPreferencePayload(pref.method(), pref.order()));
 
       LockedSlots locked = player.getData(ModAttachments.LOCKED_SLOTS);
-      PacketDistributor.sendToPlayer(player, new SyncLockedSlotsPayload(locked.slots()));
+      PacketDistributor.sendToPlayer(player, new SyncLockedSlotsPayload(locked));
     }
   }
+
+  /**
+   * Builds the creative tab index, starts building item name ranks, and publishes sort metrics over
+   * JMX once the server has started.
+   *
+   * @param event the server started event
+   */
+  @SubscribeEvent
+  public static void onServerStarted(ServerStartedEvent event) {
+    CreativeTabIndex.rebuild();
+    NameRankTable.rebuildAsync();
+    SortMemo.invalidateAll();
+    SortMetricsJmx.register();
+  }
+
+  /**
+   * Rebuilds the creative tab index and item name ranks after tags or datapacks reload, and forgets
+   * every remembered sort result.
+   *
+   * @param event the tags updated event
+   */
+  @SubscribeEvent
+  public static void onTagsUpdated(TagsUpdatedEvent event) {
+    CreativeTabIndex.rebuild();
+    NameRankTable.rebuildAsync();
+    SortMemo.invalidateAll();
+  }
+
+  /**
+   * Drops the cached slot layout of a menu when a player closes it.
+   *
+   * @param event the container close event
+   */
+  @SubscribeEvent
+  public static void onContainerClose(PlayerContainerEvent.Close event) {
+    SlotLayout.invalidate(event.getContainer());
+  }
+
+  /**
+   * Drops a player's sort request state when they log out.
+   *
+   * @param event the player logout event
+   */
+  @SubscribeEvent
+  public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+    SortRequestLimiter.forget(event.getEntity().getUUID());
+  }
+
+  /**
+   * Runs queued sorts at the end of every server tick.
+   *
+   * @param event the server tick event
+   */
+  @SubscribeEvent
+  public static void onServerTick(ServerTickEvent.Post event) {
+    SortScheduler.tick(event.getServer());
+  }
+
+  /**
+   * Discards sorts still queued and withdraws the sort metrics MBean when the server stops.
+   *
+   * @param event the server stopped event
+   */
+  @SubscribeEvent
+  public static void onServerStopped(ServerStoppedEvent event) {
+    SortScheduler.clear();
+    SortMetricsJmx.unregister();
+  }
 }
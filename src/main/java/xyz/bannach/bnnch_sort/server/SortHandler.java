@@ -1,24 +1,33 @@
 package xyz.bannach.bnnch_sort.server;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.minecraft.server.level.ServerPlayer;
-import net.minecraft.world.Container;
 import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.inventory.AbstractContainerMenu;
-import net.minecraft.world.inventory.CraftingContainer;
 import net.minecraft.world.inventory.Slot;
 import net.minecraft.world.item.ItemStack;
+import net.neoforged.neoforge.network.PacketDistributor;
 import net.neoforged.neoforge.network.handling.IPayloadContext;
+import xyz.bannach.bnnch_sort.Config;
 import xyz.bannach.bnnch_sort.ModAttachments;
+import xyz.bannach.bnnch_sort.metrics.SortEvent;
+import xyz.bannach.bnnch_sort.metrics.SortMetrics;
+import xyz.bannach.bnnch_sort.network.SortPlanPayload;
+import xyz.bannach.bnnch_sort.network.SortProgressPayload;
 import xyz.bannach.bnnch_sort.network.SortRequestPayload;
 import xyz.bannach.bnnch_sort.sorting.ItemSorter;
 import xyz.bannach.bnnch_sort.sorting.LockedSlots;
+import xyz.bannach.bnnch_sort.sorting.SlotSorter;
+import xyz.bannach.bnnch_sort.sorting.SortPhases;
+import xyz.bannach.bnnch_sort.sorting.SortPlan;
 import xyz.bannach.bnnch_sort.sorting.SortPreference;
-import xyz.bannach.bnnch_sort.util.SlotUtils;
+import xyz.bannach.bnnch_sort.sorting.SortScratch;
+import xyz.bannach.bnnch_sort.util.SlotLayout;
 
 /**
  * Server-side handler for sort request payloads.
@@ -45,6 +54,66 @@ import xyz.bannach.bnnch_sort.util.SlotUtils;
  *   <li>Containers that contain any special slots (e.g., furnace)
  * </ul>
  *
+ * <h2>Already-Sorted Fast Path</h2>
+ *
+ * <p>Before planning anything, both sort methods check whether sorting could change the region:
+ *
+ * <ol>
+ *   <li>The region's contents fingerprint matches what its last sort left behind ({@link
+ *       SortMemo})
+ *   <li>The region is already merged, ordered, and padded with trailing empties ({@link
+ *       ItemSorter#isSorted})
+ * </ol>
+ *
+ * <p>Such requests return immediately and are counted as no-ops in {@link SortMetrics}.
+ *
+ * <h2>Request Limiting</h2>
+ *
+ * <p>Requests pass through {@link SortRequestLimiter} before being queued, which drops stale and
+ * excess requests and merges repeated requests for a region whose sort is still queued. Accepted
+ * requests run within the per-tick budget of {@link SortScheduler}.
+ *
+ * <h2>Off-Thread Planning</h2>
+ *
+ * <p>Container regions of at least {@link Config#offThreadSortThreshold} slots are planned on a
+ * {@link SortWorkers} thread from a {@link SortSnapshot} holding copies of the slots' stacks,
+ * leaving the server thread only the snapshot and the apply. The plan is applied only if the slots
+ * still match the snapshot, and replanned otherwise.
+ *
+ * <p>Regions of at least {@link Config#incrementalSortThreshold} slots are also read incrementally,
+ * a bounded chunk per scheduled step, with progress reported to the player.
+ *
+ * <h2>Client Prediction</h2>
+ *
+ * <p>A request may carry the key of a sort the client already performed on its own copy of the
+ * menu ({@link xyz.bannach.bnnch_sort.client.SortPredictor}). The server compares it with the
+ * checksums of the region before and after its own sort ({@link SlotSorter#predictionKey}) and
+ * resends the whole menu when they differ, when the request is dropped or merged, or when the
+ * region is not sorted in one step. Outcomes are counted in {@link SortMetrics}.
+ *
+ * <h2>Client Plans</h2>
+ *
+ * <p>When {@link Config#acceptClientPlans} is on, clients send the plan of their sort with the
+ * request ({@link SortPlanPayload}). The server only checks that the plan conserves every item,
+ * leaves locked slots alone, and produces a sorted, merged region, all in linear time, and falls
+ * back to planning the sort itself if the region changed since the client planned or the plan
+ * fails the check.
+ *
+ * <h2>Write-Back</h2>
+ *
+ * <p>Regions sorted on the server thread are planned in its {@link SortScratch} directly from the
+ * live slot stacks, which are never copied; only locked stacks that receive items are grown in
+ * place. Stacks are only copied for slots whose contents actually change, and changes are only
+ * broadcast when at least one slot was written, through {@link SortSync}, which tells the sorting
+ * player's client which of its own stacks moved where. Both sort methods report how many slots
+ * they modified.
+ *
+ * <h2>Profiling</h2>
+ *
+ * <p>Every sort is reported as a {@link SortEvent} while that JFR event is recorded, with the time
+ * spent in each phase of the pipeline ({@link SortPhases}). Sorts are only timed phase by phase
+ * while the event is enabled.
+ *
  * <h2>Side: Server-only</h2>
  *
  * <p>All sorting operations execute on the server to prevent cheating.
@@ -58,6 +127,12 @@ public class SortHandler {
   /** Private constructor to prevent instantiation of this utility class. */
   private SortHandler() {}
 
+  /**
+   * Number of times an off-thread plan of a region below {@link Config#incrementalSortThreshold} is
+   * computed before the region is sorted on the server thread.
+   */
+  private static final int MAX_PLAN_ATTEMPTS = 3;
+
   /**
    * Region code for the container's inventory (chest, shulker box, etc.).
    *
@@ -83,13 +158,14 @@ public class SortHandler {
    * Handles an incoming sort request from a client.
    *
    * <p>This method validates the request, determines target slots, extracts items, sorts them using
-   * the player's preferences, and writes the sorted items back to the slots. The operation is
-   * enqueued on the main server thread.
+   * the player's preferences, and writes the changed slots back. The operation is enqueued on the
+   * main server thread through {@link SortScheduler}, unless {@link SortRequestLimiter} merges or
+   * drops the request first.
    *
    * <p><strong>Guard Conditions:</strong>
    *
    * <ul>
-   *   <li>Spectator mode players are ignored
+   *   <li>Spectator mode and disconnected players are ignored
    *   <li>Container region requests are ignored when no container is open
    *   <li>Empty target slot lists result in no-op
    * </ul>
@@ -98,48 +174,338 @@ public class SortHandler {
    * @param context the network context containing the sending player
    */
   public static void handle(SortRequestPayload payload, IPayloadContext context) {
-    context.enqueueWork(
+    submit(
+        context,
+        payload.region(),
+        new SortSync.Origin(payload.sequence(), payload.stateId(), payload.checksum()),
+        payload.prediction(),
+        null);
+  }
+
+  /**
+   * Handles an incoming sort request that carries a plan computed by the client.
+   *
+   * <p>The request is limited and scheduled like any other. If client plans are accepted and the
+   * region still matches the checksum the client planned from, the plan is checked in linear time
+   * ({@link SlotSorter#applyPlan}) and applied. Otherwise the server plans the sort itself, exactly
+   * as for {@link #handle}.
+   *
+   * @param payload the sort request containing the target region and the client's plan
+   * @param context the network context containing the sending player
+   */
+  public static void handlePlan(SortPlanPayload payload, IPayloadContext context) {
+    SortPlan plan = Config.acceptClientPlans ? payload.plan() : null;
+    submit(
+        context,
+        payload.region(),
+        new SortSync.Origin(payload.sequence(), payload.stateId(), payload.checksum()),
+        payload.prediction(),
+        plan);
+  }
+
+  /**
+   * Limits a sort request and schedules it on the server thread.
+   *
+   * @param context the network context containing the sending player
+   * @param region the region code
+   * @param origin the request's sequence number, and the menu state ID and region checksum the
+   *     client sent it at, which its plan was computed from
+   * @param prediction the client's prediction key, or {@link SlotSorter#NO_PREDICTION}
+   * @param plan the client's plan, or null to plan on the server
+   */
+  private static void submit(
+      IPayloadContext context,
+      int region,
+      SortSync.Origin origin,
+      long prediction,
+      SortPlan plan) {
+    ServerPlayer player = (ServerPlayer) context.player();
+    UUID playerId = player.getUUID();
+    if (SortRequestLimiter.admit(playerId, region, origin.sequence())
+        != SortRequestLimiter.Decision.ACCEPT) {
+      if (prediction != SlotSorter.NO_PREDICTION) {
+        // The client already shows a sort that will not happen as a request of its own
+        context.enqueueWork(() -> resync(player));
+      }
+      return;
+    }
+    SortScheduler.submit(
+        SortScheduler.Priority.INTERACTIVE,
         () -> {
-          ServerPlayer player = (ServerPlayer) context.player();
-          if (player.isSpectator()) return;
+          SortRequestLimiter.complete(playerId, region);
+          if (player.hasDisconnected()) return;
+          if (player.isSpectator()) {
+            if (prediction != SlotSorter.NO_PREDICTION) resync(player);
+            return;
+          }
 
           AbstractContainerMenu menu = player.containerMenu;
-          if (payload.region() == REGION_CONTAINER && menu == player.inventoryMenu) return;
+          if (region == REGION_CONTAINER && menu == player.inventoryMenu) return;
+
+          List<Slot> targetSlots =
+              prediction == SlotSorter.NO_PREDICTION && plan == null
+                  ? List.of()
+                  : getTargetSlots(menu, region);
+          long before = targetSlots.isEmpty() ? 0 : SlotSorter.checksum(targetSlots);
+          boolean predicted = prediction != SlotSorter.NO_PREDICTION && !targetSlots.isEmpty();
 
-          int region = payload.region();
-          if (region == REGION_PLAYER_MAIN || region == REGION_PLAYER_HOTBAR) {
-            sortRegion(player, menu, region);
-          } else {
-            sortContainerRegion(menu, player);
+          boolean applied =
+              plan != null
+                  && before == origin.checksum()
+                  && applyClientPlan(player, menu, region, targetSlots, plan, origin);
+          if (plan != null) {
+            SortMetrics.recordClientPlan(applied);
+          }
+          if (!applied) {
+            if (predicted && region == REGION_CONTAINER && !sortsInline(targetSlots.size())) {
+              // The server will not sort this region in one step, so the prediction cannot hold
+              SortMetrics.recordPrediction(false);
+              resync(player);
+              predicted = false;
+            }
+            if (region == REGION_PLAYER_MAIN || region == REGION_PLAYER_HOTBAR) {
+              sortRegion(player, menu, region, origin);
+            } else {
+              sortContainerRegion(menu, player, origin);
+            }
+          }
+
+          if (predicted) {
+            boolean matched =
+                SlotSorter.predictionKey(before, SlotSorter.checksum(targetSlots)) == prediction;
+            SortMetrics.recordPrediction(matched);
+            if (!matched) {
+              resync(player);
+            }
           }
         });
   }
 
+  /**
+   * Checks a plan computed by a client and applies it if it is valid.
+   *
+   * @param player the player performing the sort
+   * @param menu the container menu
+   * @param region the region code
+   * @param targetSlots the region's slots, whose checksum matches the one the client planned from
+   * @param plan the client's plan
+   * @param origin the request the plan came with
+   * @return true if the plan was applied, false if it was invalid and nothing was written
+   */
+  private static boolean applyClientPlan(
+      ServerPlayer player,
+      AbstractContainerMenu menu,
+      int region,
+      List<Slot> targetSlots,
+      SortPlan plan,
+      SortSync.Origin origin) {
+    SortEvent event = beginEvent();
+    long start = System.nanoTime();
+    boolean container = region == REGION_CONTAINER;
+    LockedSlots lockedSlots =
+        container ? LockedSlots.EMPTY : player.getData(ModAttachments.LOCKED_SLOTS);
+    SortPreference preference = player.getData(ModAttachments.SORT_PREFERENCE);
+    SortSync.Layout before = SortSync.capture(menu, targetSlots, origin);
+    // Checking the plan counts as writing it back, since the client did every other phase
+    SortPhases phases = event.phases();
+    int changed = SlotSorter.applyPlan(targetSlots, lockedSlots, preference, plan);
+    if (changed == SlotSorter.INVALID_PLAN) {
+      return false;
+    }
+    if (phases != null) {
+      phases.lap(SortPhases.WRITE_BACK);
+    }
+    if (changed > 0) {
+      broadcast(player, menu, targetSlots, before, phases);
+    }
+    Object owner = container ? SortMemo.ownerOf(targetSlots, menu) : player.getInventory();
+    long fingerprint = SortMemo.fingerprint(targetSlots);
+    SortMemo.record(owner, region, fingerprint, preference, lockedSlots);
+    SortMetrics.recordSort(
+        region,
+        preference.method(),
+        targetSlots.size(),
+        changed,
+        before.stacksMerged(targetSlots),
+        System.nanoTime() - start);
+    event.report(
+        player,
+        menu,
+        region,
+        targetSlots.size(),
+        preference.method(),
+        SortEvent.CLIENT_PLAN,
+        changed,
+        phases);
+    return true;
+  }
+
+  /**
+   * Returns whether a container region of the given size is sorted within a single scheduled step.
+   *
+   * <p>Larger regions are planned off the server thread or read over several ticks. Player regions
+   * are always sorted in a single step.
+   *
+   * @param size the number of slots in the region
+   * @return true if the region is neither planned off-thread nor sorted incrementally
+   */
+  public static boolean sortsInline(int size) {
+    return !isIncremental(size)
+        && !(Config.offThreadSortThreshold > 0 && size >= Config.offThreadSortThreshold);
+  }
+
+  /**
+   * Returns whether a container region of the given size is read over several ticks.
+   *
+   * @param size the number of slots in the region
+   * @return true if the region reaches {@link Config#incrementalSortThreshold}
+   */
+  private static boolean isIncremental(int size) {
+    return Config.incrementalSortThreshold > 0 && size >= Config.incrementalSortThreshold;
+  }
+
+  /**
+   * Resends a player's whole open menu, replacing a mispredicted sort on the client.
+   *
+   * @param player the player whose client is out of sync
+   */
+  private static void resync(ServerPlayer player) {
+    if (!player.hasDisconnected()) {
+      player.containerMenu.sendAllDataToRemote();
+    }
+  }
+
+  /**
+   * Sorts the container region of a player's open menu the way a sort request from their client
+   * would.
+   *
+   * <p>Regions that {@link #sortsInline} are sorted right away. Larger ones are planned on {@link
+   * SortWorkers} and applied by later {@link SortScheduler} tasks; such a sort has finished once
+   * {@link SortMetrics#sorts(int)} counts it.
+   *
+   * @param player the player whose open container is sorted
+   * @return the number of slots whose contents changed, or 0 if the sort continues in later tasks
+   */
+  public static int sortContainer(ServerPlayer player) {
+    AbstractContainerMenu menu = player.containerMenu;
+    if (menu == player.inventoryMenu) {
+      return 0;
+    }
+    return sortContainerRegion(menu, player, null);
+  }
+
   /**
    * Sorts a container region (chest, shulker, etc.) without lock awareness.
    *
    * @param menu the container menu
    * @param player the player performing the sort
+   * @param origin the client request the sort answers, or null if the server started it
+   * @return the number of slots whose contents changed
    */
-  private static void sortContainerRegion(AbstractContainerMenu menu, ServerPlayer player) {
+  private static int sortContainerRegion(
+      AbstractContainerMenu menu, ServerPlayer player, SortSync.Origin origin) {
+    SortEvent event = beginEvent();
+    long start = System.nanoTime();
     List<Slot> targetSlots = getTargetSlots(menu, REGION_CONTAINER);
     if (targetSlots.isEmpty()) {
-      return;
+      return 0;
     }
 
-    List<ItemStack> stacks = new ArrayList<>();
-    for (Slot slot : targetSlots) {
-      stacks.add(slot.getItem().copy());
+    SortPreference preference = player.getData(ModAttachments.SORT_PREFERENCE);
+    Object owner = SortMemo.ownerOf(targetSlots, menu);
+    long fingerprint = SortMemo.fingerprint(targetSlots);
+    if (SortMemo.isUnchanged(owner, REGION_CONTAINER, fingerprint, preference, LockedSlots.EMPTY)) {
+      SortMetrics.recordMemoHit(
+          REGION_CONTAINER, preference.method(), targetSlots.size(), System.nanoTime() - start);
+      event.report(
+          player,
+          menu,
+          REGION_CONTAINER,
+          targetSlots.size(),
+          preference.method(),
+          SortEvent.UNCHANGED,
+          0,
+          null);
+      return 0;
     }
 
-    List<ItemStack> sorted =
-        ItemSorter.sort(stacks, player.getData(ModAttachments.SORT_PREFERENCE));
-
-    for (int i = 0; i < targetSlots.size(); i++) {
-      targetSlots.get(i).set(sorted.get(i));
+    int size = targetSlots.size();
+    if (!sortsInline(size)) {
+      new OffThreadSort(
+              menu, player, targetSlots, owner, preference, isIncremental(size), start, origin)
+          .snapshotStep();
+      event.report(
+          player, menu, REGION_CONTAINER, size, preference.method(), SortEvent.PLANNING, 0, null);
+      return 0;
     }
+    return sortContainerSlots(
+        menu, player, targetSlots, owner, fingerprint, preference, start, event, origin);
+  }
 
-    menu.broadcastChanges();
+  /**
+   * Plans and applies a container sort on the server thread.
+   *
+   * @param menu the container menu
+   * @param player the player performing the sort
+   * @param targetSlots the container region's slots
+   * @param owner the region's memo owner
+   * @param fingerprint the region's current contents fingerprint
+   * @param preference the sorting preferences containing method and order
+   * @param start the {@link System#nanoTime()} at which the sort was started
+   * @param event the sort's profiling event, already begun
+   * @param origin the client request the sort answers, or null if the server started it
+   * @return the number of slots whose contents changed
+   */
+  private static int sortContainerSlots(
+      AbstractContainerMenu menu,
+      ServerPlayer player,
+      List<Slot> targetSlots,
+      Object owner,
+      long fingerprint,
+      SortPreference preference,
+      long start,
+      SortEvent event,
+      SortSync.Origin origin) {
+    SortSync.Layout before = SortSync.capture(menu, targetSlots, origin);
+    SortPhases phases = event.phases();
+    int changed = SlotSorter.sort(targetSlots, LockedSlots.EMPTY, preference, phases);
+    if (changed == SlotSorter.ALREADY_SORTED) {
+      SortMemo.record(owner, REGION_CONTAINER, fingerprint, preference, LockedSlots.EMPTY);
+      SortMetrics.recordNoOp(
+          REGION_CONTAINER, preference.method(), targetSlots.size(), System.nanoTime() - start);
+      event.report(
+          player,
+          menu,
+          REGION_CONTAINER,
+          targetSlots.size(),
+          preference.method(),
+          SortEvent.ALREADY_SORTED,
+          0,
+          phases);
+      return 0;
+    }
+    if (changed > 0) {
+      broadcast(player, menu, targetSlots, before, phases);
+      fingerprint = SortMemo.fingerprint(targetSlots);
+    }
+    SortMemo.record(owner, REGION_CONTAINER, fingerprint, preference, LockedSlots.EMPTY);
+    SortMetrics.recordSort(
+        REGION_CONTAINER,
+        preference.method(),
+        targetSlots.size(),
+        changed,
+        before.stacksMerged(targetSlots),
+        System.nanoTime() - start);
+    event.report(
+        player,
+        menu,
+        REGION_CONTAINER,
+        targetSlots.size(),
+        preference.method(),
+        SortEvent.SORTED,
+        changed,
+        phases);
+    return changed;
   }
 
   /**
@@ -151,76 +517,123 @@ public class SortHandler {
    * @param player the player whose inventory is being sorted
    * @param menu the container menu
    * @param region the region code ({@link #REGION_PLAYER_MAIN} or {@link #REGION_PLAYER_HOTBAR})
+   * @return the number of slots whose contents changed, including locked slots that were topped up
    */
-  public static void sortRegion(Player player, AbstractContainerMenu menu, int region) {
+  public static int sortRegion(Player player, AbstractContainerMenu menu, int region) {
+    return sortRegion(player, menu, region, null);
+  }
+
+  /**
+   * Sorts a player inventory region with lock awareness, in answer to a client request.
+   *
+   * @param player the player whose inventory is being sorted
+   * @param menu the container menu
+   * @param region the region code ({@link #REGION_PLAYER_MAIN} or {@link #REGION_PLAYER_HOTBAR})
+   * @param origin the client request the sort answers, or null if the server started it
+   * @return the number of slots whose contents changed, including locked slots that were topped up
+   */
+  private static int sortRegion(
+      Player player, AbstractContainerMenu menu, int region, SortSync.Origin origin) {
+    SortEvent event = beginEvent();
+    long start = System.nanoTime();
     List<Slot> targetSlots = getTargetSlots(menu, region);
     if (targetSlots.isEmpty()) {
-      return;
+      return 0;
     }
 
     LockedSlots lockedSlots = player.getData(ModAttachments.LOCKED_SLOTS);
     SortPreference preference = player.getData(ModAttachments.SORT_PREFERENCE);
 
-    // Partition into locked and unlocked
-    List<Slot> locked = new ArrayList<>();
-    List<Slot> unlocked = new ArrayList<>();
-    for (Slot slot : targetSlots) {
-      if (lockedSlots.isLocked(slot.getContainerSlot())) {
-        locked.add(slot);
-      } else {
-        unlocked.add(slot);
-      }
+    // Skip the sort if the region still holds what its last sort left behind
+    Inventory owner = player.getInventory();
+    long fingerprint = SortMemo.fingerprint(targetSlots);
+    if (SortMemo.isUnchanged(owner, region, fingerprint, preference, lockedSlots)) {
+      SortMetrics.recordMemoHit(
+          region, preference.method(), targetSlots.size(), System.nanoTime() - start);
+      event.report(
+          player,
+          menu,
+          region,
+          targetSlots.size(),
+          preference.method(),
+          SortEvent.UNCHANGED,
+          0,
+          null);
+      return 0;
     }
 
-    // Extract unlocked items
-    List<ItemStack> unlockedItems = new ArrayList<>();
-    for (Slot slot : unlocked) {
-      unlockedItems.add(slot.getItem().copy());
+    SortSync.Layout before = SortSync.capture(menu, targetSlots, origin);
+    SortPhases phases = event.phases();
+    int changed = SlotSorter.sort(targetSlots, lockedSlots, preference, phases);
+    if (changed == SlotSorter.ALREADY_SORTED) {
+      SortMemo.record(owner, region, fingerprint, preference, lockedSlots);
+      SortMetrics.recordNoOp(
+          region, preference.method(), targetSlots.size(), System.nanoTime() - start);
+      event.report(
+          player,
+          menu,
+          region,
+          targetSlots.size(),
+          preference.method(),
+          SortEvent.ALREADY_SORTED,
+          0,
+          phases);
+      return 0;
     }
-
-    // Pre-sort merge: fill locked non-full stacks from unlocked items
-    for (Slot lockedSlot : locked) {
-      ItemStack lockedItem = lockedSlot.getItem();
-      if (lockedItem.isEmpty() || lockedItem.getCount() >= lockedItem.getMaxStackSize()) {
-        continue;
-      }
-      if (lockedItem.getMaxStackSize() <= 1) {
-        continue;
-      }
-
-      for (int i = 0; i < unlockedItems.size(); i++) {
-        ItemStack unlockedItem = unlockedItems.get(i);
-        if (unlockedItem.isEmpty()) {
-          continue;
-        }
-        if (ItemStack.isSameItemSameComponents(lockedItem, unlockedItem)) {
-          int space = lockedItem.getMaxStackSize() - lockedItem.getCount();
-          if (space > 0) {
-            int transfer = Math.min(space, unlockedItem.getCount());
-            lockedItem.grow(transfer);
-            unlockedItem.shrink(transfer);
-            if (unlockedItem.isEmpty()) {
-              unlockedItems.set(i, ItemStack.EMPTY);
-            }
-          }
-        }
-        if (lockedItem.getCount() >= lockedItem.getMaxStackSize()) {
-          break;
-        }
-      }
-
-      lockedSlot.set(lockedItem);
+    if (changed > 0) {
+      broadcast(player, menu, targetSlots, before, phases);
+      fingerprint = SortMemo.fingerprint(targetSlots);
     }
+    SortMemo.record(owner, region, fingerprint, preference, lockedSlots);
+    SortMetrics.recordSort(
+        region,
+        preference.method(),
+        targetSlots.size(),
+        changed,
+        before.stacksMerged(targetSlots),
+        System.nanoTime() - start);
+    event.report(
+        player,
+        menu,
+        region,
+        targetSlots.size(),
+        preference.method(),
+        SortEvent.SORTED,
+        changed,
+        phases);
+    return changed;
+  }
 
-    // Sort unlocked items
-    List<ItemStack> sorted = ItemSorter.sort(unlockedItems, preference);
+  /**
+   * Creates and begins the profiling event of a sort.
+   *
+   * @return the begun event
+   */
+  private static SortEvent beginEvent() {
+    SortEvent event = new SortEvent();
+    event.begin();
+    return event;
+  }
 
-    // Write sorted items back to unlocked slots
-    for (int i = 0; i < unlocked.size(); i++) {
-      unlocked.get(i).set(sorted.get(i));
+  /**
+   * Sends a sort's changes through {@link SortSync}, charging the time to the broadcast phase.
+   *
+   * @param player the player who sorted
+   * @param menu the sorted menu
+   * @param targetSlots the region's slots
+   * @param before the region as captured before the sort
+   * @param phases the sort's phase timings, or null if it is not timed
+   */
+  private static void broadcast(
+      Player player,
+      AbstractContainerMenu menu,
+      List<Slot> targetSlots,
+      SortSync.Layout before,
+      SortPhases phases) {
+    SortSync.broadcast(player, menu, targetSlots, before);
+    if (phases != null) {
+      phases.lap(SortPhases.BROADCAST);
     }
-
-    menu.broadcastChanges();
   }
 
   /**
@@ -236,51 +649,288 @@ public class SortHandler {
    *   <li>Armor and offhand slots (outside slots 0-35)
    * </ul>
    *
+   * <p>The classification is computed once per menu and cached by {@link SlotLayout}.
+   *
    * @param menu the container menu to analyze
    * @param region the region code ({@link #REGION_CONTAINER}, {@link #REGION_PLAYER_MAIN}, or
    *     {@link #REGION_PLAYER_HOTBAR})
    * @return a list of sortable slots for the specified region, may be empty
    */
   public static List<Slot> getTargetSlots(AbstractContainerMenu menu, int region) {
-    // For REGION_CONTAINER, build a set of containers that have any special slot subclass.
-    // A base Slot sharing a container with a subclass (e.g. furnace ingredient slot) is not
-    // sortable.
-    Set<Container> specialContainers = Set.of();
-    if (region == REGION_CONTAINER) {
-      specialContainers = new HashSet<>();
-      for (Slot slot : menu.slots) {
-        if (!(slot.container instanceof Inventory) && !SlotUtils.isSortableSlotClass(slot)) {
-          specialContainers.add(slot.container);
+    int[] indices = SlotLayout.of(menu).indices(region);
+    List<Slot> slots = new ArrayList<>(indices.length);
+    for (int index : indices) {
+      slots.add(menu.slots.get(index));
+    }
+    return slots;
+  }
+
+  /**
+   * A container sort planned on a {@link SortWorkers} thread and applied on the server thread.
+   *
+   * <p>Each step runs as a {@link SortScheduler} task. Only reading the snapshot is split into
+   * steps: an incremental sort reads {@link Config#incrementalSortChunk} slots per step, so huge
+   * regions are read over as many ticks as the sort budget requires. Merging, key extraction and
+   * ordering run in one go on a worker, off the server thread, and the plan is applied in a single
+   * step: writing it over several ticks would leave some items in both their old and new slots in
+   * between.
+   *
+   * <h2>Concurrent Changes</h2>
+   *
+   * <p>A plan whose snapshot no longer matches the slots is discarded. The snapshot keeps every
+   * slot before the first and after the last changed slot, reads the range between them again, and
+   * is planned again, so a container that hoppers keep filling costs one re-read of the slots they
+   * touched per attempt. An incremental sort keeps trying until the plan applies or the player
+   * closes the menu; a smaller region is sorted on the server thread after {@link
+   * #MAX_PLAN_ATTEMPTS} attempts or when planning fails.
+   *
+   * <h2>Progress</h2>
+   *
+   * <p>An incremental sort reports its progress to the player with {@link SortProgressPayload}:
+   * reading the snapshot covers the first {@link #READ_PERCENT} percent, each finished planning
+   * stage of {@link SortWorkers#PLAN_STAGES} an equal share up to {@link #PLANNED_PERCENT}, and
+   * applying the plan the rest. A re-read after a change reports from the start again. The sort is
+   * reported abandoned only if planning fails.
+   */
+  private static final class OffThreadSort {
+
+    /** Progress reported once the snapshot has been read. */
+    private static final int READ_PERCENT = 50;
+
+    /** Progress reported once the plan has been computed. */
+    private static final int PLANNED_PERCENT = 95;
+
+    /** The container menu. */
+    private final AbstractContainerMenu menu;
+
+    /** The player performing the sort. */
+    private final ServerPlayer player;
+
+    /** The container region's slots. */
+    private final List<Slot> targetSlots;
+
+    /** The region's memo owner. */
+    private final Object owner;
+
+    /** The sorting preferences containing method and order. */
+    private final SortPreference preference;
+
+    /** Whether the snapshot is read over several steps with progress reports. */
+    private final boolean incremental;
+
+    /** The {@link System#nanoTime()} at which the sort was requested. */
+    private final long start;
+
+    /** The client request the sort answers, or null if the server started it. */
+    private final SortSync.Origin origin;
+
+    /** The number of the current planning attempt, starting at 1. */
+    private int attempt = 1;
+
+    /** The snapshot being read. */
+    private SortSnapshot.Builder snapshot;
+
+    /** The last progress percentage sent to the player. */
+    private int reportedPercent = -1;
+
+    /**
+     * Creates a sort.
+     *
+     * @param menu the container menu
+     * @param player the player performing the sort
+     * @param targetSlots the container region's slots
+     * @param owner the region's memo owner
+     * @param preference the sorting preferences containing method and order
+     * @param incremental whether to read the snapshot over several steps
+     * @param start the {@link System#nanoTime()} at which the sort was requested
+     * @param origin the client request the sort answers, or null if the server started it
+     */
+    OffThreadSort(
+        AbstractContainerMenu menu,
+        ServerPlayer player,
+        List<Slot> targetSlots,
+        Object owner,
+        SortPreference preference,
+        boolean incremental,
+        long start,
+        SortSync.Origin origin) {
+      this.menu = menu;
+      this.player = player;
+      this.targetSlots = targetSlots;
+      this.owner = owner;
+      this.preference = preference;
+      this.incremental = incremental;
+      this.start = start;
+      this.origin = origin;
+      this.snapshot = new SortSnapshot.Builder(targetSlots.size());
+    }
+
+    /** Reads the next part of the snapshot, then hands it to a worker once complete. */
+    void snapshotStep() {
+      if (isAbandoned()) {
+        return;
+      }
+      int limit = incremental ? Config.incrementalSortChunk : targetSlots.size();
+      if (!snapshot.read(targetSlots, limit)) {
+        report(snapshot.percentRead() * READ_PERCENT / 100);
+        SortScheduler.submit(SortScheduler.Priority.INTERACTIVE, this::snapshotStep);
+        return;
+      }
+
+      planStep(snapshot.build());
+    }
+
+    /**
+     * Hands a complete snapshot to a worker.
+     *
+     * <p>If every worker is busy, a small region is sorted on the server thread right away, and an
+     * incremental sort tries again next tick.
+     *
+     * @param taken the snapshot to plan a sort of
+     */
+    private void planStep(SortSnapshot taken) {
+      if (isAbandoned()) {
+        return;
+      }
+      AtomicInteger stages = new AtomicInteger();
+      CompletableFuture<SortPlan> future = SortWorkers.plan(taken, preference, stages);
+      if (future == null) {
+        if (incremental) {
+          SortScheduler.submitNextTick(SortScheduler.Priority.INTERACTIVE, () -> planStep(taken));
+        } else {
+          sortContainerSlots(
+              menu,
+              player,
+              targetSlots,
+              owner,
+              SortMemo.fingerprint(targetSlots),
+              preference,
+              start,
+              beginEvent(),
+              origin);
         }
+        return;
+      }
+      report(READ_PERCENT);
+      if (incremental) {
+        SortScheduler.submitNextTick(
+            SortScheduler.Priority.INTERACTIVE, () -> watchStep(future, stages));
       }
+      future.whenComplete(
+          (plan, error) ->
+              SortScheduler.submit(
+                  SortScheduler.Priority.INTERACTIVE, () -> applyStep(taken, plan, error)));
     }
 
-    List<Slot> slots = new ArrayList<>();
-
-    for (Slot slot : menu.slots) {
-      boolean matches =
-          switch (region) {
-            case REGION_CONTAINER ->
-                !(slot.container instanceof Inventory)
-                    && SlotUtils.isSortableSlotClass(slot)
-                    && !(slot.container instanceof CraftingContainer)
-                    && !specialContainers.contains(slot.container);
-            case REGION_PLAYER_MAIN ->
-                slot.container instanceof Inventory
-                    && slot.getContainerSlot() >= 9
-                    && slot.getContainerSlot() <= 35;
-            case REGION_PLAYER_HOTBAR ->
-                slot.container instanceof Inventory
-                    && slot.getContainerSlot() >= 0
-                    && slot.getContainerSlot() <= 8;
-            default -> false;
-          };
-
-      if (matches) {
-        slots.add(slot);
+    /**
+     * Reports how far a worker got with planning, once per tick until the plan is ready.
+     *
+     * @param future the future plan
+     * @param stages the number of planning stages the worker has finished
+     */
+    private void watchStep(CompletableFuture<SortPlan> future, AtomicInteger stages) {
+      if (future.isDone() || isAbandoned()) {
+        return;
       }
+      int planned = (PLANNED_PERCENT - READ_PERCENT) * stages.get() / SortWorkers.PLAN_STAGES;
+      report(READ_PERCENT + planned);
+      SortScheduler.submitNextTick(
+          SortScheduler.Priority.INTERACTIVE, () -> watchStep(future, stages));
     }
 
-    return slots;
+    /**
+     * Applies a plan computed off the server thread, if the slots still match its snapshot.
+     *
+     * @param taken the contents the plan was computed from
+     * @param plan the detached plan, or null if the snapshot was already sorted or planning failed
+     * @param error the planning failure, or null if planning succeeded
+     */
+    private void applyStep(SortSnapshot taken, SortPlan plan, Throwable error) {
+      if (isAbandoned()) {
+        return;
+      }
+      int changedFrom = error == null ? taken.firstMismatch(targetSlots) : -1;
+      if (error != null || changedFrom >= 0) {
+        SortMetrics.recordStalePlan();
+        if (error == null && (incremental || attempt < MAX_PLAN_ATTEMPTS)) {
+          attempt++;
+          int changedTo = taken.lastMismatch(targetSlots) + 1;
+          snapshot = new SortSnapshot.Builder(taken, changedFrom, changedTo);
+          snapshotStep();
+        } else if (incremental) {
+          report(SortProgressPayload.ABANDONED);
+        } else {
+          sortContainerSlots(
+              menu,
+              player,
+              targetSlots,
+              owner,
+              SortMemo.fingerprint(targetSlots),
+              preference,
+              start,
+              beginEvent(),
+              origin);
+        }
+        return;
+      }
+
+      SortEvent event = beginEvent();
+      SortPhases phases = event.phases();
+      int changed = 0;
+      int merged = 0;
+      if (plan != null) {
+        SortSync.Layout before = SortSync.capture(menu, targetSlots, origin);
+        if (phases != null) {
+          phases.start();
+        }
+        ItemStack[] stacks = taken.stacks();
+        for (int i = 0; i < plan.size(); i++) {
+          if (SlotSorter.apply(targetSlots.get(i), plan, i, stacks)) {
+            changed++;
+          }
+        }
+        if (phases != null) {
+          phases.lap(SortPhases.WRITE_BACK);
+        }
+        if (changed > 0) {
+          broadcast(player, menu, targetSlots, before, phases);
+        }
+        merged = before.stacksMerged(targetSlots);
+      }
+      long fingerprint = SortMemo.fingerprint(targetSlots);
+      SortMemo.record(owner, REGION_CONTAINER, fingerprint, preference, LockedSlots.EMPTY);
+      int size = targetSlots.size();
+      long nanos = System.nanoTime() - start;
+      if (plan == null) {
+        SortMetrics.recordNoOp(REGION_CONTAINER, preference.method(), size, nanos);
+      } else {
+        SortMetrics.recordSort(REGION_CONTAINER, preference.method(), size, changed, merged, nanos);
+      }
+      String outcome = plan == null ? SortEvent.ALREADY_SORTED : SortEvent.OFF_THREAD_PLAN;
+      event.report(
+          player, menu, REGION_CONTAINER, size, preference.method(), outcome, changed, phases);
+      report(100);
+    }
+
+    /**
+     * Returns whether the sort no longer applies because the player left or closed the menu.
+     *
+     * @return true if the sort should stop
+     */
+    private boolean isAbandoned() {
+      return player.hasDisconnected() || player.containerMenu != menu;
+    }
+
+    /**
+     * Sends the sort's progress to the player if it is incremental and the percentage changed.
+     *
+     * @param percent the completed percentage, or {@link SortProgressPayload#ABANDONED}
+     */
+    private void report(int percent) {
+      if (incremental && percent != reportedPercent) {
+        reportedPercent = percent;
+        PacketDistributor.sendToPlayer(player, new SortProgressPayload(percent));
+      }
+    }
   }
 }
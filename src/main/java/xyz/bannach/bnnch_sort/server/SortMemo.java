@@ -0,0 +1,165 @@
+package xyz.bannach.bnnch_sort.server;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.ItemStack;
+import net.neoforged.neoforge.items.SlotItemHandler;
+import xyz.bannach.bnnch_sort.sorting.CreativeTabIndex;
+import xyz.bannach.bnnch_sort.sorting.LockedSlots;
+import xyz.bannach.bnnch_sort.sorting.SortPreference;
+
+/**
+ * Remembers the contents each inventory region had after its last sort.
+ *
+ * <p>Each region is summarized by a rolling 64-bit fingerprint of item ID, count, and component
+ * hash per slot. When a sort request finds the same fingerprint, preference, and locked slots that
+ * the last sort left behind, sorting again cannot change anything and is skipped before any
+ * planning happens. This is aimed at shared storage that many players sort while its contents
+ * rarely change.
+ *
+ * <h2>Owners</h2>
+ *
+ * <p>Entries are keyed weakly by the object that backs the region's slots, so they are shared by
+ * every player and menu that opens the same storage:
+ *
+ * <ul>
+ *   <li>The {@link net.minecraft.world.Container} or item handler behind all target slots
+ *   <li>The menu itself when the slots span several backing objects (e.g. double chests)
+ *   <li>The player's inventory for {@link SortHandler#REGION_PLAYER_MAIN} and {@link
+ *       SortHandler#REGION_PLAYER_HOTBAR}
+ * </ul>
+ *
+ * <h2>Invalidation</h2>
+ *
+ * <p>Any change to the contents changes the fingerprint. {@link #invalidateAll()} discards every
+ * entry when the orderings themselves may change (datapacks reload), and entries recorded before
+ * the {@link CreativeTabIndex} was last rebuilt no longer match. A fingerprint collision can only
+ * cause one sort request to be skipped.
+ *
+ * <h2>Side: Server-only</h2>
+ *
+ * <p>Used from the server thread by {@link SortHandler}.
+ *
+ * @see SortHandler
+ * @since 1.2.0
+ */
+public final class SortMemo {
+
+  /** Number of region codes tracked per owner. */
+  private static final int REGIONS = 3;
+
+  /** Last sorted state per owner, indexed by region code. */
+  private static final Map<Object, Entry[]> ENTRIES =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  /** Incremented to invalidate every entry at once. */
+  private static volatile int epoch;
+
+  /** Private constructor to prevent instantiation. */
+  private SortMemo() {}
+
+  /**
+   * The state a region was left in by its last sort.
+   *
+   * @param fingerprint the contents fingerprint after the sort
+   * @param preference the preference the region was sorted with
+   * @param locks the locked slots at the time of the sort
+   * @param epoch the invalidation epoch the entry was recorded in
+   * @param tabs the creative tab index generation the entry was recorded in
+   */
+  private record Entry(
+      long fingerprint, SortPreference preference, LockedSlots locks, int epoch, int tabs) {}
+
+  /**
+   * Returns the object whose contents the given slots show.
+   *
+   * @param slots the target slots of a container region
+   * @param menu the menu the slots belong to, used when the slots span several backing objects
+   * @return the memo owner for the region
+   */
+  public static Object ownerOf(List<Slot> slots, AbstractContainerMenu menu) {
+    Object owner = null;
+    for (Slot slot : slots) {
+      Object backing =
+          slot instanceof SlotItemHandler handler ? handler.getItemHandler() : slot.container;
+      if (owner == null) {
+        owner = backing;
+      } else if (owner != backing) {
+        return menu;
+      }
+    }
+    return owner != null ? owner : menu;
+  }
+
+  /**
+   * Computes the rolling fingerprint of the given slots' contents.
+   *
+   * <p>The fingerprint depends on slot order, item, count, and components.
+   *
+   * @param slots the slots to fingerprint
+   * @return the contents fingerprint
+   */
+  public static long fingerprint(List<Slot> slots) {
+    long hash = slots.size();
+    for (Slot slot : slots) {
+      ItemStack stack = slot.getItem();
+      long slotHash = 0;
+      if (!stack.isEmpty()) {
+        slotHash =
+            ((long) BuiltInRegistries.ITEM.getId(stack.getItem()) << 32)
+                ^ ((long) stack.getCount() << 20)
+                ^ (stack.isComponentsPatchEmpty() ? 0 : stack.getComponentsPatch().hashCode());
+      }
+      hash = HashCommon.mix(hash + slotHash);
+    }
+    return hash;
+  }
+
+  /**
+   * Checks whether a region still holds exactly what its last sort left behind.
+   *
+   * @param owner the memo owner of the region
+   * @param region the region code
+   * @param fingerprint the region's current contents fingerprint
+   * @param preference the preference the region is about to be sorted with
+   * @param locks the locked slots that apply to the region
+   * @return true if sorting the region again cannot change it
+   */
+  public static boolean isUnchanged(
+      Object owner, int region, long fingerprint, SortPreference preference, LockedSlots locks) {
+    Entry[] entries = ENTRIES.get(owner);
+    Entry entry = entries != null ? entries[region] : null;
+    return entry != null
+        && entry.epoch() == epoch
+        && entry.tabs() == CreativeTabIndex.generation()
+        && entry.fingerprint() == fingerprint
+        && entry.preference().equals(preference)
+        && entry.locks().equals(locks);
+  }
+
+  /**
+   * Records the state a region was left in after a sort.
+   *
+   * @param owner the memo owner of the region
+   * @param region the region code
+   * @param fingerprint the region's contents fingerprint after the sort
+   * @param preference the preference the region was sorted with
+   * @param locks the locked slots that applied to the region
+   */
+  public static void record(
+      Object owner, int region, long fingerprint, SortPreference preference, LockedSlots locks) {
+    ENTRIES.computeIfAbsent(owner, o -> new Entry[REGIONS])[region] =
+        new Entry(fingerprint, preference, locks, epoch, CreativeTabIndex.generation());
+  }
+
+  /** Discards every recorded entry, for when sort orderings may have changed. */
+  public static void invalidateAll() {
+    epoch++;
+  }
+}
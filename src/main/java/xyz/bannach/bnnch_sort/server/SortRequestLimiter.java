@@ -0,0 +1,180 @@
+package xyz.bannach.bnnch_sort.server;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import xyz.bannach.bnnch_sort.Config;
+import xyz.bannach.bnnch_sort.metrics.SortMetrics;
+
+/**
+ * Admits, merges, or drops each player's sort requests before any sort work is queued.
+ *
+ * <p>Holding the sort key or clicking the sort button rapidly sends a burst of requests, and a
+ * modified client can send far more. Each request is checked in order:
+ *
+ * <ol>
+ *   <li><strong>Sequence</strong> - Requests whose sequence number is not newer than the player's
+ *       last request are stale or duplicated and dropped
+ *   <li><strong>Pending</strong> - A request for a region that already has a sort queued is merged
+ *       into it; the queued sort reads the slots when it runs, so it covers both requests
+ *   <li><strong>Rate</strong> - Every admitted request takes a token from the player's bucket,
+ *       refilled at {@link Config#sortRequestsPerSecond} up to {@link Config#sortRequestBurst};
+ *       requests finding the bucket empty are dropped
+ * </ol>
+ *
+ * <p>Queued sorts call {@link #complete(UUID, int)} before they run, so a request arriving while a
+ * sort is in progress queues another one. Merged and dropped requests are counted in {@link
+ * SortMetrics}.
+ *
+ * <h2>Side: Server-only</h2>
+ *
+ * <p>Safe to call from any thread. State is dropped when the player logs out.
+ *
+ * @see SortHandler#handle
+ * @see xyz.bannach.bnnch_sort.network.SortRequestPayload
+ * @since 1.2.0
+ */
+public final class SortRequestLimiter {
+
+  /** Number of region codes tracked per player. */
+  private static final int REGIONS = 3;
+
+  /** Nanoseconds per second. */
+  private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+  /** Request state of each online player. */
+  private static final Map<UUID, State> STATES = new ConcurrentHashMap<>();
+
+  /** Private constructor to prevent instantiation. */
+  private SortRequestLimiter() {}
+
+  /** The outcome of a sort request. */
+  public enum Decision {
+    /** The request should be queued. */
+    ACCEPT,
+    /** A sort of the same region is already queued; nothing needs to be queued. */
+    MERGE,
+    /** The request is stale, duplicated, malformed, or over the rate limit. */
+    DROP
+  }
+
+  /**
+   * Decides what to do with a player's sort request.
+   *
+   * <p>An accepted request marks its region pending until {@link #complete(UUID, int)} is called.
+   *
+   * @param player the requesting player's UUID
+   * @param region the requested region code
+   * @param sequence the request's sequence number
+   * @return the decision
+   */
+  public static Decision admit(UUID player, int region, int sequence) {
+    Decision decision =
+        STATES
+            .computeIfAbsent(player, id -> new State())
+            .admit(
+                region,
+                sequence,
+                System.nanoTime(),
+                Config.sortRequestsPerSecond,
+                Config.sortRequestBurst);
+    if (decision == Decision.MERGE) {
+      SortMetrics.recordMergedRequest();
+    } else if (decision == Decision.DROP) {
+      SortMetrics.recordDroppedRequest();
+    }
+    return decision;
+  }
+
+  /**
+   * Clears a region's pending mark, for when its queued sort starts.
+   *
+   * @param player the player's UUID
+   * @param region the region code
+   */
+  public static void complete(UUID player, int region) {
+    State state = STATES.get(player);
+    if (state != null) {
+      state.complete(region);
+    }
+  }
+
+  /**
+   * Drops a player's request state, for when they log out.
+   *
+   * @param player the player's UUID
+   */
+  public static void forget(UUID player) {
+    STATES.remove(player);
+  }
+
+  /** One player's request state. */
+  private static final class State {
+
+    /** Whether any request has been seen. */
+    private boolean hasSequence;
+
+    /** Sequence number of the newest request seen. */
+    private int lastSequence;
+
+    /** Bit set of regions with a queued sort, indexed by region code. */
+    private int pending;
+
+    /** Tokens available in the bucket; negative until the first refill. */
+    private double tokens = -1;
+
+    /** {@link System#nanoTime()} of the last refill. */
+    private long lastRefill;
+
+    /**
+     * Decides what to do with a request.
+     *
+     * @param region the requested region code
+     * @param sequence the request's sequence number
+     * @param now the current {@link System#nanoTime()}
+     * @param perSecond tokens refilled per second, or 0 for no rate limit
+     * @param burst the bucket capacity
+     * @return the decision
+     */
+    synchronized Decision admit(int region, int sequence, long now, int perSecond, int burst) {
+      if (region < 0 || region >= REGIONS) {
+        return Decision.DROP;
+      }
+      // Wrap-aware: sequence numbers may overflow during very long sessions.
+      if (hasSequence && sequence - lastSequence <= 0) {
+        return Decision.DROP;
+      }
+      hasSequence = true;
+      lastSequence = sequence;
+
+      int bit = 1 << region;
+      if ((pending & bit) != 0) {
+        return Decision.MERGE;
+      }
+      if (perSecond > 0) {
+        tokens =
+            tokens < 0
+                ? burst
+                : Math.min(burst, tokens + (now - lastRefill) * perSecond / NANOS_PER_SECOND);
+        lastRefill = now;
+        if (tokens < 1) {
+          return Decision.DROP;
+        }
+        tokens--;
+      }
+      pending |= bit;
+      return Decision.ACCEPT;
+    }
+
+    /**
+     * Clears a region's pending mark.
+     *
+     * @param region the region code
+     */
+    synchronized void complete(int region) {
+      if (region >= 0 && region < REGIONS) {
+        pending &= ~(1 << region);
+      }
+    }
+  }
+}
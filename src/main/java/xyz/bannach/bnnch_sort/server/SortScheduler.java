@@ -0,0 +1,244 @@
+package xyz.bannach.bnnch_sort.server;
+
+import com.mojang.logging.LogUtils;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import net.minecraft.server.MinecraftServer;
+import org.slf4j.Logger;
+import xyz.bannach.bnnch_sort.Config;
+import xyz.bannach.bnnch_sort.metrics.SortMetrics;
+
+/**
+ * Runs queued sorts on the server thread within a per-tick time budget.
+ *
+ * <p>Sorts are queued instead of running as soon as they arrive, and each server tick drains the
+ * queue until {@link Config#sortTickBudgetMillis} is spent. Sorts that do not fit carry over to
+ * later ticks in arrival order.
+ *
+ * <h2>Priorities</h2>
+ *
+ * <ul>
+ *   <li>{@link Priority#INTERACTIVE} - Sorts a player requested from a screen; at least one runs
+ *       every tick so they are never starved
+ *   <li>{@link Priority#BACKGROUND} - Command-driven and automated sorts; deferred entirely while
+ *       the server is overloaded
+ * </ul>
+ *
+ * <h2>Load Awareness</h2>
+ *
+ * <p>Once the average tick time exceeds {@link Config#sortMsptThreshold}, the budget shrinks
+ * linearly, reaching zero when the average tick takes as long as a whole tick at the server's tick
+ * rate. Background sorts wait until the average tick time drops below the threshold again.
+ *
+ * <h2>Failures</h2>
+ *
+ * <p>A queued sort that throws is logged and dropped, and draining continues with the next one, so
+ * one failing sort (e.g. a modded slot that rejects a stack) never escapes the tick handler.
+ *
+ * <h2>Side: Server-only</h2>
+ *
+ * <p>Sorts may be submitted from any thread; they always run on the server thread.
+ *
+ * @see SortHandler
+ * @since 1.2.0
+ */
+public final class SortScheduler {
+
+  /** Logger instance for this class. */
+  private static final Logger LOGGER = LogUtils.getLogger();
+
+  /** Nanoseconds per millisecond. */
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+  /** Queued interactive sorts. */
+  private static final Queue<Task> INTERACTIVE = new ConcurrentLinkedQueue<>();
+
+  /** Queued background sorts. */
+  private static final Queue<Task> BACKGROUND = new ConcurrentLinkedQueue<>();
+
+  /** Sorts held back until the next tick. */
+  private static final Queue<Task> NEXT_TICK = new ConcurrentLinkedQueue<>();
+
+  /** Number of ticks that have drained the queues. */
+  private static volatile int drains;
+
+  /** Private constructor to prevent instantiation. */
+  private SortScheduler() {}
+
+  /** How urgently a sort should run. */
+  public enum Priority {
+    /** Requested by a player looking at the result. */
+    INTERACTIVE,
+    /** Command-driven or automated; may be deferred under load. */
+    BACKGROUND
+  }
+
+  /**
+   * A queued sort.
+   *
+   * @param sort the sort to run
+   * @param drain the number of drains completed when the sort was queued
+   * @param priority the sort's priority
+   */
+  private record Task(Runnable sort, int drain, Priority priority) {}
+
+  /**
+   * Queues a sort to run in an upcoming tick.
+   *
+   * @param priority the sort's priority
+   * @param sort the sort to run on the server thread
+   */
+  public static void submit(Priority priority, Runnable sort) {
+    enqueue(new Task(sort, drains, priority));
+  }
+
+  /**
+   * Queues a sort that must not run before the next tick, e.g. one waiting for a free resource.
+   *
+   * @param priority the sort's priority
+   * @param sort the sort to run on the server thread
+   */
+  public static void submitNextTick(Priority priority, Runnable sort) {
+    NEXT_TICK.add(new Task(sort, drains, priority));
+  }
+
+  /**
+   * Runs a background sort immediately if the server has room for it, or queues it otherwise.
+   *
+   * <p>Must be called on the server thread.
+   *
+   * @param server the server
+   * @param sort the sort to run
+   * @return true if the sort ran immediately, false if it was queued
+   */
+  public static boolean runOrDefer(MinecraftServer server, Runnable sort) {
+    if (BACKGROUND.isEmpty() && !isOverloaded(server)) {
+      sort.run();
+      return true;
+    }
+    submit(Priority.BACKGROUND, sort);
+    return false;
+  }
+
+  /**
+   * Returns whether the server's average tick time is above {@link Config#sortMsptThreshold}.
+   *
+   * @param server the server
+   * @return true if background sorts are being deferred
+   */
+  public static boolean isOverloaded(MinecraftServer server) {
+    return server.getAverageTickTimeNanos() / NANOS_PER_MILLI > Config.sortMsptThreshold;
+  }
+
+  /**
+   * Returns the number of queued sorts.
+   *
+   * @return the number of sorts waiting to run
+   */
+  public static int pending() {
+    return INTERACTIVE.size() + BACKGROUND.size() + NEXT_TICK.size();
+  }
+
+  /** Discards every queued sort, for when the server stops. */
+  public static void clear() {
+    INTERACTIVE.clear();
+    BACKGROUND.clear();
+    NEXT_TICK.clear();
+  }
+
+  /**
+   * Drains the queues for one tick.
+   *
+   * <p>Called at the end of every server tick.
+   *
+   * @param server the server
+   */
+  public static void tick(MinecraftServer server) {
+    try {
+      drain(server);
+    } finally {
+      drains++;
+    }
+  }
+
+  /**
+   * Runs queued sorts until this tick's budget is spent.
+   *
+   * @param server the server
+   */
+  private static void drain(MinecraftServer server) {
+    for (Task held; (held = NEXT_TICK.poll()) != null; ) {
+      enqueue(held);
+    }
+    if (INTERACTIVE.isEmpty() && BACKGROUND.isEmpty()) {
+      return;
+    }
+    double mspt = server.getAverageTickTimeNanos() / NANOS_PER_MILLI;
+    double tickMillis = server.tickRateManager().nanosecondsPerTick() / NANOS_PER_MILLI;
+    long budget =
+        budgetNanos(Config.sortTickBudgetMillis, mspt, Config.sortMsptThreshold, tickMillis);
+    long start = System.nanoTime();
+
+    // The first interactive sort always runs so requests make progress under any load.
+    Task task = INTERACTIVE.poll();
+    if (task != null) {
+      run(task);
+    }
+    while (System.nanoTime() - start < budget && (task = INTERACTIVE.poll()) != null) {
+      run(task);
+    }
+    if (mspt > Config.sortMsptThreshold) {
+      return;
+    }
+    while (System.nanoTime() - start < budget && (task = BACKGROUND.poll()) != null) {
+      run(task);
+    }
+  }
+
+  /**
+   * Computes the time sorts may take in one tick.
+   *
+   * @param baseMillis the configured budget in milliseconds
+   * @param mspt the server's average tick time in milliseconds
+   * @param thresholdMillis the average tick time above which the budget shrinks
+   * @param tickMillis the length of one tick at the server's tick rate in milliseconds
+   * @return the budget in nanoseconds
+   */
+  public static long budgetNanos(
+      double baseMillis, double mspt, double thresholdMillis, double tickMillis) {
+    double millis = baseMillis;
+    if (mspt > thresholdMillis) {
+      double headroom = tickMillis - mspt;
+      millis =
+          thresholdMillis >= tickMillis || headroom <= 0
+              ? 0
+              : Math.min(baseMillis, baseMillis * headroom / (tickMillis - thresholdMillis));
+    }
+    return (long) (millis * NANOS_PER_MILLI);
+  }
+
+  /**
+   * Adds a sort to the queue of its priority.
+   *
+   * @param task the sort
+   */
+  private static void enqueue(Task task) {
+    (task.priority() == Priority.INTERACTIVE ? INTERACTIVE : BACKGROUND).add(task);
+  }
+
+  /**
+   * Runs one queued sort, logging and dropping it if it throws.
+   *
+   * @param task the sort
+   */
+  private static void run(Task task) {
+    if (task.drain() != drains) {
+      SortMetrics.recordDeferredSort();
+    }
+    try {
+      task.sort().run();
+    } catch (RuntimeException e) {
+      LOGGER.error("Queued {} sort failed", task.priority(), e);
+    }
+  }
+}
@@ -0,0 +1,272 @@
+package xyz.bannach.bnnch_sort.server;
+
+import java.util.List;
+import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.ItemStack;
+
+/**
+ * The contents of a region's slots at the moment a sort was planned.
+ *
+ * <p>Holds, per slot, the live stack reference, a private copy of that stack, its count, and a hash
+ * of its item and components. The live references stay mutable and are only compared, on the
+ * server thread, by {@link #matches(List)}. Worker threads read only the copies and counts, which
+ * nothing else can reach, so the server can keep ticking and changing the live stacks while a plan
+ * is made. Before the plan is applied, {@link #matches(List)} confirms that no slot changed in the
+ * meantime; the plan's source positions then still name the same stacks in the same slots.
+ *
+ * <h2>Side: Server-only</h2>
+ *
+ * <p>Taken and validated on the server thread; read by {@link SortWorkers}.
+ *
+ * @see SortWorkers
+ * @see SortHandler
+ * @since 1.2.0
+ */
+public final class SortSnapshot {
+
+  /** Live stack in each slot when the snapshot was taken; only compared, never read. */
+  private final ItemStack[] live;
+
+  /** Copy of each slot's stack, taken when the snapshot was taken. */
+  private final ItemStack[] stacks;
+
+  /** Item count of each slot when the snapshot was taken. */
+  private final int[] counts;
+
+  /** Item and component hash of each slot when the snapshot was taken. */
+  private final int[] hashes;
+
+  /**
+   * Creates a snapshot.
+   *
+   * @param live the live stack in each slot
+   * @param stacks a copy of each slot's stack
+   * @param counts the item count of each slot
+   * @param hashes the item and component hash of each slot
+   */
+  private SortSnapshot(ItemStack[] live, ItemStack[] stacks, int[] counts, int[] hashes) {
+    this.live = live;
+    this.stacks = stacks;
+    this.counts = counts;
+    this.hashes = hashes;
+  }
+
+  /**
+   * Records the current contents of some slots.
+   *
+   * @param slots the slots, in region order
+   * @return the snapshot
+   */
+  public static SortSnapshot take(List<Slot> slots) {
+    Builder builder = new Builder(slots.size());
+    builder.read(slots, slots.size());
+    return builder.build();
+  }
+
+  /**
+   * Checks that the slots still hold exactly what the snapshot recorded.
+   *
+   * @param slots the slots, in the same order the snapshot was taken in
+   * @return true if every slot holds the same stack with the same count and components
+   */
+  public boolean matches(List<Slot> slots) {
+    return slots.size() == stacks.length && firstMismatch(slots) < 0;
+  }
+
+  /**
+   * Returns the first slot that no longer holds what the snapshot recorded.
+   *
+   * @param slots the slots, in the same order the snapshot was taken in
+   * @return the slot position, or -1 if every slot matches
+   */
+  public int firstMismatch(List<Slot> slots) {
+    for (int i = 0; i < stacks.length; i++) {
+      if (!holds(i, slots.get(i).getItem())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the last slot that no longer holds what the snapshot recorded.
+   *
+   * @param slots the slots, in the same order the snapshot was taken in
+   * @return the slot position, or -1 if every slot matches
+   */
+  public int lastMismatch(List<Slot> slots) {
+    for (int i = stacks.length - 1; i >= 0; i--) {
+      if (!holds(i, slots.get(i).getItem())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Checks whether a slot still holds exactly what the snapshot recorded.
+   *
+   * @param i the slot position
+   * @param stack the slot's current stack
+   * @return true if it is the same stack with the same count and components
+   */
+  private boolean holds(int i, ItemStack stack) {
+    return stack == live[i]
+        && stack.getCount() == counts[i]
+        && ItemStack.hashItemAndComponents(stack) == hashes[i];
+  }
+
+  /**
+   * Returns the number of slots in the snapshot.
+   *
+   * @return the slot count
+   */
+  public int size() {
+    return stacks.length;
+  }
+
+  /**
+   * Returns a copy of the stack each slot held. Safe to read off the server thread; neither the
+   * array nor the stacks may be modified.
+   *
+   * @return the copied stacks, by slot position
+   */
+  ItemStack[] stacks() {
+    return stacks;
+  }
+
+  /**
+   * Returns the item count each slot held. The array must not be modified.
+   *
+   * @return the counts, by slot position
+   */
+  int[] counts() {
+    return counts;
+  }
+
+  /**
+   * Takes a snapshot a bounded number of slots at a time, so huge regions can be read over several
+   * ticks.
+   *
+   * <p>Slots read in earlier ticks may change before the rest are read; {@link #matches(List)}
+   * catches this when the plan is applied, like any other change. A builder can also start from a
+   * stale snapshot and read again only the range of slots that changed.
+   */
+  public static final class Builder {
+
+    /** Live stack in each slot read so far. */
+    private final ItemStack[] live;
+
+    /** Copy of each slot's stack read so far. */
+    private final ItemStack[] stacks;
+
+    /** Item count of each slot read so far. */
+    private final int[] counts;
+
+    /** Item and component hash of each slot read so far. */
+    private final int[] hashes;
+
+    /** Position of the first slot to read. */
+    private final int from;
+
+    /** Position after the last slot to read. */
+    private final int to;
+
+    /** Position of the next slot to read. */
+    private int position;
+
+    /**
+     * Creates a builder for a region.
+     *
+     * @param size the number of slots in the region
+     */
+    public Builder(int size) {
+      this.live = new ItemStack[size];
+      this.stacks = new ItemStack[size];
+      this.counts = new int[size];
+      this.hashes = new int[size];
+      this.from = 0;
+      this.to = size;
+    }
+
+    /**
+     * Creates a builder that keeps a stale snapshot's slots outside a range and reads the range
+     * again.
+     *
+     * @param stale the snapshot to start from (not modified)
+     * @param from the position of the first slot to read
+     * @param to the position after the last slot to read
+     */
+    public Builder(SortSnapshot stale, int from, int to) {
+      this.live = stale.live.clone();
+      this.stacks = stale.stacks.clone();
+      this.counts = stale.counts.clone();
+      this.hashes = stale.hashes.clone();
+      this.from = from;
+      this.to = to;
+      this.position = from;
+    }
+
+    /**
+     * Reads the next slots.
+     *
+     * @param slots the region's slots, in region order
+     * @param limit the maximum number of slots to read
+     * @return true if every slot has been read
+     */
+    public boolean read(List<Slot> slots, int limit) {
+      int end = (int) Math.min(to, (long) position + limit);
+      for (int i = position; i < end; i++) {
+        ItemStack stack = slots.get(i).getItem();
+        int count = stack.getCount();
+        live[i] = stack;
+        stacks[i] = stack.isEmpty() ? ItemStack.EMPTY : stack.copyWithCount(count);
+        counts[i] = count;
+        hashes[i] = ItemStack.hashItemAndComponents(stack);
+      }
+      position = end;
+      return isComplete();
+    }
+
+    /**
+     * Returns the position of the next slot to read.
+     *
+     * @return the slot position
+     */
+    public int position() {
+      return position;
+    }
+
+    /**
+     * Returns the fraction of the slots to read that has been read, in percent.
+     *
+     * @return the percentage, from 0 to 100
+     */
+    public int percentRead() {
+      return to == from ? 100 : (int) ((position - from) * 100L / (to - from));
+    }
+
+    /**
+     * Returns whether every slot to read has been read.
+     *
+     * @return true if the snapshot can be built
+     */
+    public boolean isComplete() {
+      return position == to;
+    }
+
+    /**
+     * Builds the snapshot. The builder must not be used afterwards.
+     *
+     * @return the snapshot
+     * @throws IllegalStateException if some slots have not been read yet
+     */
+    public SortSnapshot build() {
+      if (!isComplete()) {
+        throw new IllegalStateException(
+            "Snapshot has read up to slot " + position + " of " + to);
+      }
+      return new SortSnapshot(live, stacks, counts, hashes);
+    }
+  }
+}
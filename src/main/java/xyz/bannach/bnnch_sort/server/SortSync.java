@@ -0,0 +1,271 @@
+package xyz.bannach.bnnch_sort.server;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenCustomHashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.ItemStackLinkedSet;
+import net.neoforged.neoforge.network.PacketDistributor;
+import xyz.bannach.bnnch_sort.Config;
+import xyz.bannach.bnnch_sort.metrics.SortSyncEvent;
+import xyz.bannach.bnnch_sort.network.SortSyncPayload;
+import xyz.bannach.bnnch_sort.sorting.SlotSorter;
+
+/**
+ * Sends the result of a sort to the sorting player as moves of stacks their client already holds.
+ *
+ * <p>A sort first {@link #capture captures} its region, which flushes pending slot changes. After
+ * the sort, {@link #broadcast} describes each changed slot with a {@link SortSyncPayload.Change}: a
+ * move from a captured slot with the same item and components, or the full stack if there is none.
+ * The menu's remote copies of the changed slots are updated to match, so the following {@link
+ * AbstractContainerMenu#broadcastChanges()} sends no slot packets of its own.
+ *
+ * <h2>Client Records</h2>
+ *
+ * <p>The client resolves moves from the region as it recorded it when sending the sort request
+ * ({@link xyz.bannach.bnnch_sort.client.ClientSortSync}), not from its live slots, which a
+ * predicted sort has already rearranged. Moves are therefore only sent when the request's {@link
+ * Origin} shows the client's record still matches the captured region: the menu's state ID has not
+ * moved on since the request, other than through compact syncs of this menu that left the region
+ * alone, and the region's checksum is unchanged. Those syncs are remembered for the last {@link
+ * #HISTORY} sorts of each menu, so sorting several regions back to back keeps every reply compact.
+ *
+ * <h2>Fallback</h2>
+ *
+ * <p>Changes are broadcast the vanilla way when {@link Config#compactSortSync} is off, the player
+ * is not a connected server player, their client cannot receive the payload, or the sort answers
+ * no request whose record still matches, as with command sorts, queued sorts of containers that
+ * hoppers fed in the meantime, or slot changes flushed by capturing.
+ *
+ * <p>Each broadcast is reported as a {@link SortSyncEvent} while that JFR event is recorded.
+ *
+ * <h2>Side: Server-only</h2>
+ *
+ * <p>Called on the server thread.
+ *
+ * @see SortSyncPayload
+ * @see SortHandler
+ * @since 1.2.0
+ */
+public final class SortSync {
+
+  /** Number of compact syncs remembered per menu. */
+  private static final int HISTORY = 8;
+
+  /** Recent compact syncs of each open menu, oldest first. */
+  private static final Map<AbstractContainerMenu, ArrayDeque<Sent>> SENT =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  /** Private constructor to prevent instantiation. */
+  private SortSync() {}
+
+  /**
+   * The client request a sort answers.
+   *
+   * @param sequence the request's sequence number, under which the client recorded the region
+   * @param stateId the menu's state ID when the client sent the request
+   * @param checksum the region's checksum ({@link SlotSorter#checksum}) when the client sent it
+   */
+  public record Origin(int sequence, int stateId, long checksum) {}
+
+  /**
+   * A compact sync sent for a menu.
+   *
+   * @param previousStateId the menu's state ID before the sync
+   * @param stateId the menu's state ID after the sync
+   * @param slots the menu slot indices the sync changed
+   */
+  private record Sent(int previousStateId, int stateId, BitSet slots) {}
+
+  /**
+   * Flushes pending changes of a menu and records what a region holds before a sort that answers
+   * no client request.
+   *
+   * @param menu the menu being sorted
+   * @param slots the region's slots, in order
+   * @return the captured region
+   */
+  public static Layout capture(AbstractContainerMenu menu, List<Slot> slots) {
+    return capture(menu, slots, null);
+  }
+
+  /**
+   * Flushes pending changes of a menu and records what a region holds before it is sorted.
+   *
+   * @param menu the menu being sorted
+   * @param slots the region's slots, in order
+   * @param origin the client request the sort answers, or null if it answers none
+   * @return the captured region
+   */
+  public static Layout capture(AbstractContainerMenu menu, List<Slot> slots, Origin origin) {
+    menu.broadcastChanges();
+    int sequence = origin != null && clientHolds(menu, slots, origin) ? origin.sequence() : -1;
+    ItemStack[] stacks = new ItemStack[slots.size()];
+    int[] counts = new int[slots.size()];
+    int occupied = 0;
+    for (int i = 0; i < stacks.length; i++) {
+      stacks[i] = slots.get(i).getItem();
+      counts[i] = stacks[i].getCount();
+      if (!stacks[i].isEmpty()) {
+        occupied++;
+      }
+    }
+    return new Layout(stacks, counts, occupied, sequence);
+  }
+
+  /**
+   * Checks whether the client's record of a region, made when it sent a request, matches the
+   * region now.
+   *
+   * @param menu the menu being sorted, with no pending changes
+   * @param slots the region's slots, in order
+   * @param origin the request
+   * @return true if the client can resolve moves from its record
+   */
+  private static boolean clientHolds(AbstractContainerMenu menu, List<Slot> slots, Origin origin) {
+    int stateId = origin.stateId();
+    ArrayDeque<Sent> sent = SENT.get(menu);
+    if (sent != null && stateId != menu.getStateId()) {
+      BitSet region = new BitSet(menu.slots.size());
+      for (Slot slot : slots) {
+        region.set(slot.index);
+      }
+      // Follow the compact syncs sent since the request, as long as they left the region alone
+      for (Sent sync : sent) {
+        if (sync.previousStateId() == stateId && !sync.slots().intersects(region)) {
+          stateId = sync.stateId();
+        }
+      }
+    }
+    return stateId == menu.getStateId() && SlotSorter.checksum(slots) == origin.checksum();
+  }
+
+  /**
+   * Sends the changes a sort made to a captured region.
+   *
+   * @param player the player who sorted, or null
+   * @param menu the sorted menu
+   * @param slots the region's slots, in the order they were captured in
+   * @param before the region as captured before the sort
+   */
+  public static void broadcast(
+      Player player, AbstractContainerMenu menu, List<Slot> slots, Layout before) {
+    SortSyncEvent event = new SortSyncEvent();
+    event.begin();
+    if (!Config.compactSortSync
+        || !(player instanceof ServerPlayer serverPlayer)
+        || serverPlayer.connection == null
+        || !serverPlayer.connection.hasChannel(SortSyncPayload.TYPE)
+        || serverPlayer.containerMenu != menu
+        || before.sequence < 0) {
+      menu.broadcastChanges();
+      event.report(player, menu, slots.size(), false, 0, 0);
+      return;
+    }
+
+    // Index the captured stacks by item and components, to the first slot holding each
+    Object2IntOpenCustomHashMap<ItemStack> sources =
+        new Object2IntOpenCustomHashMap<>(ItemStackLinkedSet.TYPE_AND_TAG);
+    sources.defaultReturnValue(-1);
+    for (int i = 0; i < before.stacks.length; i++) {
+      if (!before.stacks[i].isEmpty()) {
+        sources.putIfAbsent(before.stacks[i], slots.get(i).index);
+      }
+    }
+
+    List<SortSyncPayload.Change> changes = new ArrayList<>();
+    BitSet changed = new BitSet(menu.slots.size());
+    int moves = 0;
+    for (int i = 0; i < before.stacks.length; i++) {
+      Slot slot = slots.get(i);
+      ItemStack stack = slot.getItem();
+      if (stack == before.stacks[i] && stack.getCount() == before.counts[i]) {
+        continue;
+      }
+      int source = stack.isEmpty() ? -1 : sources.getInt(stack);
+      if (source >= 0) {
+        changes.add(SortSyncPayload.Change.move(slot.index, source, stack.getCount()));
+        moves++;
+      } else {
+        changes.add(SortSyncPayload.Change.full(slot.index, stack.copy()));
+      }
+      menu.setRemoteSlot(slot.index, stack);
+      changed.set(slot.index);
+    }
+    if (changes.isEmpty()) {
+      event.report(player, menu, slots.size(), true, 0, 0);
+      return;
+    }
+
+    int previousStateId = menu.getStateId();
+    int stateId = menu.incrementStateId();
+    PacketDistributor.sendToPlayer(
+        serverPlayer,
+        new SortSyncPayload(
+            menu.containerId, before.sequence, previousStateId, stateId, changes));
+    ArrayDeque<Sent> sent = SENT.computeIfAbsent(menu, key -> new ArrayDeque<>());
+    if (sent.size() == HISTORY) {
+      sent.removeFirst();
+    }
+    sent.addLast(new Sent(previousStateId, stateId, changed));
+    // Update listeners; the remote slots already match, so no slot is sent again
+    menu.broadcastChanges();
+    event.report(player, menu, slots.size(), true, changes.size(), moves);
+  }
+
+  /** The stacks and counts of a region before it was sorted. */
+  public static final class Layout {
+
+    /** Stack in each slot before the sort. Locked stacks may since have grown in place. */
+    private final ItemStack[] stacks;
+
+    /** Item count of each slot before the sort. */
+    private final int[] counts;
+
+    /** Number of non-empty slots before the sort. */
+    private final int occupied;
+
+    /** Sequence number of the request whose client record matches the region, or -1 if none. */
+    private final int sequence;
+
+    /**
+     * Creates a layout.
+     *
+     * @param stacks the stack in each slot
+     * @param counts the item count of each slot
+     * @param occupied the number of non-empty slots
+     * @param sequence the sequence number of the request whose client record matches, or -1
+     */
+    private Layout(ItemStack[] stacks, int[] counts, int occupied, int sequence) {
+      this.stacks = stacks;
+      this.counts = counts;
+      this.occupied = occupied;
+      this.sequence = sequence;
+    }
+
+    /**
+     * Returns how many stacks the sort merged into other stacks.
+     *
+     * @param slots the region's slots after the sort
+     * @return the number of slots that were occupied before the sort but are no longer
+     */
+    public int stacksMerged(List<Slot> slots) {
+      int now = 0;
+      for (Slot slot : slots) {
+        if (!slot.getItem().isEmpty()) {
+          now++;
+        }
+      }
+      return Math.max(0, occupied - now);
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package xyz.bannach.bnnch_sort.server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import xyz.bannach.bnnch_sort.sorting.ItemSorter;
+import xyz.bannach.bnnch_sort.sorting.SortPlan;
+import xyz.bannach.bnnch_sort.sorting.SortPreference;
+import xyz.bannach.bnnch_sort.sorting.SortScratch;
+
+/**
+ * A small, bounded pool of threads that plan sorts of large regions off the server thread.
+ *
+ * <p>Workers run the CPU-heavy part of a sort (merging, key extraction, and ordering) on a {@link
+ * SortSnapshot} and return a detached {@link SortPlan}. They read only the snapshot's own copies
+ * of the stacks and never touch slots or live stacks; the server thread validates the snapshot and
+ * applies the plan.
+ *
+ * <h2>Bounds</h2>
+ *
+ * <p>At most {@link #THREADS} sorts are planned at once and {@link #QUEUE_CAPACITY} more may wait.
+ * When both are full, {@link #plan} refuses the work and the caller plans on its own thread. Idle
+ * workers exit after thirty seconds.
+ *
+ * <h2>Side: Server-only</h2>
+ *
+ * <p>Submitted to from the server thread.
+ *
+ * @see SortSnapshot
+ * @see SortHandler
+ * @since 1.2.0
+ */
+public final class SortWorkers {
+
+  /** Number of worker threads. */
+  public static final int THREADS =
+      Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+  /**
+   * Number of stages a plan goes through: checking whether the snapshot is sorted, then planning.
+   */
+  public static final int PLAN_STAGES = 2;
+
+  /** Number of sorts that may wait for a free worker. */
+  public static final int QUEUE_CAPACITY = 16;
+
+  /** Seconds an idle worker waits for work before exiting. */
+  private static final int KEEP_ALIVE_SECONDS = 30;
+
+  /** The worker pool. */
+  private static final ThreadPoolExecutor POOL = createPool();
+
+  /** Private constructor to prevent instantiation. */
+  private SortWorkers() {}
+
+  /**
+   * Plans a sort of a snapshot on a worker thread.
+   *
+   * <p>The returned future completes with a detached plan, with null if the snapshot is already
+   * sorted, or exceptionally if planning failed, e.g. because a stack was modified while it was
+   * being read.
+   *
+   * <p>The worker sets {@code stages} to the number of {@link #PLAN_STAGES} it has finished, so the
+   * server thread can report how far planning got while it waits.
+   *
+   * @param snapshot the contents to plan a sort of
+   * @param preference the sorting preferences containing method and order
+   * @param stages receives the number of finished stages
+   * @return the future plan, or null if every worker and queue slot is busy
+   */
+  public static CompletableFuture<SortPlan> plan(
+      SortSnapshot snapshot, SortPreference preference, AtomicInteger stages) {
+    try {
+      return CompletableFuture.supplyAsync(() -> planNow(snapshot, preference, stages), POOL);
+    } catch (RejectedExecutionException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Plans a sort of a snapshot on the calling thread.
+   *
+   * @param snapshot the contents to plan a sort of
+   * @param preference the sorting preferences containing method and order
+   * @param stages receives the number of finished stages
+   * @return the detached plan, or null if the snapshot is already sorted
+   */
+  private static SortPlan planNow(
+      SortSnapshot snapshot, SortPreference preference, AtomicInteger stages) {
+    int size = snapshot.size();
+    SortScratch scratch = SortScratch.get();
+    scratch.ensureCapacity(size);
+    try {
+      if (ItemSorter.isSorted(snapshot.stacks(), size, preference, scratch)) {
+        return null;
+      }
+      stages.set(1);
+      SortPlan plan =
+          ItemSorter.plan(snapshot.stacks(), snapshot.counts(), size, preference, scratch).copy();
+      stages.set(PLAN_STAGES);
+      return plan;
+    } finally {
+      scratch.release(size);
+    }
+  }
+
+  /**
+   * Creates the bounded worker pool.
+   *
+   * @return the pool
+   */
+  private static ThreadPoolExecutor createPool() {
+    AtomicInteger ids = new AtomicInteger();
+    ThreadFactory factory =
+        runnable -> {
+          Thread thread = new Thread(runnable, "bnnch_sort-worker-" + ids.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        };
+    ThreadPoolExecutor pool =
+        new ThreadPoolExecutor(
+            THREADS,
+            THREADS,
+            KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            factory);
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+}
@@ -9,6 +9,14 @@
  * <ul>
  *   <li>{@link xyz.bannach.bnnch_sort.server.SortHandler} - Processes sort requests, determines
  *       target slots, and executes the sorting operation
+ *   <li>{@link xyz.bannach.bnnch_sort.server.SortRequestLimiter} - Drops and merges excess sort
+ *       requests per player
+ *   <li>{@link xyz.bannach.bnnch_sort.server.SortScheduler} - Runs queued sorts within a per-tick
+ *       time budget
+ *   <li>{@link xyz.bannach.bnnch_sort.server.SortWorkers} - Plans large container sorts off the
+ *       server thread from a {@link xyz.bannach.bnnch_sort.server.SortSnapshot}
+ *   <li>{@link xyz.bannach.bnnch_sort.server.SortSync} - Sends sorts to the sorting player as moves
+ *       of stacks their client already holds
  *   <li>{@link xyz.bannach.bnnch_sort.server.PreferenceHandler} - Handles preference cycling
  *       requests and syncs updated preferences to the client
  *   <li>{@link xyz.bannach.bnnch_sort.server.ServerEvents} - Listens for player login events to
@@ -0,0 +1,185 @@
+package xyz.bannach.bnnch_sort.sorting;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenCustomHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.item.CreativeModeTab;
+import net.minecraft.world.item.CreativeModeTabs;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.ItemStackLinkedSet;
+
+/**
+ * Precomputed creative tab position for every stack the creative tabs display.
+ *
+ * <p>A stack's position is the index of the first creative tab (in {@link
+ * CreativeModeTabs#allTabs()} order) for which {@link CreativeModeTab#contains} is true. The table
+ * gives the same answer as scanning the tabs, but a lookup costs a single array read for stacks
+ * without components and a single hash lookup for the rest.
+ *
+ * <h2>Lookup Rules</h2>
+ *
+ * <ol>
+ *   <li>Stacks without components use the tab that displays the item's default stack
+ *   <li>Stacks with components use the tab that displays a stack with exactly those components
+ *   <li>Everything else, including damaged or renamed stacks of items the tabs only display
+ *       undamaged and unnamed, sorts last, by registry ID ({@link #UNCATEGORIZED_OFFSET} + ID)
+ * </ol>
+ *
+ * <h2>Lifecycle</h2>
+ *
+ * <p>The table is built when the server starts and rebuilt when tags or datapacks reload. The
+ * creative tabs can also be rebuilt at other times, such as when a player opens the creative
+ * inventory after their permissions changed, so {@link #refresh()} compares the table with the
+ * tab contents it was built from and rebuilds it when they have been replaced. A table built
+ * while the tabs were half rebuilt is therefore replaced on the next refresh after they finish.
+ *
+ * <h2>Side: Common</h2>
+ *
+ * <p>Can be used on both client and server.
+ *
+ * @see xyz.bannach.bnnch_sort.sorting.comparator.CategoryComparator
+ * @since 1.2.0
+ */
+public final class CreativeTabIndex {
+
+  /** Offset added to registry IDs for uncategorized items to ensure they sort last. */
+  public static final int UNCATEGORIZED_OFFSET = 1_000_000;
+
+  /** The current table, or null before the first build. */
+  private static volatile Table table;
+
+  /** Number of tables built so far. */
+  private static volatile int generation;
+
+  /** Private constructor to prevent instantiation. */
+  private CreativeTabIndex() {}
+
+  /**
+   * Immutable snapshot of creative tab positions.
+   *
+   * @param tabByItem the tab index of each raw item ID's default stack, or {@link
+   *     #UNCATEGORIZED_OFFSET} plus the ID
+   * @param tabByStack the tab index of every displayed stack, matched by item and components
+   * @param sources the display collections the table was built from, in registry order
+   * @param generation the table's generation
+   */
+  private record Table(
+      int[] tabByItem,
+      Object2IntOpenCustomHashMap<ItemStack> tabByStack,
+      Object[] sources,
+      int generation) {
+
+    /**
+     * Checks whether any creative tab's contents were replaced since this table was built.
+     *
+     * @return true if the table may no longer match the tabs
+     */
+    boolean isStale() {
+      int i = 0;
+      for (CreativeModeTab tab : BuiltInRegistries.CREATIVE_MODE_TAB) {
+        if (i >= sources.length || tab.getSearchTabDisplayItems() != sources[i]) {
+          return true;
+        }
+        i++;
+      }
+      return i != sources.length;
+    }
+  }
+
+  /**
+   * Returns the creative tab sort index for a stack.
+   *
+   * @param stack the non-empty item stack to look up
+   * @return the tab index, or {@link #UNCATEGORIZED_OFFSET} plus the registry ID for uncategorized
+   *     items
+   */
+  public static int tabIndex(ItemStack stack) {
+    Table current = table;
+    if (current == null) {
+      current = build();
+    }
+
+    int id = BuiltInRegistries.ITEM.getId(stack.getItem());
+    if (!stack.isComponentsPatchEmpty()) {
+      int tab = current.tabByStack().getInt(stack);
+      return tab >= 0 ? tab : UNCATEGORIZED_OFFSET + id;
+    }
+    if (id < 0 || id >= current.tabByItem().length) {
+      return UNCATEGORIZED_OFFSET + id;
+    }
+    return current.tabByItem()[id];
+  }
+
+  /**
+   * Rebuilds the table if the creative tab contents were replaced since it was built.
+   *
+   * <p>Costs one reference comparison per creative tab when nothing changed.
+   */
+  public static void refresh() {
+    Table current = table;
+    if (current == null || current.isStale()) {
+      build();
+    }
+  }
+
+  /**
+   * Returns the generation of the current table, after a {@link #refresh()}.
+   *
+   * <p>The generation changes whenever the table is rebuilt, so callers can tell whether category
+   * orderings they remembered may have changed.
+   *
+   * @return the current generation
+   */
+  public static int generation() {
+    refresh();
+    return table.generation();
+  }
+
+  /** Rebuilds the table from the current creative tab contents. */
+  public static void rebuild() {
+    build();
+  }
+
+  /**
+   * Builds a table from the current creative tab contents and publishes it.
+   *
+   * @return the newly built table
+   */
+  private static synchronized Table build() {
+    // Remember the collections first, so a rebuild of the tabs during this build is detected
+    List<Object> sources = new ArrayList<>();
+    for (CreativeModeTab tab : BuiltInRegistries.CREATIVE_MODE_TAB) {
+      sources.add(tab.getSearchTabDisplayItems());
+    }
+
+    int size = BuiltInRegistries.ITEM.size();
+    int[] tabByItem = new int[size];
+    Arrays.fill(tabByItem, -1);
+    Object2IntOpenCustomHashMap<ItemStack> tabByStack =
+        new Object2IntOpenCustomHashMap<>(ItemStackLinkedSet.TYPE_AND_TAG);
+    tabByStack.defaultReturnValue(-1);
+
+    List<CreativeModeTab> tabs = CreativeModeTabs.allTabs();
+    for (int i = 0; i < tabs.size(); i++) {
+      for (ItemStack displayed : tabs.get(i).getSearchTabDisplayItems()) {
+        tabByStack.putIfAbsent(displayed, i);
+        int id = BuiltInRegistries.ITEM.getId(displayed.getItem());
+        if (displayed.isComponentsPatchEmpty() && id >= 0 && id < size && tabByItem[id] < 0) {
+          tabByItem[id] = i;
+        }
+      }
+    }
+    for (int id = 0; id < size; id++) {
+      if (tabByItem[id] < 0) {
+        tabByItem[id] = UNCATEGORIZED_OFFSET + id;
+      }
+    }
+
+    Table built = new Table(tabByItem, tabByStack, sources.toArray(), generation + 1);
+    generation = built.generation();
+    table = built;
+    return built;
+  }
+}
@@ -1,14 +1,9 @@
 package xyz.bannach.bnnch_sort.sorting;
 
+import it.unimi.dsi.fastutil.objects.Object2IntOpenCustomHashMap;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import net.minecraft.world.item.ItemStack;
-import xyz.bannach.bnnch_sort.sorting.comparator.AlphabeticalComparator;
-import xyz.bannach.bnnch_sort.sorting.comparator.CategoryComparator;
-import xyz.bannach.bnnch_sort.sorting.comparator.ModIdComparator;
-import xyz.bannach.bnnch_sort.sorting.comparator.QuantityComparator;
 
 /**
  * Core utility class for sorting inventory item stacks.
@@ -19,13 +14,29 @@ import xyz.bannach.bnnch_sort.sorting.comparator.QuantityComparator;
  * <h2>Sorting Pipeline</h2>
  *
  * <ol>
- *   <li>Condense partial stacks into full stacks where possible
- *   <li>Filter out empty slots
- *   <li>Sort non-empty items using the appropriate comparator
- *   <li>Reverse if descending order is selected
+ *   <li>Condense partial stacks into full stacks where possible, dropping empty slots
+ *   <li>Extract one packed primitive key per stack ({@link SortKeys})
+ *   <li>Order an index permutation by key, keeping equal keys in input order ({@link
+ *       SortEngine})
+ *   <li>Emit stacks in permutation order, or in reverse if descending order is selected
+ *   <li>Within each run of equal keys, put stacks back into the slots they already occupy
  *   <li>Pad with empty stacks to preserve original slot count
  * </ol>
  *
+ * <p>The keys order stacks exactly like the comparator for the same {@link SortMethod}, so the
+ * comparators remain the reference definition of each ordering.
+ *
+ * <h2>Plans</h2>
+ *
+ * <p>The pipeline itself works on item counts rather than stacks: merging only moves counts between
+ * input positions, and the result is a {@link SortPlan} naming a source stack and a count for each
+ * slot. All buffers come from a {@link SortScratch}, so {@link #plan} allocates close to nothing
+ * once the scratch has grown, and callers only copy stacks for slots whose contents change. The
+ * list-based methods are convenience wrappers around the same pipeline.
+ *
+ * <p>{@link #isValidPlan} checks a plan computed elsewhere, such as on a client, without sorting:
+ * it only hashes the stacks and extracts their keys, so it always costs less than planning.
+ *
  * <h2>Side: Common</h2>
  *
  * <p>This class is used primarily server-side for actual sorting, but the logic is available on
@@ -46,46 +57,295 @@ public final class ItemSorter {
    * <p>The sorting process:
    *
    * <ol>
-   *   <li>Merges partial stacks of the same item type
-   *   <li>Removes empty stacks from consideration
-   *   <li>Sorts remaining items using the preference's method
+   *   <li>Merges partial stacks of the same item type, removing empty stacks
+   *   <li>Sorts remaining items by their packed keys for the preference's method
    *   <li>Reverses order if preference specifies descending
+   *   <li>Keeps stacks that tie on every key in the slots they already occupy
    *   <li>Pads with empty stacks to match original size
    * </ol>
    *
+   * <p>The input list is treated as the current slot layout, so sorting an already sorted list
+   * returns the stacks in the same slots even when several of them share a key.
+   *
    * @param stacks the list of item stacks to sort (not modified)
    * @param preference the sorting preferences containing method and order
    * @return a new list containing the sorted stacks with preserved slot count
+   * @see #plan
    */
   public static List<ItemStack> sort(List<ItemStack> stacks, SortPreference preference) {
-    int originalSize = stacks.size();
+    int size = stacks.size();
+    SortScratch scratch = SortScratch.get();
+    scratch.ensureCapacity(size);
+    ItemStack[] array = scratch.stacks();
+    int[] counts = scratch.counts();
+    for (int i = 0; i < size; i++) {
+      array[i] = stacks.get(i);
+      counts[i] = array[i].getCount();
+    }
+
+    SortPlan plan = plan(array, counts, size, preference, scratch);
 
+    List<ItemStack> items = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      int source = plan.source(i);
+      items.add(source < 0 ? ItemStack.EMPTY : array[source].copyWithCount(plan.count(i)));
+    }
+    scratch.release(size);
+    return items;
+  }
+
+  /**
+   * Plans a sort of the given stacks without modifying or copying any of them.
+   *
+   * <p>Input position {@code i} holds {@code counts[i]} items of the item and components of {@code
+   * stacks[i]}; a count of 0 or an empty stack marks an empty slot. The input positions are also
+   * the current slot layout that tied stacks are kept in.
+   *
+   * @param stacks the current stacks, by input position (not modified)
+   * @param counts the item count at each input position (not modified)
+   * @param size the number of input positions
+   * @param preference the sorting preferences containing method and order
+   * @param scratch the buffers to plan with, sized for at least {@code size} positions
+   * @return the plan, owned by {@code scratch}
+   */
+  public static SortPlan plan(
+      ItemStack[] stacks,
+      int[] counts,
+      int size,
+      SortPreference preference,
+      SortScratch scratch) {
     // 1. Condense partial stacks
-    List<ItemStack> merged = mergeStacks(stacks);
+    SortPhases phases = scratch.phases;
+    int entries = mergeCounts(stacks, counts, size, scratch);
+    if (phases != null) {
+      phases.lap(SortPhases.MERGE);
+    }
+
+    // 2. Extract packed keys once per merged stack
+    SortMethod method = preference.method();
+    SortKeys.extract(
+        scratch.entryStacks, scratch.entryCounts, entries, method, scratch.keys, scratch);
+    if (phases != null) {
+      phases.lap(SortPhases.KEY);
+    }
+
+    // 3. Order an index permutation over the primitive keys with a size-appropriate engine
+    int[] perm = scratch.perm;
+    scratch.engine(entries, method).order(scratch.keys, entries, perm, scratch);
+
+    // 4. Emit in key order, reversed if descending
+    SortPlan plan = scratch.plan;
+    boolean descending = preference.order() == SortOrder.DESCENDING;
+    for (int i = 0; i < entries; i++) {
+      int entry = perm[descending ? entries - 1 - i : i];
+      plan.sources[i] = scratch.entrySources[entry];
+      plan.counts[i] = scratch.entryCounts[entry];
+      scratch.orderedKeys[i] = scratch.keys[entry];
+    }
+
+    // 5. Keep equal-key stacks in the slots they already occupy
+    keepEqualKeyPlacement(stacks, counts, entries, scratch);
+
+    // 6. Pad with empties to restore original size
+    for (int i = entries; i < size; i++) {
+      plan.sources[i] = -1;
+      plan.counts[i] = 0;
+    }
+    plan.size = size;
+    if (phases != null) {
+      phases.lap(SortPhases.SORT);
+    }
+    return plan;
+  }
+
+  /**
+   * Checks in linear time whether sorting the given stacks would return them unchanged.
+   *
+   * @param stacks the current slot contents (not modified)
+   * @param preference the sorting preferences containing method and order
+   * @return true if sorting would leave every slot unchanged
+   * @see #isSorted(ItemStack[], int, SortPreference, SortScratch)
+   */
+  public static boolean isSorted(List<ItemStack> stacks, SortPreference preference) {
+    int size = stacks.size();
+    SortScratch scratch = SortScratch.get();
+    scratch.ensureCapacity(size);
+    ItemStack[] array = scratch.stacks();
+    for (int i = 0; i < size; i++) {
+      array[i] = stacks.get(i);
+    }
+    boolean sorted = isSorted(array, size, preference, scratch);
+    scratch.release(size);
+    return sorted;
+  }
 
-    // 2. Filter empties
-    List<ItemStack> items = new ArrayList<>();
-    for (ItemStack stack : merged) {
-      if (!stack.isEmpty()) {
-        items.add(stack);
+  /**
+   * Checks in linear time whether sorting the given stacks would return them unchanged.
+   *
+   * <p>The stacks count as sorted when:
+   *
+   * <ol>
+   *   <li>All empty stacks trail the non-empty ones
+   *   <li>No stack exceeds its maximum stack size, and each item and component combination has at
+   *       most one partial stack, so merging would not change any stack
+   *   <li>The packed keys are monotonic in the preference's order
+   * </ol>
+   *
+   * <p>Under these conditions {@link #plan} produces the same key sequence, and its equal-key
+   * placement puts every stack back where it is. No stacks are copied.
+   *
+   * @param stacks the current slot contents (not modified)
+   * @param size the number of slots
+   * @param preference the sorting preferences containing method and order
+   * @param scratch the buffers to check with, sized for at least {@code size} slots
+   * @return true if sorting would leave every slot unchanged
+   */
+  public static boolean isSorted(
+      ItemStack[] stacks, int size, SortPreference preference, SortScratch scratch) {
+    int count = 0;
+    while (count < size && !stacks[count].isEmpty()) {
+      count++;
+    }
+    for (int i = count; i < size; i++) {
+      if (!stacks[i].isEmpty()) {
+        return false;
       }
     }
 
-    // 3. Sort by comparator
-    Comparator<ItemStack> comparator = getComparator(preference.method());
-    items.sort(comparator);
+    Object2IntOpenCustomHashMap<ItemStack> partial = scratch.groupIndex;
+    partial.clear();
+    int[] counts = scratch.entryCounts;
+    for (int i = 0; i < count; i++) {
+      ItemStack stack = stacks[i];
+      int max = stack.getMaxStackSize();
+      counts[i] = stack.getCount();
+      if (counts[i] > max) {
+        return false;
+      }
+      if (counts[i] < max && partial.put(stack, i) >= 0) {
+        return false;
+      }
+    }
 
-    // 4. Reverse if descending
-    if (preference.order() == SortOrder.DESCENDING) {
-      Collections.reverse(items);
+    long[] keys = scratch.keys;
+    SortKeys.extract(stacks, counts, count, preference.method(), keys, scratch);
+    boolean descending = preference.order() == SortOrder.DESCENDING;
+    for (int i = 1; i < count; i++) {
+      int cmp = Long.compare(keys[i - 1], keys[i]);
+      if (descending ? cmp < 0 : cmp > 0) {
+        return false;
+      }
     }
+    return true;
+  }
 
-    // 5. Pad with empties to restore original size
-    while (items.size() < originalSize) {
-      items.add(ItemStack.EMPTY);
+  /**
+   * Checks in linear time whether a plan is a valid sort of the given stacks.
+   *
+   * <p>A plan is valid when:
+   *
+   * <ol>
+   *   <li>It covers every input position, and its empty slots trail the non-empty ones
+   *   <li>Each planned stack refers to a non-empty input position and does not exceed its maximum
+   *       stack size
+   *   <li>Each item and component combination keeps exactly its input count, so no items are
+   *       created or destroyed
+   *   <li>Each item and component combination has at most one partial stack
+   *   <li>The planned stacks' packed keys are monotonic in the preference's order
+   * </ol>
+   *
+   * <p>Any order of stacks with equal keys is accepted, so a valid plan may place tied stacks
+   * differently than {@link #plan} would.
+   *
+   * @param stacks the current stacks, by input position (not modified)
+   * @param counts the item count at each input position (not modified)
+   * @param size the number of input positions
+   * @param plan the plan to check
+   * @param preference the sorting preferences containing method and order
+   * @param scratch the buffers to check with, sized for at least {@code size} positions
+   * @return true if applying the plan sorts the stacks without changing what they hold
+   */
+  public static boolean isValidPlan(
+      ItemStack[] stacks,
+      int[] counts,
+      int size,
+      SortPlan plan,
+      SortPreference preference,
+      SortScratch scratch) {
+    if (plan.size != size) {
+      return false;
     }
 
-    return items;
+    // Credit each item and component group with its input count, under its first position
+    Object2IntOpenCustomHashMap<ItemStack> heads = scratch.groupIndex;
+    heads.clear();
+    int[] balance = scratch.buffer;
+    for (int i = 0; i < size; i++) {
+      if (counts[i] > 0 && !stacks[i].isEmpty()) {
+        int head = heads.putIfAbsent(stacks[i], i);
+        if (head < 0) {
+          head = i;
+          balance[i] = 0;
+        }
+        balance[head] += counts[i];
+      }
+    }
+
+    // Debit each group with what the plan puts into its slots
+    ItemStack[] planned = scratch.entryStacks;
+    int[] plannedCounts = scratch.entryCounts;
+    int entries = 0;
+    for (int i = 0; i < size; i++) {
+      int source = plan.sources[i];
+      int count = plan.counts[i];
+      if (source < 0) {
+        if (source != -1 || count != 0) {
+          return false;
+        }
+        continue;
+      }
+      if (source >= size || entries != i) {
+        return false;
+      }
+      ItemStack stack = stacks[source];
+      int head = stack.isEmpty() ? -1 : heads.getInt(stack);
+      if (head < 0 || count <= 0 || count > stack.getMaxStackSize()) {
+        return false;
+      }
+      balance[head] -= count;
+      planned[entries] = stack;
+      plannedCounts[entries] = count;
+      entries++;
+    }
+    for (int i = 0; i < size; i++) {
+      if (counts[i] > 0
+          && !stacks[i].isEmpty()
+          && heads.getInt(stacks[i]) == i
+          && balance[i] != 0) {
+        return false;
+      }
+    }
+
+    // Merged: at most one partial stack per group
+    heads.clear();
+    for (int e = 0; e < entries; e++) {
+      if (plannedCounts[e] < planned[e].getMaxStackSize() && heads.put(planned[e], e) >= 0) {
+        return false;
+      }
+    }
+    heads.clear();
+
+    // Ordered: monotonic keys
+    long[] keys = scratch.keys;
+    SortKeys.extract(planned, plannedCounts, entries, preference.method(), keys, scratch);
+    boolean descending = preference.order() == SortOrder.DESCENDING;
+    for (int e = 1; e < entries; e++) {
+      int cmp = Long.compare(keys[e - 1], keys[e]);
+      if (descending ? cmp < 0 : cmp > 0) {
+        return false;
+      }
+    }
+    return true;
   }
 
   /**
@@ -101,51 +361,226 @@ public final class ItemSorter {
    * @return a new list containing merged stacks (empty stacks are excluded)
    */
   public static List<ItemStack> mergeStacks(List<ItemStack> stacks) {
-    List<ItemStack> result = new ArrayList<>();
+    int size = stacks.size();
+    SortScratch scratch = SortScratch.get();
+    scratch.ensureCapacity(size);
+    ItemStack[] array = scratch.stacks();
+    int[] counts = scratch.counts();
+    for (int i = 0; i < size; i++) {
+      array[i] = stacks.get(i);
+      counts[i] = array[i].getCount();
+    }
 
-    for (ItemStack original : stacks) {
-      if (original.isEmpty()) {
-        continue;
+    int entries = mergeCounts(array, counts, size, scratch);
+    List<ItemStack> result = new ArrayList<>(entries);
+    for (int e = 0; e < entries; e++) {
+      result.add(scratch.entryStacks[e].copyWithCount(scratch.entryCounts[e]));
+    }
+    scratch.release(size);
+    return result;
+  }
+
+  /**
+   * Indexes input positions by item and components for {@link #topUp}.
+   *
+   * <p>The index lives in {@code scratch} until the next {@link #plan}, {@link #isSorted}, or
+   * {@link SortScratch#release}.
+   *
+   * @param stacks the stacks to index, by input position (not modified)
+   * @param counts the item count at each input position
+   * @param size the number of input positions
+   * @param scratch the buffers to index with, sized for at least {@code size} positions
+   */
+  public static void indexGroups(ItemStack[] stacks, int[] counts, int size, SortScratch scratch) {
+    Object2IntOpenCustomHashMap<ItemStack> heads = scratch.groupIndex;
+    heads.clear();
+    // Push positions in reverse so each chain lists its positions in ascending order
+    for (int i = size - 1; i >= 0; i--) {
+      if (counts[i] > 0 && !stacks[i].isEmpty()) {
+        scratch.chain[i] = heads.put(stacks[i], i);
       }
+    }
+  }
 
-      ItemStack toMerge = original.copy();
+  /**
+   * Checks whether {@link #topUp} would move any items into the given stack.
+   *
+   * @param receiver the stack that would receive items
+   * @param counts the item count at each indexed position
+   * @param scratch the scratch holding the index built by {@link #indexGroups}
+   * @return true if the receiver is a stackable partial stack and indexed items of the same item
+   *     and components remain
+   */
+  public static boolean canTopUp(ItemStack receiver, int[] counts, SortScratch scratch) {
+    if (receiver.isEmpty()
+        || receiver.getMaxStackSize() <= 1
+        || receiver.getCount() >= receiver.getMaxStackSize()) {
+      return false;
+    }
+    for (int i = scratch.groupIndex.getInt(receiver); i >= 0; i = scratch.chain[i]) {
+      if (counts[i] > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
 
-      // Try to merge into existing stacks in result
-      for (ItemStack existing : result) {
-        if (toMerge.isEmpty()) {
-          break;
-        }
-        if (ItemStack.isSameItemSameComponents(existing, toMerge)) {
-          int space = existing.getMaxStackSize() - existing.getCount();
-          if (space > 0) {
-            int transfer = Math.min(space, toMerge.getCount());
-            existing.grow(transfer);
-            toMerge.shrink(transfer);
-          }
+  /**
+   * Fills a partial stack with items taken from indexed positions of the same item and components.
+   *
+   * <p>Positions are drained in ascending order. Only {@code counts} is reduced; the indexed stacks
+   * themselves are never modified.
+   *
+   * @param receiver the stack to grow in place
+   * @param counts the item count at each indexed position, reduced by what is taken
+   * @param scratch the scratch holding the index built by {@link #indexGroups}
+   * @return the number of items moved into the receiver
+   */
+  public static int topUp(ItemStack receiver, int[] counts, SortScratch scratch) {
+    if (!canTopUp(receiver, counts, scratch)) {
+      return 0;
+    }
+    int moved = 0;
+    for (int i = scratch.groupIndex.getInt(receiver); i >= 0; i = scratch.chain[i]) {
+      int space = receiver.getMaxStackSize() - receiver.getCount();
+      if (space <= 0) {
+        break;
+      }
+      int transfer = Math.min(space, counts[i]);
+      receiver.grow(transfer);
+      counts[i] -= transfer;
+      moved += transfer;
+    }
+    return moved;
+  }
+
+  /**
+   * Merges input counts into entries of a representative stack and a count.
+   *
+   * <p>Within a group only the most recently added entry can have free space, since every earlier
+   * entry was filled before a new one was appended, so each input position is merged in
+   * near-constant time.
+   *
+   * @param stacks the input stacks (not modified)
+   * @param counts the item count at each input position (not modified)
+   * @param size the number of input positions
+   * @param scratch receives the entries
+   * @return the number of entries
+   */
+  private static int mergeCounts(ItemStack[] stacks, int[] counts, int size, SortScratch scratch) {
+    Object2IntOpenCustomHashMap<ItemStack> open = scratch.groupIndex;
+    open.clear();
+    int entries = 0;
+    for (int i = 0; i < size; i++) {
+      ItemStack stack = stacks[i];
+      int remaining = counts[i];
+      if (remaining <= 0 || stack.isEmpty()) {
+        continue;
+      }
+
+      // Try to top up the open entry of the same group
+      int entry = open.getInt(stack);
+      if (entry >= 0) {
+        int space = stack.getMaxStackSize() - scratch.entryCounts[entry];
+        if (space > 0) {
+          int transfer = Math.min(space, remaining);
+          scratch.entryCounts[entry] += transfer;
+          remaining -= transfer;
         }
       }
 
-      // If there's anything left, add as new stack
-      if (!toMerge.isEmpty()) {
-        result.add(toMerge);
+      // If there's anything left, start a new entry
+      if (remaining > 0) {
+        scratch.entryStacks[entries] = stack;
+        scratch.entrySources[entries] = i;
+        scratch.entryCounts[entries] = remaining;
+        open.put(stack, entries);
+        entries++;
       }
     }
-
-    return result;
+    open.clear();
+    return entries;
   }
 
   /**
-   * Returns the appropriate comparator for the given sort method.
+   * Reorders each run of equal-key slots in the plan so that stacks land in slots that already hold
+   * an identical stack.
    *
-   * @param method the sort method to get a comparator for
-   * @return the singleton comparator instance for the specified method
+   * <p>Any order within a run is a valid sort result, so this only changes which of several tied
+   * stacks goes where. Stacks that match no current slot in their run fill the remaining positions
+   * in their original order.
+   *
+   * @param stacks the current stacks, indexed by slot position
+   * @param counts the current item count of each slot
+   * @param entries the number of planned non-empty slots
+   * @param scratch the scratch holding the plan and its ordered keys
    */
-  private static Comparator<ItemStack> getComparator(SortMethod method) {
-    return switch (method) {
-      case ALPHABETICAL -> AlphabeticalComparator.INSTANCE;
-      case CATEGORY -> CategoryComparator.INSTANCE;
-      case QUANTITY -> QuantityComparator.INSTANCE;
-      case MOD_ID -> ModIdComparator.INSTANCE;
-    };
+  private static void keepEqualKeyPlacement(
+      ItemStack[] stacks, int[] counts, int entries, SortScratch scratch) {
+    SortPlan plan = scratch.plan;
+    long[] keys = scratch.orderedKeys;
+    Object2IntOpenCustomHashMap<ItemStack> heads = scratch.groupIndex;
+    int[] chain = scratch.chain;
+    int[] assigned = scratch.assigned;
+    boolean[] claimed = scratch.claimed;
+
+    int start = 0;
+    while (start < entries) {
+      int end = start + 1;
+      while (end < entries && keys[end] == keys[start]) {
+        end++;
+      }
+      if (end - start > 1) {
+        // Chain run members by item and components, in run order
+        for (int j = end - 1; j >= start; j--) {
+          chain[j] = heads.put(stacks[plan.sources[j]], j);
+        }
+
+        // Claim run members for the slots that already hold an identical stack
+        for (int slot = start; slot < end; slot++) {
+          assigned[slot] = -1;
+          if (counts[slot] <= 0 || stacks[slot].isEmpty()) {
+            continue;
+          }
+          for (int j = heads.getInt(stacks[slot]), previous = -1; j >= 0; j = chain[j]) {
+            if (plan.counts[j] == counts[slot]) {
+              assigned[slot] = j;
+              claimed[j] = true;
+              if (previous < 0) {
+                heads.put(stacks[slot], chain[j]);
+              } else {
+                chain[previous] = chain[j];
+              }
+              break;
+            }
+            previous = j;
+          }
+        }
+
+        // Fill the remaining positions with unclaimed members in their sorted order
+        int next = start;
+        for (int slot = start; slot < end; slot++) {
+          if (assigned[slot] < 0) {
+            while (claimed[next]) {
+              next++;
+            }
+            assigned[slot] = next++;
+          }
+        }
+
+        // Apply the run's new order through the now unused permutation buffers
+        for (int slot = start; slot < end; slot++) {
+          scratch.perm[slot] = plan.sources[assigned[slot]];
+          scratch.buffer[slot] = plan.counts[assigned[slot]];
+        }
+        for (int slot = start; slot < end; slot++) {
+          plan.sources[slot] = scratch.perm[slot];
+          plan.counts[slot] = scratch.buffer[slot];
+          claimed[slot] = false;
+          heads.removeInt(stacks[plan.sources[slot]]);
+        }
+      }
+      start = end;
+    }
   }
 }
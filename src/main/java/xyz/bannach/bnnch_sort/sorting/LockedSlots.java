@@ -1,9 +1,8 @@
 package xyz.bannach.bnnch_sort.sorting;
 
 import com.mojang.serialization.Codec;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 /**
  * Immutable record holding the set of locked inventory slot indices for a player.
@@ -11,6 +10,13 @@ import java.util.Set;
  * <p>Locked slots are skipped during sorting but may receive items merged from unlocked slots when
  * the locked slot contains a non-full, stackable item.
  *
+ * <h2>Representation</h2>
+ *
+ * <p>The set is a primitive bitmask with bit {@code i} set when slot {@code i} is locked, covering
+ * slots 0 to {@value #CAPACITY} - 1. The player inventory's slots 0-35 fit with room to spare, so
+ * lookups are a single mask test and toggling never copies a collection. Indices outside the range
+ * are never locked.
+ *
  * <h2>Persistence</h2>
  *
  * <p>Locked slots are persisted using the {@link #CODEC} for NBT serialization and attached to
@@ -20,23 +26,39 @@ import java.util.Set;
  *
  * <p>Used on both client and server.
  *
- * @param slots the set of locked slot indices (player inventory 0-35)
+ * @param mask the locked slot bitmask (player inventory 0-35)
  * @since 1.1.0
  */
-public record LockedSlots(Set<Integer> slots) {
+public record LockedSlots(long mask) {
+
+  /** Number of slot indices a mask can hold. */
+  public static final int CAPACITY = Long.SIZE;
 
   /** Empty locked slots instance (no slots locked). */
-  public static final LockedSlots EMPTY = new LockedSlots(Set.of());
+  public static final LockedSlots EMPTY = new LockedSlots(0L);
+
+  /** Codec for the integer list format written before 1.2.0. */
+  private static final Codec<LockedSlots> LEGACY_CODEC =
+      Codec.INT.listOf().xmap(LockedSlots::fromIndices, LockedSlots::toIndices);
 
   /**
    * Codec for serializing and deserializing LockedSlots to/from NBT.
    *
-   * <p>Stores the locked slot indices as an integer list.
+   * <p>Stores the mask as a single long tag, and still reads the integer list format written
+   * before 1.2.0.
    */
   public static final Codec<LockedSlots> CODEC =
-      Codec.INT
-          .listOf()
-          .xmap(list -> new LockedSlots(new HashSet<>(list)), ls -> List.copyOf(ls.slots()));
+      Codec.withAlternative(Codec.LONG.xmap(LockedSlots::new, LockedSlots::mask), LEGACY_CODEC);
+
+  /**
+   * Returns the mask bit for a slot index.
+   *
+   * @param slotIndex the inventory slot index
+   * @return the slot's bit, or 0 if the index is outside the mask
+   */
+  public static long bit(int slotIndex) {
+    return slotIndex >= 0 && slotIndex < CAPACITY ? 1L << slotIndex : 0L;
+  }
 
   /**
    * Returns whether the given slot index is locked.
@@ -45,7 +67,7 @@ public record LockedSlots(Set<Integer> slots) {
    * @return true if the slot is locked
    */
   public boolean isLocked(int slotIndex) {
-    return slots.contains(slotIndex);
+    return (mask & bit(slotIndex)) != 0;
   }
 
   /**
@@ -57,13 +79,25 @@ public record LockedSlots(Set<Integer> slots) {
    * @return a new LockedSlots with the slot toggled
    */
   public LockedSlots toggle(int slotIndex) {
-    Set<Integer> newSlots = new HashSet<>(slots);
-    if (newSlots.contains(slotIndex)) {
-      newSlots.remove(slotIndex);
-    } else {
-      newSlots.add(slotIndex);
-    }
-    return new LockedSlots(newSlots);
+    return new LockedSlots(mask ^ bit(slotIndex));
+  }
+
+  /**
+   * Returns whether no slot is locked.
+   *
+   * @return true if no slot is locked
+   */
+  public boolean isEmpty() {
+    return mask == 0;
+  }
+
+  /**
+   * Returns the number of locked slots.
+   *
+   * @return the locked slot count
+   */
+  public int count() {
+    return Long.bitCount(mask);
   }
 
   /**
@@ -74,12 +108,39 @@ public record LockedSlots(Set<Integer> slots) {
    * @return the count of locked slots in the range
    */
   public int countInRange(int from, int to) {
-    int count = 0;
-    for (int slot : slots) {
-      if (slot >= from && slot <= to) {
-        count++;
-      }
+    int low = Math.max(from, 0);
+    int high = Math.min(to, CAPACITY - 1);
+    if (low > high) {
+      return 0;
+    }
+    long range = (-1L >>> (CAPACITY - 1 - high + low)) << low;
+    return Long.bitCount(mask & range);
+  }
+
+  /**
+   * Builds a mask from a list of slot indices.
+   *
+   * @param indices the locked slot indices
+   * @return the locked slots
+   */
+  private static LockedSlots fromIndices(List<Integer> indices) {
+    long mask = 0;
+    for (int index : indices) {
+      mask |= bit(index);
+    }
+    return new LockedSlots(mask);
+  }
+
+  /**
+   * Lists the locked slot indices in ascending order.
+   *
+   * @return the locked slot indices
+   */
+  private List<Integer> toIndices() {
+    List<Integer> indices = new ArrayList<>(count());
+    for (long rest = mask; rest != 0; rest &= rest - 1) {
+      indices.add(Long.numberOfTrailingZeros(rest));
     }
-    return count;
+    return indices;
   }
 }
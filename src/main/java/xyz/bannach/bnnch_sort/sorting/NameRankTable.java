@@ -0,0 +1,311 @@
+package xyz.bannach.bnnch_sort.sorting;
+
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.minecraft.Util;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.locale.Language;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import org.slf4j.Logger;
+
+/**
+ * Precomputed case-insensitive alphabetical rank for every registered item.
+ *
+ * <p>The table is indexed by raw item registry ID. Items whose default display names are equal
+ * (ignoring case) share a rank, so comparing the ranks of two uncustomized stacks gives the same
+ * result as comparing their display names with {@link String#CASE_INSENSITIVE_ORDER}, without
+ * building any components or strings. The table also ranks each item's registry namespace for
+ * {@link SortMethod#MOD_ID} sorting.
+ *
+ * <h2>Fallback</h2>
+ *
+ * <p>Stacks that carry components may have a different display name (custom names, potion
+ * contents, book titles), so they have no rank. {@link SortKeys} resolves each of their names
+ * once per sort; comparators resolve them with {@link #sortName(ItemStack)}.
+ *
+ * <h2>Lifecycle</h2>
+ *
+ * <p>The table is built asynchronously when the server starts and again when tags or datapacks
+ * reload. Until a table for the current {@link Language} is ready, every stack falls back to its
+ * display name.
+ *
+ * <h2>Side: Common</h2>
+ *
+ * <p>Can be used on both client and server.
+ *
+ * @see xyz.bannach.bnnch_sort.sorting.comparator.AlphabeticalComparator
+ * @since 1.2.0
+ */
+public final class NameRankTable {
+
+  /** Logger instance for this class. */
+  private static final Logger LOGGER = LogUtils.getLogger();
+
+  /** The published table, or null before the first build completes. */
+  private static volatile Ranks table;
+
+  /** Whether a background build is currently in flight. */
+  private static final AtomicBoolean BUILDING = new AtomicBoolean();
+
+  /** Private constructor to prevent instantiation. */
+  private NameRankTable() {}
+
+  /**
+   * Immutable snapshot of item name and namespace ranks.
+   *
+   * <p>All ranks used within one sort must come from the same snapshot, obtained once through
+   * {@link NameRankTable#current()}.
+   */
+  public static final class Ranks {
+
+    /** The language the names were resolved with. */
+    private final Language language;
+
+    /** The dense alphabetical rank for each raw item ID. */
+    private final int[] rankByItem;
+
+    /** The default display name for each raw item ID. */
+    private final String[] nameByItem;
+
+    /** A representative display name for each rank, in ascending order. */
+    private final String[] nameByRank;
+
+    /** The dense case-insensitive namespace rank for each raw item ID. */
+    private final int[] namespaceRankByItem;
+
+    /**
+     * Constructs a snapshot from fully built tables.
+     *
+     * @param language the language the names were resolved with
+     * @param rankByItem the dense alphabetical rank for each raw item ID
+     * @param nameByItem the default display name for each raw item ID
+     * @param nameByRank a representative display name for each rank
+     * @param namespaceRankByItem the dense namespace rank for each raw item ID
+     */
+    private Ranks(
+        Language language,
+        int[] rankByItem,
+        String[] nameByItem,
+        String[] nameByRank,
+        int[] namespaceRankByItem) {
+      this.language = language;
+      this.rankByItem = rankByItem;
+      this.nameByItem = nameByItem;
+      this.nameByRank = nameByRank;
+      this.namespaceRankByItem = namespaceRankByItem;
+    }
+
+    /**
+     * Returns the alphabetical rank of an uncustomized stack.
+     *
+     * @param stack the non-empty item stack to look up
+     * @return the rank, or -1 if the stack carries components
+     */
+    public int rank(ItemStack stack) {
+      if (!stack.isComponentsPatchEmpty()) {
+        return -1;
+      }
+      int id = BuiltInRegistries.ITEM.getId(stack.getItem());
+      return id >= 0 && id < rankByItem.length ? rankByItem[id] : -1;
+    }
+
+    /**
+     * Returns the default display name of a stack's item.
+     *
+     * @param stack the non-empty item stack to look up
+     * @return the item's default name, or null if the item is not in the table
+     */
+    public String defaultName(ItemStack stack) {
+      int id = BuiltInRegistries.ITEM.getId(stack.getItem());
+      return id >= 0 && id < nameByItem.length ? nameByItem[id] : null;
+    }
+
+    /**
+     * Returns the case-insensitive rank of a stack's registry namespace.
+     *
+     * @param stack the non-empty item stack to look up
+     * @return the namespace rank, or -1 if the item is not in the table
+     */
+    public int namespaceRank(ItemStack stack) {
+      int id = BuiltInRegistries.ITEM.getId(stack.getItem());
+      return id >= 0 && id < namespaceRankByItem.length ? namespaceRankByItem[id] : -1;
+    }
+
+    /**
+     * Locates an arbitrary name among the ranked names.
+     *
+     * <p>A name equal to the names of rank {@code r} (ignoring case) maps to {@code 2r + 1}. Any
+     * other name maps to {@code 2p}, where {@code p} is the rank it would be inserted before, so
+     * located positions order exactly like the names they came from.
+     *
+     * @param name the name to locate
+     * @return the located position
+     */
+    public int locate(String name) {
+      int low = 0;
+      int high = nameByRank.length - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int cmp = String.CASE_INSENSITIVE_ORDER.compare(nameByRank[mid], name);
+        if (cmp < 0) {
+          low = mid + 1;
+        } else if (cmp > 0) {
+          high = mid - 1;
+        } else {
+          return 2 * mid + 1;
+        }
+      }
+      return 2 * low;
+    }
+  }
+
+  /**
+   * Returns the alphabetical rank of an uncustomized stack.
+   *
+   * @param stack the non-empty item stack to look up
+   * @return the rank, or -1 if the stack carries components or no table is ready
+   */
+  public static int rank(ItemStack stack) {
+    Ranks current = current();
+    return current != null ? current.rank(stack) : -1;
+  }
+
+  /**
+   * Returns the name a stack is sorted by.
+   *
+   * <p>Uncustomized stacks read their name from the table; other stacks resolve their display name.
+   *
+   * @param stack the non-empty item stack to name
+   * @return the display name used for alphabetical ordering
+   */
+  public static String sortName(ItemStack stack) {
+    Ranks current = current();
+    if (current != null && stack.isComponentsPatchEmpty()) {
+      String name = current.defaultName(stack);
+      if (name != null) {
+        return name;
+      }
+    }
+    return stack.getHoverName().getString();
+  }
+
+  /**
+   * Starts building a new table in the background.
+   *
+   * <p>If a build is already in flight, this call does nothing.
+   */
+  public static void rebuildAsync() {
+    if (BUILDING.get() || !BUILDING.compareAndSet(false, true)) {
+      return;
+    }
+    Util.backgroundExecutor()
+        .execute(
+            () -> {
+              try {
+                table = build();
+              } catch (RuntimeException e) {
+                LOGGER.warn("Failed to build item name rank table", e);
+              } finally {
+                BUILDING.set(false);
+              }
+            });
+  }
+
+  /**
+   * Returns the published table if it matches the active language.
+   *
+   * <p>A missing or stale table schedules a background rebuild.
+   *
+   * @return the current table, or null if none is usable yet
+   */
+  public static Ranks current() {
+    Ranks current = table;
+    if (current == null || current.language != Language.getInstance()) {
+      rebuildAsync();
+      return null;
+    }
+    return current;
+  }
+
+  /**
+   * Resolves every item's default name and namespace and assigns dense case-insensitive ranks.
+   *
+   * @return the built table
+   */
+  private static Ranks build() {
+    Language language = Language.getInstance();
+    int size = BuiltInRegistries.ITEM.size();
+    String[] names = new String[size];
+    String[] namespaces = new String[size];
+    for (int id = 0; id < size; id++) {
+      Item item = BuiltInRegistries.ITEM.byId(id);
+      names[id] = new ItemStack(item).getHoverName().getString();
+      namespaces[id] = BuiltInRegistries.ITEM.getKey(item).getNamespace();
+    }
+
+    int[] ranks = new int[size];
+    int rankCount = denseRank(names, ranks);
+    String[] nameByRank = new String[rankCount];
+    for (int id = 0; id < size; id++) {
+      nameByRank[ranks[id]] = names[id];
+    }
+
+    int[] namespaceRanks = new int[size];
+    denseRank(namespaces, namespaceRanks);
+
+    return new Ranks(language, ranks, names, nameByRank, namespaceRanks);
+  }
+
+  /**
+   * Assigns dense case-insensitive ranks to a list of strings.
+   *
+   * <p>Strings that are equal ignoring case share a rank.
+   *
+   * @param values the strings to rank
+   * @param ranks receives the rank of each string, indexed like {@code values}
+   * @return the number of distinct ranks
+   */
+  static int denseRank(String[] values, int[] ranks) {
+    int size = values.length;
+    return denseRank(values, size, ranks, new int[size], new int[size]);
+  }
+
+  /**
+   * Assigns dense case-insensitive ranks to the first strings of an array, using caller-owned
+   * buffers.
+   *
+   * @param values the strings to rank
+   * @param size the number of strings to rank
+   * @param ranks receives the rank of each string, indexed like {@code values}
+   * @param order a buffer of at least {@code size} elements for the sorted order
+   * @param support a buffer of at least {@code size} elements for the merge sort
+   * @return the number of distinct ranks
+   */
+  static int denseRank(String[] values, int size, int[] ranks, int[] order, int[] support) {
+    if (size == 0) {
+      return 0;
+    }
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+      support[i] = i;
+    }
+    IntArrays.mergeSort(
+        order,
+        0,
+        size,
+        (a, b) -> String.CASE_INSENSITIVE_ORDER.compare(values[a], values[b]),
+        support);
+
+    int rank = 0;
+    for (int i = 0; i < size; i++) {
+      if (i > 0
+          && String.CASE_INSENSITIVE_ORDER.compare(values[order[i - 1]], values[order[i]]) != 0) {
+        rank++;
+      }
+      ranks[order[i]] = rank;
+    }
+    return rank + 1;
+  }
+}
@@ -0,0 +1,344 @@
+package xyz.bannach.bnnch_sort.sorting;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import java.util.List;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.ItemStack;
+
+/**
+ * Sorts the contents of a group of menu slots in place.
+ *
+ * <p>This is the slot-level pipeline shared by the server's sorts and the client's predictions, so
+ * both sides arrive at the same layout from the same contents.
+ *
+ * <h2>Pipeline</h2>
+ *
+ * <ol>
+ *   <li>Gather the unlocked slots' stacks in slot order, without copying them
+ *   <li>Return {@link #ALREADY_SORTED} if sorting could not change anything
+ *   <li>Top up partial stacks in locked slots with matching unlocked items
+ *   <li>Plan the unlocked items with {@link ItemSorter#plan}
+ *   <li>Write the slots whose contents change
+ * </ol>
+ *
+ * <h2>Detached Plans</h2>
+ *
+ * <p>{@link #plan} computes a sort without writing any slot, and {@link #applyPlan} writes such a
+ * plan after checking it with {@link ItemSorter#isValidPlan}. This lets a client plan a sort and
+ * the server apply it for the cost of a linear check. Neither supports regions where a locked slot
+ * would be topped up; {@link #sort} handles those.
+ *
+ * <h2>Checksums</h2>
+ *
+ * <p>{@link #checksum(List)} summarizes slots by item registry ID and count, which are the same on
+ * client and server. {@link #predictionKey(long, long)} combines the checksums before and after a
+ * sort, so the server can tell whether a client's predicted sort matched its own.
+ *
+ * <h2>Side: Common</h2>
+ *
+ * <p>Used by the server to sort and by the client to predict sorts.
+ *
+ * @see ItemSorter
+ * @see xyz.bannach.bnnch_sort.server.SortHandler
+ * @since 1.2.0
+ */
+public final class SlotSorter {
+
+  /** Returned by {@link #sort} when the slots were already sorted and nothing was planned. */
+  public static final int ALREADY_SORTED = -1;
+
+  /** Returned by {@link #applyPlan} when the plan was rejected and no slot was written. */
+  public static final int INVALID_PLAN = -2;
+
+  /** Prediction key meaning no prediction was made. */
+  public static final long NO_PREDICTION = 0L;
+
+  /** Private constructor to prevent instantiation. */
+  private SlotSorter() {}
+
+  /**
+   * Sorts slots in place, leaving locked slots where they are.
+   *
+   * <p>Non-full stacks in locked slots may receive matching items from unlocked slots.
+   *
+   * @param slots the slots to sort, in order
+   * @param lockedSlots the locked inventory slots, matched against each slot's container index
+   * @param preference the sorting preferences containing method and order
+   * @return the number of slots whose contents changed, or {@link #ALREADY_SORTED}
+   */
+  public static int sort(List<Slot> slots, LockedSlots lockedSlots, SortPreference preference) {
+    return sort(slots, lockedSlots, preference, null);
+  }
+
+  /**
+   * Sorts slots in place, leaving locked slots where they are, and times each phase of the sort.
+   *
+   * @param slots the slots to sort, in order
+   * @param lockedSlots the locked inventory slots, matched against each slot's container index
+   * @param preference the sorting preferences containing method and order
+   * @param phases the timings to restart and fill in, or null to leave the sort untimed
+   * @return the number of slots whose contents changed, or {@link #ALREADY_SORTED}
+   * @see #sort(List, LockedSlots, SortPreference)
+   */
+  public static int sort(
+      List<Slot> slots, LockedSlots lockedSlots, SortPreference preference, SortPhases phases) {
+    if (phases != null) {
+      phases.start();
+    }
+    int size = slots.size();
+    SortScratch scratch = SortScratch.get();
+    scratch.ensureCapacity(size);
+    scratch.phases = phases;
+    ItemStack[] stacks = scratch.stacks();
+    int[] counts = scratch.counts();
+    int unlocked = gatherUnlocked(slots, lockedSlots, scratch);
+
+    // Index unlocked items by item and components for the pre-sort merge
+    boolean locks = !lockedSlots.isEmpty();
+    if (locks) {
+      ItemSorter.indexGroups(stacks, counts, unlocked, scratch);
+    }
+
+    // Skip the sort entirely if it could not change anything
+    boolean sorted =
+        !(locks && canTopUpLocked(slots, lockedSlots, counts, scratch))
+            && ItemSorter.isSorted(stacks, unlocked, preference, scratch);
+    if (phases != null) {
+      phases.lap(SortPhases.SNAPSHOT);
+    }
+    if (sorted) {
+      scratch.release(size);
+      return ALREADY_SORTED;
+    }
+
+    // Pre-sort merge: fill locked non-full stacks from unlocked items
+    int changed = 0;
+    if (locks) {
+      for (Slot slot : slots) {
+        if (lockedSlots.isLocked(slot.getContainerSlot())) {
+          ItemStack lockedItem = slot.getItem();
+          if (ItemSorter.topUp(lockedItem, counts, scratch) > 0) {
+            slot.set(lockedItem);
+            changed++;
+          }
+        }
+      }
+    }
+
+    if (phases != null) {
+      phases.lap(SortPhases.MERGE);
+    }
+
+    // Sort unlocked items
+    SortPlan plan = ItemSorter.plan(stacks, counts, unlocked, preference, scratch);
+
+    // Write sorted items back to the unlocked slots that change
+    int position = 0;
+    for (Slot slot : slots) {
+      if (!lockedSlots.isLocked(slot.getContainerSlot())) {
+        if (apply(slot, plan, position++, stacks)) {
+          changed++;
+        }
+      }
+    }
+    if (phases != null) {
+      phases.lap(SortPhases.WRITE_BACK);
+    }
+    scratch.release(size);
+    return changed;
+  }
+
+  /**
+   * Plans a sort of slots without writing any of them.
+   *
+   * <p>The plan covers the unlocked slots, in order, and refers to their stacks by position.
+   *
+   * @param slots the slots to plan a sort of, in order
+   * @param lockedSlots the locked inventory slots, matched against each slot's container index
+   * @param preference the sorting preferences containing method and order
+   * @return a detached plan, or null if the slots are already sorted or a locked slot would be
+   *     topped up
+   */
+  public static SortPlan plan(
+      List<Slot> slots, LockedSlots lockedSlots, SortPreference preference) {
+    int size = slots.size();
+    SortScratch scratch = SortScratch.get();
+    scratch.ensureCapacity(size);
+    ItemStack[] stacks = scratch.stacks();
+    int[] counts = scratch.counts();
+    int unlocked = gatherUnlocked(slots, lockedSlots, scratch);
+    try {
+      if (!lockedSlots.isEmpty()) {
+        ItemSorter.indexGroups(stacks, counts, unlocked, scratch);
+        if (canTopUpLocked(slots, lockedSlots, counts, scratch)) {
+          return null;
+        }
+      }
+      if (ItemSorter.isSorted(stacks, unlocked, preference, scratch)) {
+        return null;
+      }
+      return ItemSorter.plan(stacks, counts, unlocked, preference, scratch).copy();
+    } finally {
+      scratch.release(size);
+    }
+  }
+
+  /**
+   * Checks a plan computed elsewhere and writes it to the slots if it is valid.
+   *
+   * <p>The plan is rejected if it is not a valid sort of the unlocked slots' current contents
+   * ({@link ItemSorter#isValidPlan}), or if a locked slot could be topped up, which plans do not
+   * cover. Checking is linear in the number of slots.
+   *
+   * @param slots the slots to write, in order
+   * @param lockedSlots the locked inventory slots, matched against each slot's container index
+   * @param preference the sorting preferences containing method and order
+   * @param plan the plan, positioned over the unlocked slots as by {@link #plan}
+   * @return the number of slots whose contents changed, or {@link #INVALID_PLAN}
+   */
+  public static int applyPlan(
+      List<Slot> slots, LockedSlots lockedSlots, SortPreference preference, SortPlan plan) {
+    int size = slots.size();
+    SortScratch scratch = SortScratch.get();
+    scratch.ensureCapacity(size);
+    ItemStack[] stacks = scratch.stacks();
+    int[] counts = scratch.counts();
+    int unlocked = gatherUnlocked(slots, lockedSlots, scratch);
+    try {
+      if (!lockedSlots.isEmpty()) {
+        ItemSorter.indexGroups(stacks, counts, unlocked, scratch);
+        if (canTopUpLocked(slots, lockedSlots, counts, scratch)) {
+          return INVALID_PLAN;
+        }
+      }
+      if (!ItemSorter.isValidPlan(stacks, counts, unlocked, plan, preference, scratch)) {
+        return INVALID_PLAN;
+      }
+
+      int changed = 0;
+      int position = 0;
+      for (Slot slot : slots) {
+        if (!lockedSlots.isLocked(slot.getContainerSlot())) {
+          if (apply(slot, plan, position++, stacks)) {
+            changed++;
+          }
+        }
+      }
+      return changed;
+    } finally {
+      scratch.release(size);
+    }
+  }
+
+  /**
+   * Writes one planned slot, skipping it if it already holds an identical stack.
+   *
+   * <p>The slot receives a copy of its planned source stack with the planned count, so the input
+   * stacks are never modified and only changed slots cost a copy.
+   *
+   * @param slot the target slot
+   * @param plan the sort plan
+   * @param position the slot's position in the plan
+   * @param stacks the input stacks the plan refers to
+   * @return true if the slot was written
+   */
+  public static boolean apply(Slot slot, SortPlan plan, int position, ItemStack[] stacks) {
+    ItemStack current = slot.getItem();
+    int source = plan.source(position);
+    if (source < 0) {
+      if (current.isEmpty()) {
+        return false;
+      }
+      slot.set(ItemStack.EMPTY);
+      return true;
+    }
+    int count = plan.count(position);
+    ItemStack target = stacks[source];
+    if (current.getCount() == count && ItemStack.isSameItemSameComponents(current, target)) {
+      return false;
+    }
+    slot.set(target.copyWithCount(count));
+    return true;
+  }
+
+  /**
+   * Summarizes the contents of slots by item registry ID and count.
+   *
+   * <p>Components are not included, since their hashes are not guaranteed to agree between client
+   * and server.
+   *
+   * @param slots the slots, in order
+   * @return the checksum
+   */
+  public static long checksum(List<Slot> slots) {
+    long hash = slots.size();
+    for (Slot slot : slots) {
+      ItemStack stack = slot.getItem();
+      long entry =
+          stack.isEmpty()
+              ? 0
+              : ((long) BuiltInRegistries.ITEM.getId(stack.getItem()) << 32) | stack.getCount();
+      hash = HashCommon.mix(hash ^ entry) + entry;
+    }
+    return hash;
+  }
+
+  /**
+   * Combines the checksums of slots before and after a sort into a prediction key.
+   *
+   * @param before the checksum before the sort
+   * @param after the checksum after the sort
+   * @return the key, never {@link #NO_PREDICTION}
+   */
+  public static long predictionKey(long before, long after) {
+    long key = HashCommon.mix(before) ^ after;
+    return key == NO_PREDICTION ? 1L : key;
+  }
+
+  /**
+   * Gathers the unlocked slots' stacks and counts into the scratch, in slot order, without copying
+   * them.
+   *
+   * @param slots the slots to gather from
+   * @param lockedSlots the locked inventory slots
+   * @param scratch the scratch to gather into, sized for at least the number of slots
+   * @return the number of unlocked slots gathered
+   */
+  private static int gatherUnlocked(
+      List<Slot> slots, LockedSlots lockedSlots, SortScratch scratch) {
+    ItemStack[] stacks = scratch.stacks();
+    int[] counts = scratch.counts();
+    int unlocked = 0;
+    for (Slot slot : slots) {
+      if (!lockedSlots.isLocked(slot.getContainerSlot())) {
+        stacks[unlocked] = slot.getItem();
+        counts[unlocked] = stacks[unlocked].getCount();
+        unlocked++;
+      }
+    }
+    return unlocked;
+  }
+
+  /**
+   * Checks whether the pre-sort merge would move any unlocked items into a locked slot.
+   *
+   * @param slots the slots being sorted
+   * @param lockedSlots the locked inventory slots
+   * @param counts the item count of each indexed unlocked position
+   * @param scratch the scratch holding the unlocked stacks, indexed by {@link
+   *     ItemSorter#indexGroups}
+   * @return true if some locked partial stack shares its item and components with an unlocked
+   *     stack
+   */
+  private static boolean canTopUpLocked(
+      List<Slot> slots, LockedSlots lockedSlots, int[] counts, SortScratch scratch) {
+    for (Slot slot : slots) {
+      if (lockedSlots.isLocked(slot.getContainerSlot())
+          && ItemSorter.canTopUp(slot.getItem(), counts, scratch)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,308 @@
+package xyz.bannach.bnnch_sort.sorting;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import java.util.Arrays;
+import xyz.bannach.bnnch_sort.Config;
+
+/**
+ * Algorithms for ordering packed sort keys.
+ *
+ * <p>Every engine returns the stable ascending permutation of its keys: indices ordered by key,
+ * with equal keys kept in index order. That order is unique, so all engines produce identical
+ * output and only differ in speed.
+ *
+ * <h2>Selection</h2>
+ *
+ * <ul>
+ *   <li>{@link #INSERTION} - up to {@link #INSERTION_THRESHOLD} keys
+ *   <li>{@link #COUNTING} - {@link SortMethod#QUANTITY}, whose counts span a small range
+ *   <li>{@link #MERGE} - below {@link Config#radixSortThreshold}
+ *   <li>{@link #RADIX} - below {@link Config#parallelSortThreshold}
+ *   <li>{@link #PARALLEL} - everything larger
+ * </ul>
+ *
+ * <h2>Side: Common</h2>
+ *
+ * <p>Can be used on both client and server.
+ *
+ * @see SortKeys
+ * @see ItemSorter
+ * @since 1.2.0
+ */
+public enum SortEngine {
+
+  /** Straight insertion sort, cheapest for a handful of slots. */
+  INSERTION {
+    @Override
+    public void order(long[] keys, int size, int[] perm, SortScratch scratch) {
+      identity(perm, size);
+      for (int i = 1; i < size; i++) {
+        int index = perm[i];
+        long key = keys[index];
+        int j = i - 1;
+        while (j >= 0 && keys[perm[j]] > key) {
+          perm[j + 1] = perm[j];
+          j--;
+        }
+        perm[j + 1] = index;
+      }
+    }
+  },
+
+  /** Stable merge sort over the index permutation. */
+  MERGE {
+    @Override
+    public void order(long[] keys, int size, int[] perm, SortScratch scratch) {
+      identity(perm, size);
+      int[] support = scratch.buffer;
+      System.arraycopy(perm, 0, support, 0, size);
+      IntArrays.mergeSort(perm, 0, size, (a, b) -> Long.compare(keys[a], keys[b]), support);
+    }
+  },
+
+  /**
+   * Least-significant-digit radix sort with 8-bit digits.
+   *
+   * <p>All digit histograms are built in one pass, and digits that are identical across every key
+   * are skipped, so keys with small groups and ranks usually need three or four passes.
+   */
+  RADIX {
+    @Override
+    public void order(long[] keys, int size, int[] perm, SortScratch scratch) {
+      int[][] counts = scratch.radixCounts;
+      for (int[] count : counts) {
+        Arrays.fill(count, 0);
+      }
+      for (int i = 0; i < size; i++) {
+        long key = keys[i];
+        for (int d = 0; d < DIGITS; d++) {
+          counts[d][digit(key, d)]++;
+        }
+      }
+
+      identity(perm, size);
+      int[] from = perm;
+      int[] to = scratch.buffer;
+      for (int d = 0; d < DIGITS; d++) {
+        int[] count = counts[d];
+        if (size == 0 || count[digit(keys[0], d)] == size) {
+          continue;
+        }
+        int sum = 0;
+        for (int b = 0; b < RADIX_SIZE; b++) {
+          int c = count[b];
+          count[b] = sum;
+          sum += c;
+        }
+        for (int i = 0; i < size; i++) {
+          int index = from[i];
+          to[count[digit(keys[index], d)]++] = index;
+        }
+        int[] swap = from;
+        from = to;
+        to = swap;
+      }
+      if (from != perm) {
+        System.arraycopy(from, 0, perm, 0, size);
+      }
+    }
+  },
+
+  /**
+   * Two stable counting passes, first by name rank and then by group.
+   *
+   * <p>Intended for {@link SortMethod#QUANTITY}, whose groups are inverted stack counts bounded by
+   * the maximum stack size. Falls back to {@link #RADIX} when either half spans too wide a range.
+   */
+  COUNTING {
+    @Override
+    public void order(long[] keys, int size, int[] perm, SortScratch scratch) {
+      if (size == 0) {
+        return;
+      }
+      long lowMin = Long.MAX_VALUE;
+      long lowMax = Long.MIN_VALUE;
+      long highMin = Long.MAX_VALUE;
+      long highMax = Long.MIN_VALUE;
+      for (int i = 0; i < size; i++) {
+        long key = keys[i];
+        long low = key & 0xFFFFFFFFL;
+        long high = key >> 32;
+        lowMin = Math.min(lowMin, low);
+        lowMax = Math.max(lowMax, low);
+        highMin = Math.min(highMin, high);
+        highMax = Math.max(highMax, high);
+      }
+      long limit = (long) size + MAX_COUNTING_RANGE;
+      if (lowMax - lowMin >= limit || highMax - highMin >= limit) {
+        RADIX.order(keys, size, perm, scratch);
+        return;
+      }
+
+      identity(perm, size);
+      int[] next = scratch.buffer;
+      countingPass(keys, size, perm, next, false, lowMin, (int) (lowMax - lowMin + 1), scratch);
+      countingPass(keys, size, next, perm, true, highMin, (int) (highMax - highMin + 1), scratch);
+    }
+  },
+
+  /** Fork-join quicksort over (key, index), for very large containers. */
+  PARALLEL {
+    @Override
+    public void order(long[] keys, int size, int[] perm, SortScratch scratch) {
+      identity(perm, size);
+      IntArrays.parallelQuickSort(
+          perm,
+          0,
+          size,
+          (a, b) -> {
+            int result = Long.compare(keys[a], keys[b]);
+            return result != 0 ? result : Integer.compare(a, b);
+          });
+    }
+  };
+
+  /** Largest input sorted with {@link #INSERTION}. */
+  public static final int INSERTION_THRESHOLD = 32;
+
+  /** Widest key range, beyond the input size, that {@link #COUNTING} handles itself. */
+  private static final int MAX_COUNTING_RANGE = 1024;
+
+  /** Number of 8-bit digits in a packed key. */
+  private static final int DIGITS = 8;
+
+  /** Number of buckets per radix digit. */
+  private static final int RADIX_SIZE = 256;
+
+  /**
+   * Writes the stable ascending permutation of the given keys.
+   *
+   * @param keys the packed keys to order (not modified)
+   * @param size the number of keys to order
+   * @param perm receives the indices of the first {@code size} keys in ascending key order, equal
+   *     keys in index order
+   * @param scratch the buffers to sort with, sized for at least {@code size} keys
+   */
+  public abstract void order(long[] keys, int size, int[] perm, SortScratch scratch);
+
+  /**
+   * Returns the stable ascending permutation of the given keys, using temporary buffers.
+   *
+   * @param keys the packed keys to order (not modified)
+   * @return the indices of {@code keys} in ascending key order, equal keys in index order
+   */
+  public int[] order(long[] keys) {
+    SortScratch scratch = new SortScratch();
+    scratch.ensureCapacity(keys.length);
+    int[] perm = new int[keys.length];
+    order(keys, keys.length, perm, scratch);
+    return perm;
+  }
+
+  /**
+   * Chooses the engine for an input of the given size.
+   *
+   * @param size the number of keys to sort
+   * @param method the sort method the keys were extracted for
+   * @return the engine to use
+   */
+  public static SortEngine select(int size, SortMethod method) {
+    return select(size, method, Config.radixSortThreshold, Config.parallelSortThreshold);
+  }
+
+  /**
+   * Chooses the engine for an input of the given size, with explicit size thresholds.
+   *
+   * @param size the number of keys to sort
+   * @param method the sort method the keys were extracted for
+   * @param radixSortThreshold the smallest input ordered with {@link #RADIX}
+   * @param parallelSortThreshold the smallest input ordered with {@link #PARALLEL}
+   * @return the engine to use
+   */
+  public static SortEngine select(
+      int size, SortMethod method, int radixSortThreshold, int parallelSortThreshold) {
+    if (size <= INSERTION_THRESHOLD) {
+      return INSERTION;
+    }
+    if (method == SortMethod.QUANTITY) {
+      return COUNTING;
+    }
+    if (size < radixSortThreshold) {
+      return MERGE;
+    }
+    if (size < parallelSortThreshold) {
+      return RADIX;
+    }
+    return PARALLEL;
+  }
+
+  /**
+   * Fills the start of a permutation buffer with the identity permutation.
+   *
+   * @param perm the buffer to fill
+   * @param size the permutation length
+   */
+  private static void identity(int[] perm, int size) {
+    for (int i = 0; i < size; i++) {
+      perm[i] = i;
+    }
+  }
+
+  /**
+   * Extracts one radix digit, with the sign bit flipped in the top digit so signed order holds.
+   *
+   * @param key the packed key
+   * @param d the digit index, 0 being least significant
+   * @return the digit value in {@code [0, 256)}
+   */
+  private static int digit(long key, int d) {
+    int value = (int) (key >>> (d * 8)) & 0xFF;
+    return d == DIGITS - 1 ? value ^ 0x80 : value;
+  }
+
+  /**
+   * Stably distributes indices by one half of their keys.
+   *
+   * @param keys the packed keys
+   * @param size the number of indices to distribute
+   * @param from the indices in their current order
+   * @param to receives the indices ordered by the chosen half
+   * @param high whether to use the high half instead of the low half
+   * @param min the smallest value of the chosen half
+   * @param range the number of distinct buckets for the chosen half
+   * @param scratch the scratch providing the bucket buffer
+   */
+  private static void countingPass(
+      long[] keys,
+      int size,
+      int[] from,
+      int[] to,
+      boolean high,
+      long min,
+      int range,
+      SortScratch scratch) {
+    int[] count = scratch.buckets(range + 1);
+    for (int i = 0; i < size; i++) {
+      count[bucket(keys[from[i]], high, min) + 1]++;
+    }
+    for (int b = 1; b <= range; b++) {
+      count[b] += count[b - 1];
+    }
+    for (int i = 0; i < size; i++) {
+      int index = from[i];
+      to[count[bucket(keys[index], high, min)]++] = index;
+    }
+  }
+
+  /**
+   * Computes a key's counting-sort bucket.
+   *
+   * @param key the packed key
+   * @param high whether to use the high half instead of the low half
+   * @param min the smallest value of the chosen half
+   * @return the bucket index
+   */
+  private static int bucket(long key, boolean high, long min) {
+    return (int) ((high ? key >> 32 : key & 0xFFFFFFFFL) - min);
+  }
+}
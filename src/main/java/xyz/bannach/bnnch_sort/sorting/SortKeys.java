@@ -0,0 +1,236 @@
+package xyz.bannach.bnnch_sort.sorting;
+
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import java.util.Arrays;
+import java.util.List;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.item.ItemStack;
+
+/**
+ * Packs each stack's complete sort key into a single {@code long}.
+ *
+ * <p>Keys are extracted once per sort into a {@link SortScratch} buffer, so ordering the stacks
+ * only compares primitives and keying uncustomized stacks allocates nothing. Comparing two keys as
+ * signed longs gives the same result as the comparator for the same {@link SortMethod}.
+ *
+ * <h2>Key Layout</h2>
+ *
+ * <table>
+ *   <caption>Packed key layout</caption>
+ *   <tr><th>Bits</th><th>Content</th></tr>
+ *   <tr><td>63-32</td><td>Group: 0, tab index, inverted count, or namespace rank</td></tr>
+ *   <tr><td>31-0</td><td>Dense alphabetical rank within this sort</td></tr>
+ * </table>
+ *
+ * <p>Both halves are non-negative, so the packed keys never overflow into the sign bit.
+ *
+ * <h2>Name Ranks</h2>
+ *
+ * <p>Uncustomized stacks use their precomputed rank from {@link NameRankTable}. Stacks with custom
+ * display names are placed between those ranks by a binary search over the table's names, and
+ * each custom name is resolved exactly once per sort.
+ *
+ * <h2>Side: Common</h2>
+ *
+ * <p>Can be used on both client and server.
+ *
+ * @see ItemSorter
+ * @see SortEngine
+ * @see xyz.bannach.bnnch_sort.sorting.comparator
+ * @since 1.2.0
+ */
+public final class SortKeys {
+
+  /** Private constructor to prevent instantiation. */
+  private SortKeys() {}
+
+  /**
+   * Extracts the packed sort key of every stack, using temporary buffers.
+   *
+   * @param stacks the non-empty stacks to key
+   * @param method the sort method that decides the group half of each key
+   * @return one key per stack, indexed like {@code stacks}
+   */
+  public static long[] extract(List<ItemStack> stacks, SortMethod method) {
+    int size = stacks.size();
+    SortScratch scratch = new SortScratch();
+    scratch.ensureCapacity(size);
+    ItemStack[] array = stacks.toArray(new ItemStack[0]);
+    int[] counts = new int[size];
+    for (int i = 0; i < size; i++) {
+      counts[i] = array[i].getCount();
+    }
+    long[] keys = new long[size];
+    extract(array, counts, size, method, keys, scratch);
+    return keys;
+  }
+
+  /**
+   * Extracts the packed sort key of every stack into a buffer.
+   *
+   * @param stacks the non-empty stacks to key
+   * @param counts the item count of each stack, used instead of the stack's own count
+   * @param size the number of stacks to key
+   * @param method the sort method that decides the group half of each key
+   * @param keys receives one key per stack
+   * @param scratch the buffers to rank names with, sized for at least {@code size} stacks
+   */
+  public static void extract(
+      ItemStack[] stacks,
+      int[] counts,
+      int size,
+      SortMethod method,
+      long[] keys,
+      SortScratch scratch) {
+    NameRankTable.Ranks ranks = NameRankTable.current();
+    int[] names = nameRanks(stacks, size, ranks, scratch.names, scratch);
+    int[] namespaces =
+        method == SortMethod.MOD_ID
+            ? namespaceRanks(stacks, size, ranks, scratch.groups, scratch)
+            : null;
+    if (method == SortMethod.CATEGORY) {
+      CreativeTabIndex.refresh();
+    }
+
+    for (int i = 0; i < size; i++) {
+      int group =
+          switch (method) {
+            case ALPHABETICAL -> 0;
+            case CATEGORY -> CreativeTabIndex.tabIndex(stacks[i]);
+            case QUANTITY -> Integer.MAX_VALUE - counts[i];
+            case MOD_ID -> namespaces[i];
+          };
+      keys[i] = pack(group, names[i]);
+    }
+  }
+
+  /**
+   * Packs a group and a name rank into one key.
+   *
+   * @param group the non-negative primary group
+   * @param nameRank the non-negative name rank
+   * @return the packed key
+   */
+  public static long pack(int group, int nameRank) {
+    return ((long) group << 32) | (nameRank & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Assigns dense alphabetical ranks that are consistent within this sort.
+   *
+   * <p>When every stack has a table rank those ranks are used directly. Otherwise each stack gets a
+   * composite position: table-ranked names sit at odd positions, custom names at the even gap
+   * positions between them with a sub-rank among all custom names, and the composites are then
+   * compressed into dense ranks.
+   *
+   * @param stacks the non-empty stacks to rank
+   * @param size the number of stacks to rank
+   * @param ranks the table snapshot for this sort, or null if none is ready
+   * @param result receives one rank per stack
+   * @param scratch the buffers to rank custom names with
+   * @return {@code result}
+   */
+  private static int[] nameRanks(
+      ItemStack[] stacks,
+      int size,
+      NameRankTable.Ranks ranks,
+      int[] result,
+      SortScratch scratch) {
+    int unranked = 0;
+    for (int i = 0; i < size; i++) {
+      int rank = ranks != null ? ranks.rank(stacks[i]) : -1;
+      result[i] = rank;
+      if (rank < 0) {
+        unranked++;
+      }
+    }
+    if (unranked == 0) {
+      return result;
+    }
+
+    // Resolve each custom name once and rank the custom names among themselves
+    String[] customNames = scratch.strings;
+    int[] customIndex = scratch.customIndex;
+    for (int i = 0, c = 0; i < size; i++) {
+      if (result[i] < 0) {
+        customNames[c] = stacks[i].getHoverName().getString();
+        customIndex[c++] = i;
+      }
+    }
+    int[] customRanks = scratch.customRanks;
+    NameRankTable.denseRank(
+        customNames, unranked, customRanks, scratch.rankOrder, scratch.rankSupport);
+
+    long[] composite = scratch.composite;
+    for (int i = 0; i < size; i++) {
+      if (result[i] >= 0) {
+        composite[i] = (long) (2 * result[i] + 1) << 32;
+      }
+    }
+    for (int c = 0; c < unranked; c++) {
+      int position = ranks != null ? ranks.locate(customNames[c]) : 0;
+      // A custom name equal to a table name must tie with the ranked stacks of that name
+      int subRank = (position & 1) == 1 ? 0 : customRanks[c];
+      composite[customIndex[c]] = ((long) position << 32) | subRank;
+    }
+
+    return compress(composite, size, result, scratch.distinct);
+  }
+
+  /**
+   * Assigns dense ranks to each stack's registry namespace, ignoring case.
+   *
+   * @param stacks the non-empty stacks to rank
+   * @param size the number of stacks to rank
+   * @param ranks the table snapshot for this sort, or null if none is ready
+   * @param result receives one namespace rank per stack
+   * @param scratch the buffers to rank namespaces with when the table cannot
+   * @return {@code result}
+   */
+  private static int[] namespaceRanks(
+      ItemStack[] stacks,
+      int size,
+      NameRankTable.Ranks ranks,
+      int[] result,
+      SortScratch scratch) {
+    boolean complete = ranks != null;
+    for (int i = 0; complete && i < size; i++) {
+      result[i] = ranks.namespaceRank(stacks[i]);
+      complete = result[i] >= 0;
+    }
+    if (complete) {
+      return result;
+    }
+
+    String[] namespaces = scratch.strings;
+    for (int i = 0; i < size; i++) {
+      namespaces[i] = BuiltInRegistries.ITEM.getKey(stacks[i].getItem()).getNamespace();
+    }
+    NameRankTable.denseRank(namespaces, size, result, scratch.rankOrder, scratch.rankSupport);
+    return result;
+  }
+
+  /**
+   * Replaces each value with its rank among the distinct values.
+   *
+   * @param values the values to compress (not modified)
+   * @param size the number of values to compress
+   * @param ranks receives the dense rank of each value
+   * @param distinct a buffer of at least {@code size} elements for the sorted distinct values
+   * @return {@code ranks}
+   */
+  private static int[] compress(long[] values, int size, int[] ranks, long[] distinct) {
+    System.arraycopy(values, 0, distinct, 0, size);
+    LongArrays.quickSort(distinct, 0, size);
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (i == 0 || distinct[i] != distinct[count - 1]) {
+        distinct[count++] = distinct[i];
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      ranks[i] = Arrays.binarySearch(distinct, 0, count, values[i]);
+    }
+    return ranks;
+  }
+}
@@ -0,0 +1,88 @@
+package xyz.bannach.bnnch_sort.sorting;
+
+import java.util.Arrays;
+
+/**
+ * Time spent in each phase of one sort.
+ *
+ * <p>A sort is only timed when a {@code SortPhases} is passed to {@link
+ * SlotSorter#sort(java.util.List, LockedSlots, SortPreference, SortPhases)}; otherwise the
+ * pipeline reads no clock. Each {@link #lap} charges the time since the previous lap to a phase,
+ * so phases that are entered more than once accumulate.
+ *
+ * <h2>Phases</h2>
+ *
+ * <ul>
+ *   <li>{@link #SNAPSHOT} - Gathering the slots' stacks and checking whether they are sorted
+ *   <li>{@link #MERGE} - Topping up locked stacks and condensing partial stacks
+ *   <li>{@link #KEY} - Extracting sort keys
+ *   <li>{@link #SORT} - Ordering the keys and laying out the plan
+ *   <li>{@link #WRITE_BACK} - Writing changed slots
+ *   <li>{@link #BROADCAST} - Sending the changes to players, timed by the caller
+ * </ul>
+ *
+ * <h2>Side: Common</h2>
+ *
+ * <p>Confined to the thread running the sort.
+ *
+ * @see xyz.bannach.bnnch_sort.metrics.SortEvent
+ * @since 1.2.0
+ */
+public final class SortPhases {
+
+  /** Gathering the slots' stacks and checking whether they are sorted. */
+  public static final int SNAPSHOT = 0;
+
+  /** Topping up locked stacks and condensing partial stacks. */
+  public static final int MERGE = 1;
+
+  /** Extracting sort keys. */
+  public static final int KEY = 2;
+
+  /** Ordering the keys and laying out the plan. */
+  public static final int SORT = 3;
+
+  /** Writing changed slots. */
+  public static final int WRITE_BACK = 4;
+
+  /** Sending the changes to players. */
+  public static final int BROADCAST = 5;
+
+  /** Time charged to each phase, in nanoseconds. */
+  private final long[] nanos = new long[6];
+
+  /** {@link System#nanoTime()} at the previous lap. */
+  private long mark;
+
+  /** Creates phase timings, starting the clock. */
+  public SortPhases() {
+    start();
+  }
+
+  /** Clears every phase and restarts the clock. */
+  public void start() {
+    Arrays.fill(nanos, 0);
+    mark = System.nanoTime();
+  }
+
+  /**
+   * Charges the time since the previous lap to a phase.
+   *
+   * @param phase the phase that just ended
+   */
+  public void lap(int phase) {
+    long now = System.nanoTime();
+    nanos[phase] += now - mark;
+    mark = now;
+  }
+
+  /**
+   * Returns the time charged to a phase.
+   *
+   * @param phase the phase
+   * @return the time in nanoseconds
+   */
+  public long nanos(int phase) {
+    return nanos[phase];
+  }
+}
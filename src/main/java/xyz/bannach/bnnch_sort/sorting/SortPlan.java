@@ -0,0 +1,118 @@
+package xyz.bannach.bnnch_sort.sorting;
+
+import java.util.Arrays;
+
+/**
+ * The result of planning a sort: which input stack, and how many of its items, each slot receives.
+ *
+ * <p>A plan never holds item stacks of its own. Slot {@code i} receives {@link #count(int)} items
+ * of the item and components of input stack {@link #source(int)}, or stays empty when the source
+ * is -1. Stacks are only created when a caller writes a slot whose contents actually change.
+ *
+ * <h2>Lifetime</h2>
+ *
+ * <p>Plans returned by {@link ItemSorter#plan} are owned by the thread's {@link SortScratch} and
+ * are overwritten by the next sort on that thread. {@link #copy()} detaches a plan that is never
+ * overwritten, so it can be handed to another thread.
+ *
+ * <h2>Side: Common</h2>
+ *
+ * <p>Can be used on both client and server.
+ *
+ * @see ItemSorter#plan
+ * @since 1.2.0
+ */
+public final class SortPlan {
+
+  /** Number of planned slots. */
+  int size;
+
+  /** Input position whose item and components each slot receives, or -1 for empty. */
+  int[] sources = new int[0];
+
+  /** Item count each slot receives. */
+  int[] counts = new int[0];
+
+  /** Package-private constructor; plans are created by {@link SortScratch}. */
+  SortPlan() {}
+
+  /**
+   * Creates a detached plan from its slot sources and counts, e.g. as received from a client.
+   *
+   * <p>The arrays are used as they are, not copied. The plan is not checked against any stacks;
+   * see {@link ItemSorter#isValidPlan}.
+   *
+   * @param sources the input position each slot receives, or -1 for empty
+   * @param counts the item count each slot receives
+   * @return the plan
+   * @throws IllegalArgumentException if the arrays differ in length
+   */
+  public static SortPlan of(int[] sources, int[] counts) {
+    if (sources.length != counts.length) {
+      throw new IllegalArgumentException(
+          "Plan has " + sources.length + " sources but " + counts.length + " counts");
+    }
+    SortPlan plan = new SortPlan();
+    plan.size = sources.length;
+    plan.sources = sources;
+    plan.counts = counts;
+    return plan;
+  }
+
+  /**
+   * Grows the plan's arrays to hold at least the given number of slots.
+   *
+   * @param capacity the required number of slots
+   */
+  void ensureCapacity(int capacity) {
+    if (sources.length < capacity) {
+      int grown = Math.max(capacity, sources.length * 2);
+      sources = new int[grown];
+      counts = new int[grown];
+    }
+  }
+
+  /**
+   * Returns the number of planned slots.
+   *
+   * @return the slot count
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the input position whose item and components a slot receives.
+   *
+   * @param slot the slot position
+   * @return the source input position, or -1 if the slot stays empty
+   */
+  public int source(int slot) {
+    return sources[slot];
+  }
+
+  /**
+   * Returns the number of items a slot receives.
+   *
+   * @param slot the slot position
+   * @return the item count, 0 for empty slots
+   */
+  public int count(int slot) {
+    return counts[slot];
+  }
+
+  /**
+   * Returns a copy of this plan that no scratch owns.
+   *
+   * <p>The copy is never modified, so it can be safely published to other threads.
+   *
+   * @return the detached copy
+   */
+  public SortPlan copy() {
+    SortPlan copy = new SortPlan();
+    copy.size = size;
+    copy.sources = Arrays.copyOf(sources, size);
+    copy.counts = Arrays.copyOf(counts, size);
+    return copy;
+  }
+}
@@ -0,0 +1,252 @@
+package xyz.bannach.bnnch_sort.sorting;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenCustomHashMap;
+import java.util.Arrays;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.ItemStackLinkedSet;
+
+/**
+ * Reusable per-thread buffers for the sort pipeline.
+ *
+ * <p>Every array the pipeline needs (input stacks and counts, merged entries, keys, permutations,
+ * and the resulting {@link SortPlan}) lives here and only grows, so once a thread has sorted its
+ * largest region, later sorts allocate close to nothing.
+ *
+ * <h2>Usage</h2>
+ *
+ * <pre>{@code
+ * SortScratch scratch = SortScratch.get();
+ * scratch.ensureCapacity(size);
+ * ItemStack[] stacks = scratch.stacks();
+ * int[] counts = scratch.counts();
+ * // fill stacks and counts
+ * SortPlan plan = ItemSorter.plan(stacks, counts, size, preference, scratch);
+ * // apply the plan
+ * scratch.release(size);
+ * }</pre>
+ *
+ * <h2>Side: Common</h2>
+ *
+ * <p>Can be used on both client and server. Instances are confined to their thread, and a sort
+ * must finish with its scratch before the same thread starts another.
+ *
+ * @see ItemSorter#plan
+ * @since 1.2.0
+ */
+public final class SortScratch {
+
+  /** The scratch of each thread. */
+  private static final ThreadLocal<SortScratch> CURRENT = ThreadLocal.withInitial(SortScratch::new);
+
+  /** Input stacks, by input position. Never modified by the pipeline. */
+  private ItemStack[] stacks = new ItemStack[0];
+
+  /** Item counts, by input position; may be lower than the stack's own count. */
+  private int[] counts = new int[0];
+
+  /** Representative stack of each merged entry. */
+  ItemStack[] entryStacks = new ItemStack[0];
+
+  /** Input position of each merged entry's representative stack. */
+  int[] entrySources = new int[0];
+
+  /** Item count of each merged entry. */
+  int[] entryCounts = new int[0];
+
+  /** Packed sort key of each merged entry. */
+  long[] keys = new long[0];
+
+  /** Packed sort keys in output order. */
+  long[] orderedKeys = new long[0];
+
+  /** Sort permutation over the merged entries. */
+  int[] perm = new int[0];
+
+  /** Secondary permutation buffer for merge, radix, and counting sorts. */
+  int[] buffer = new int[0];
+
+  /** Dense name rank of each merged entry. */
+  int[] names = new int[0];
+
+  /** Namespace rank of each merged entry. */
+  int[] groups = new int[0];
+
+  /** Custom display names or namespaces being ranked by {@link SortKeys}. */
+  String[] strings = new String[0];
+
+  /** Entry position of each custom display name. */
+  int[] customIndex = new int[0];
+
+  /** Rank of each custom display name among the others. */
+  int[] customRanks = new int[0];
+
+  /** Sorted order of the strings being ranked. */
+  int[] rankOrder = new int[0];
+
+  /** Merge sort buffer for ranking strings. */
+  int[] rankSupport = new int[0];
+
+  /** Composite name position of each merged entry. */
+  long[] composite = new long[0];
+
+  /** Sorted distinct composite name positions. */
+  long[] distinct = new long[0];
+
+  /** Next position in the same item and component group, or -1. */
+  int[] chain = new int[0];
+
+  /** Run member assigned to each slot of an equal-key run, or -1. */
+  int[] assigned = new int[0];
+
+  /** Whether each run member has been claimed by a slot. */
+  boolean[] claimed = new boolean[0];
+
+  /** Digit histograms for the radix sort. */
+  final int[][] radixCounts = new int[8][256];
+
+  /** Bucket counts for the counting sort. */
+  int[] buckets = new int[0];
+
+  /** Head position of each item and component group; -1 when absent. */
+  final Object2IntOpenCustomHashMap<ItemStack> groupIndex =
+      new Object2IntOpenCustomHashMap<>(ItemStackLinkedSet.TYPE_AND_TAG);
+
+  /** The plan produced by the most recent sort on this thread. */
+  final SortPlan plan = new SortPlan();
+
+  /** Phase timings of the current sort, or null if it is not timed. */
+  SortPhases phases;
+
+  /** Radix sort threshold used instead of the config value, or -1 for none. */
+  private int radixSortThreshold = -1;
+
+  /** Parallel sort threshold used instead of the config value, or -1 for none. */
+  private int parallelSortThreshold = -1;
+
+  /** Package-private constructor; use {@link #get()} outside of one-off sorts. */
+  SortScratch() {
+    groupIndex.defaultReturnValue(-1);
+  }
+
+  /**
+   * Returns the current thread's scratch.
+   *
+   * @return the thread's scratch
+   */
+  public static SortScratch get() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Grows every buffer to hold at least the given number of stacks.
+   *
+   * @param capacity the number of input stacks about to be sorted
+   */
+  public void ensureCapacity(int capacity) {
+    if (stacks.length >= capacity) {
+      return;
+    }
+    int grown = Math.max(capacity, stacks.length * 2);
+    stacks = new ItemStack[grown];
+    counts = new int[grown];
+    entryStacks = new ItemStack[grown];
+    entrySources = new int[grown];
+    entryCounts = new int[grown];
+    keys = new long[grown];
+    orderedKeys = new long[grown];
+    perm = new int[grown];
+    buffer = new int[grown];
+    names = new int[grown];
+    groups = new int[grown];
+    strings = new String[grown];
+    customIndex = new int[grown];
+    customRanks = new int[grown];
+    rankOrder = new int[grown];
+    rankSupport = new int[grown];
+    composite = new long[grown];
+    distinct = new long[grown];
+    chain = new int[grown];
+    assigned = new int[grown];
+    claimed = new boolean[grown];
+    plan.ensureCapacity(grown);
+  }
+
+  /**
+   * Returns the input stack buffer, valid up to the last {@link #ensureCapacity} size.
+   *
+   * @return the input stack buffer
+   */
+  public ItemStack[] stacks() {
+    return stacks;
+  }
+
+  /**
+   * Returns the input count buffer, valid up to the last {@link #ensureCapacity} size.
+   *
+   * @return the input count buffer
+   */
+  public int[] counts() {
+    return counts;
+  }
+
+  /**
+   * Makes this thread's later sorts choose engines by the given thresholds instead of the config
+   * values, until {@link #clearThresholds()} is called. Meant for tests that route sorts through
+   * specific engines without changing the server-wide configuration.
+   *
+   * @param radixSortThreshold the smallest input ordered with {@link SortEngine#RADIX}
+   * @param parallelSortThreshold the smallest input ordered with {@link SortEngine#PARALLEL}
+   */
+  public void overrideThresholds(int radixSortThreshold, int parallelSortThreshold) {
+    this.radixSortThreshold = Math.max(0, radixSortThreshold);
+    this.parallelSortThreshold = Math.max(0, parallelSortThreshold);
+  }
+
+  /** Goes back to choosing engines by the config thresholds. */
+  public void clearThresholds() {
+    radixSortThreshold = -1;
+    parallelSortThreshold = -1;
+  }
+
+  /**
+   * Chooses the engine for an input, honoring any threshold override.
+   *
+   * @param size the number of keys to sort
+   * @param method the sort method the keys were extracted for
+   * @return the engine to use
+   */
+  SortEngine engine(int size, SortMethod method) {
+    return radixSortThreshold < 0
+        ? SortEngine.select(size, method)
+        : SortEngine.select(size, method, radixSortThreshold, parallelSortThreshold);
+  }
+
+  /**
+   * Returns a bucket buffer of at least the given size, zeroed up to that size.
+   *
+   * @param size the number of buckets needed
+   * @return the bucket buffer
+   */
+  int[] buckets(int size) {
+    if (buckets.length < size) {
+      buckets = new int[Math.max(size, buckets.length * 2)];
+    } else {
+      Arrays.fill(buckets, 0, size, 0);
+    }
+    return buckets;
+  }
+
+  /**
+   * Drops the stack references, names, and phase timings held after a sort, so pooled buffers never
+   * keep them alive.
+   *
+   * @param size the number of input stacks that were sorted
+   */
+  public void release(int size) {
+    Arrays.fill(stacks, 0, size, null);
+    Arrays.fill(entryStacks, 0, size, null);
+    Arrays.fill(strings, 0, size, null);
+    groupIndex.clear();
+    phases = null;
+  }
+}
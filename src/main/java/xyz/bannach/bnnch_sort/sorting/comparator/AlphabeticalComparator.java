@@ -2,6 +2,7 @@ package xyz.bannach.bnnch_sort.sorting.comparator;
 
 import java.util.Comparator;
 import net.minecraft.world.item.ItemStack;
+import xyz.bannach.bnnch_sort.sorting.NameRankTable;
 
 /**
  * Comparator that sorts item stacks alphabetically by their display name.
@@ -22,6 +23,7 @@ import net.minecraft.world.item.ItemStack;
  *
  * @see xyz.bannach.bnnch_sort.sorting.SortMethod#ALPHABETICAL
  * @see xyz.bannach.bnnch_sort.sorting.ItemSorter
+ * @see NameRankTable
  * @since 1.0.0
  */
 public class AlphabeticalComparator implements Comparator<ItemStack> {
@@ -39,7 +41,9 @@ public class AlphabeticalComparator implements Comparator<ItemStack> {
    * Compares two item stacks by their display names.
    *
    * <p>Comparison is case-insensitive and based on the localized display name returned by {@link
-   * ItemStack#getHoverName()}.
+   * ItemStack#getHoverName()}. Uncustomized stacks are compared by their precomputed {@link
+   * NameRankTable} rank, which orders exactly like their names; other stacks fall back to {@link
+   * NameRankTable#sortName(ItemStack)}.
    *
    * @param a the first item stack to compare
    * @param b the second item stack to compare
@@ -48,7 +52,12 @@ public class AlphabeticalComparator implements Comparator<ItemStack> {
    */
   @Override
   public int compare(ItemStack a, ItemStack b) {
+    int rankA = NameRankTable.rank(a);
+    int rankB = NameRankTable.rank(b);
+    if (rankA >= 0 && rankB >= 0) {
+      return Integer.compare(rankA, rankB);
+    }
     return String.CASE_INSENSITIVE_ORDER.compare(
-        a.getHoverName().getString(), b.getHoverName().getString());
+        NameRankTable.sortName(a), NameRankTable.sortName(b));
   }
 }
@@ -1,9 +1,8 @@
 package xyz.bannach.bnnch_sort.sorting.comparator;
 
 import java.util.Comparator;
-import net.minecraft.core.registries.BuiltInRegistries;
-import net.minecraft.world.item.CreativeModeTabs;
 import net.minecraft.world.item.ItemStack;
+import xyz.bannach.bnnch_sort.sorting.CreativeTabIndex;
 
 /**
  * Comparator that sorts item stacks by their creative mode tab category.
@@ -31,6 +30,7 @@ import net.minecraft.world.item.ItemStack;
  * <p>Can be used on both client and server.
  *
  * @see xyz.bannach.bnnch_sort.sorting.SortMethod#CATEGORY
+ * @see CreativeTabIndex
  * @see xyz.bannach.bnnch_sort.sorting.ItemSorter
  * @since 1.0.0
  */
@@ -39,9 +39,6 @@ public class CategoryComparator implements Comparator<ItemStack> {
   /** Singleton instance of this comparator. */
   public static final CategoryComparator INSTANCE = new CategoryComparator();
 
-  /** Offset added to registry IDs for uncategorized items to ensure they sort last. */
-  private static final int UNCATEGORIZED_OFFSET = 1_000_000;
-
   /**
    * Private constructor to enforce singleton pattern. Use {@link #INSTANCE} to access this
    * comparator.
@@ -74,19 +71,13 @@ public class CategoryComparator implements Comparator<ItemStack> {
    * Gets the sorting index for an item based on its creative tab.
    *
    * <p>Items in creative tabs return the tab's index (0-based). Items not in any tab return {@link
-   * #UNCATEGORIZED_OFFSET} plus their registry ID to ensure consistent ordering.
+   * CreativeTabIndex#UNCATEGORIZED_OFFSET} plus their registry ID to ensure consistent ordering.
+   * The lookup is served from the precomputed {@link CreativeTabIndex} table.
    *
    * @param stack the item stack to get the tab index for
    * @return the tab index, or a large value for uncategorized items
    */
   private static int getTabIndex(ItemStack stack) {
-    var tabs = CreativeModeTabs.allTabs();
-    for (int i = 0; i < tabs.size(); i++) {
-      if (tabs.get(i).contains(stack)) {
-        return i;
-      }
-    }
-    // Uncategorized items sort last, ordered by registry ID
-    return UNCATEGORIZED_OFFSET + BuiltInRegistries.ITEM.getId(stack.getItem());
+    return CreativeTabIndex.tabIndex(stack);
   }
 }
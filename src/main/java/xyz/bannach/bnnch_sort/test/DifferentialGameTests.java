@@ -0,0 +1,228 @@
+package xyz.bannach.bnnch_sort.test;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenCustomHashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.minecraft.core.component.DataComponents;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.SimpleContainer;
+import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.ItemStackLinkedSet;
+import net.minecraft.world.item.Items;
+import net.neoforged.neoforge.gametest.GameTestHolder;
+import net.neoforged.neoforge.gametest.PrefixGameTestTemplate;
+import xyz.bannach.bnnch_sort.sorting.LockedSlots;
+import xyz.bannach.bnnch_sort.sorting.SlotSorter;
+import xyz.bannach.bnnch_sort.sorting.SortMethod;
+import xyz.bannach.bnnch_sort.sorting.SortOrder;
+import xyz.bannach.bnnch_sort.sorting.SortPreference;
+import xyz.bannach.bnnch_sort.sorting.SortScratch;
+
+/**
+ * Game tests that compare the optimized sorting pipeline against {@link ReferenceItemSorter}.
+ *
+ * <p>Each case builds a seeded inventory from {@link InventoryGenerator}, mixes in unstackable
+ * items and partial copies of earlier stacks so merges and ties are common, locks random slots,
+ * and picks a random sort method, order, and sort engine. The case passes when {@link
+ * SlotSorter#sort} leaves exactly the layout the reference computes, holding exactly the same
+ * items, both for the first sort and for sorting the result again.
+ *
+ * <p>The test runs on the headless GameTest server. The number of cases and the first seed are
+ * read from system properties, which {@code runGameTestServer} passes on from Gradle properties of
+ * the same name:
+ *
+ * <ul>
+ *   <li>{@code bnnch_sort.diff.cases} - Number of cases (default 2000)
+ *   <li>{@code bnnch_sort.diff.seed} - Seed of the first case (default {@link
+ *       InventoryGenerator#SEED}); case {@code n} uses the first seed plus {@code n}
+ * </ul>
+ *
+ * <p>A failure names the seed of the failing case, so it can be replayed on its own:
+ *
+ * <pre>{@code
+ * ./gradlew.bat runGameTestServer -Pbnnch_sort.diff.seed=<seed> -Pbnnch_sort.diff.cases=1
+ * }</pre>
+ *
+ * @see ReferenceItemSorter
+ * @since 1.2.0
+ */
+@GameTestHolder("bnnch_sort")
+@PrefixGameTestTemplate(false)
+public class DifferentialGameTests {
+
+  /** Items with a maximum stack size of 1, mixed into every case. */
+  private static final Item[] UNSTACKABLE = {
+    Items.DIAMOND_SWORD, Items.IRON_PICKAXE, Items.TOTEM_OF_UNDYING, Items.WATER_BUCKET
+  };
+
+  /** Private constructor to prevent instantiation of this test class. */
+  private DifferentialGameTests() {}
+
+  /**
+   * Tests that sorting slots gives the reference layout and conserves items across seeded cases.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void slot_sorter_matches_reference(GameTestHelper helper) {
+    int cases = Integer.getInteger("bnnch_sort.diff.cases", 2000);
+    long seed = Long.getLong("bnnch_sort.diff.seed", InventoryGenerator.SEED);
+    SortScratch scratch = SortScratch.get();
+    try {
+      for (int i = 0; i < cases; i++) {
+        String failure = runCase(seed + i, scratch);
+        helper.assertTrue(failure == null, "Case with seed " + (seed + i) + ": " + failure);
+      }
+    } finally {
+      scratch.clearThresholds();
+    }
+    helper.succeed();
+  }
+
+  /**
+   * Runs one case.
+   *
+   * @param seed the case's seed
+   * @param scratch the test thread's scratch, whose engine thresholds the case overrides
+   * @return a description of the first difference, or null if the case passed
+   */
+  private static String runCase(long seed, SortScratch scratch) {
+    Random random = new Random(seed);
+    int size =
+        random.nextInt(20) == 0
+            ? LockedSlots.CAPACITY + random.nextInt(1000)
+            : 1 + random.nextInt(LockedSlots.CAPACITY);
+    InventoryGenerator.Workload[] workloads = InventoryGenerator.Workload.values();
+    List<ItemStack> contents =
+        new ArrayList<>(
+            InventoryGenerator.generate(
+                size, workloads[random.nextInt(workloads.length)], random.nextLong()));
+    mixIn(contents, random);
+
+    LockedSlots lockedSlots =
+        random.nextInt(4) == 0 ? LockedSlots.EMPTY : new LockedSlots(random.nextLong());
+    SortPreference preference =
+        new SortPreference(
+            SortMethod.values()[random.nextInt(SortMethod.values().length)],
+            SortOrder.values()[random.nextInt(SortOrder.values().length)]);
+
+    // Route the sort through each engine, down to the smallest sizes they accept, on this thread
+    // only so sorts elsewhere on the server keep the configured engines
+    switch (random.nextInt(3)) {
+      case 0 -> scratch.clearThresholds();
+      case 1 -> scratch.overrideThresholds(0, Integer.MAX_VALUE);
+      default -> scratch.overrideThresholds(0, 0);
+    }
+
+    SimpleContainer container = new SimpleContainer(size);
+    List<Slot> slots = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      container.setItem(i, contents.get(i).copy());
+      slots.add(new Slot(container, i, 0, 0));
+    }
+
+    String failure = check("First sort", contents, slots, lockedSlots, preference);
+    if (failure != null) {
+      return failure;
+    }
+    List<ItemStack> sorted = new ArrayList<>(size);
+    for (Slot slot : slots) {
+      sorted.add(slot.getItem().copy());
+    }
+    return check("Second sort", sorted, slots, lockedSlots, preference);
+  }
+
+  /**
+   * Sorts the slots and compares them with the reference.
+   *
+   * @param pass the name of the sort, for the failure description
+   * @param contents the slots' contents before the sort
+   * @param slots the slots to sort
+   * @param lockedSlots the locked slots
+   * @param preference the sorting preferences containing method and order
+   * @return a description of the first difference, or null if there is none
+   */
+  private static String check(
+      String pass,
+      List<ItemStack> contents,
+      List<Slot> slots,
+      LockedSlots lockedSlots,
+      SortPreference preference) {
+    List<ItemStack> expected = ReferenceItemSorter.sortSlots(contents, lockedSlots, preference);
+    SlotSorter.sort(slots, lockedSlots, preference);
+
+    List<ItemStack> actual = new ArrayList<>(slots.size());
+    for (Slot slot : slots) {
+      actual.add(slot.getItem());
+    }
+    for (int i = 0; i < slots.size(); i++) {
+      if (!ItemStack.matches(expected.get(i), actual.get(i))) {
+        return pass
+            + " with "
+            + preference
+            + ", slot "
+            + i
+            + ": expected "
+            + expected.get(i)
+            + ", got "
+            + actual.get(i);
+      }
+    }
+
+    Object2IntOpenCustomHashMap<ItemStack> before = tally(contents);
+    Object2IntOpenCustomHashMap<ItemStack> after = tally(actual);
+    if (!before.equals(after)) {
+      return pass + " with " + preference + " changed item counts from " + before + " to " + after;
+    }
+    return null;
+  }
+
+  /**
+   * Replaces random slots with unstackable items and partial copies of earlier stacks.
+   *
+   * @param contents the slot contents to modify
+   * @param random the case's random source
+   */
+  private static void mixIn(List<ItemStack> contents, Random random) {
+    for (int i = 0; i < contents.size(); i++) {
+      double roll = random.nextDouble();
+      if (roll < 0.1) {
+        ItemStack stack = new ItemStack(UNSTACKABLE[random.nextInt(UNSTACKABLE.length)]);
+        if (stack.isDamageableItem() && random.nextBoolean()) {
+          stack.setDamageValue(random.nextInt(stack.getMaxDamage()));
+        }
+        if (random.nextInt(4) == 0) {
+          stack.set(DataComponents.CUSTOM_NAME, Component.literal("Relic"));
+        }
+        contents.set(i, stack);
+      } else if (roll < 0.3 && i > 0) {
+        ItemStack source = contents.get(random.nextInt(i));
+        if (!source.isEmpty()) {
+          contents.set(i, source.copyWithCount(1 + random.nextInt(source.getMaxStackSize())));
+        }
+      }
+    }
+  }
+
+  /**
+   * Counts the items of each item and component combination.
+   *
+   * @param stacks the stacks to count
+   * @return the total count per combination
+   */
+  private static Object2IntOpenCustomHashMap<ItemStack> tally(List<ItemStack> stacks) {
+    Object2IntOpenCustomHashMap<ItemStack> counts =
+        new Object2IntOpenCustomHashMap<>(ItemStackLinkedSet.TYPE_AND_TAG);
+    for (ItemStack stack : stacks) {
+      if (!stack.isEmpty()) {
+        counts.addTo(stack.copyWithCount(1), stack.getCount());
+      }
+    }
+    return counts;
+  }
+}
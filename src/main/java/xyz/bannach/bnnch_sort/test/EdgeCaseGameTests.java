@@ -1,10 +1,16 @@
 package xyz.bannach.bnnch_sort.test;
 
+import io.netty.buffer.Unpooled;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.component.DataComponents;
 import net.minecraft.gametest.framework.GameTest;
 import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.chat.Component;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.inventory.ChestMenu;
 import net.minecraft.world.inventory.CraftingMenu;
@@ -17,7 +23,12 @@ import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.entity.ChestBlockEntity;
 import net.neoforged.neoforge.gametest.GameTestHolder;
 import net.neoforged.neoforge.gametest.PrefixGameTestTemplate;
+import xyz.bannach.bnnch_sort.metrics.LatencyHistogram;
+import xyz.bannach.bnnch_sort.network.SortSyncPayload;
 import xyz.bannach.bnnch_sort.server.SortHandler;
+import xyz.bannach.bnnch_sort.server.SortRequestLimiter;
+import xyz.bannach.bnnch_sort.server.SortRequestLimiter.Decision;
+import xyz.bannach.bnnch_sort.server.SortScheduler;
 import xyz.bannach.bnnch_sort.sorting.ItemSorter;
 import xyz.bannach.bnnch_sort.sorting.SortPreference;
 
@@ -329,4 +340,167 @@ public class EdgeCaseGameTests {
 
     helper.succeed();
   }
+
+  /**
+   * Tests that repeated sort requests are merged while queued and stale requests are dropped.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void sort_requests_merge_and_drop_stale(GameTestHelper helper) {
+    UUID player = UUID.randomUUID();
+    int container = SortHandler.REGION_CONTAINER;
+
+    helper.assertTrue(
+        SortRequestLimiter.admit(player, container, 1) == Decision.ACCEPT,
+        "First request should be accepted");
+    helper.assertTrue(
+        SortRequestLimiter.admit(player, container, 2) == Decision.MERGE,
+        "Request for a region with a queued sort should be merged");
+    helper.assertTrue(
+        SortRequestLimiter.admit(player, SortHandler.REGION_PLAYER_MAIN, 3) == Decision.ACCEPT,
+        "Request for another region should be accepted");
+    helper.assertTrue(
+        SortRequestLimiter.admit(player, container, 3) == Decision.DROP,
+        "Duplicate sequence number should be dropped");
+
+    SortRequestLimiter.complete(player, container);
+    helper.assertTrue(
+        SortRequestLimiter.admit(player, container, 2) == Decision.DROP,
+        "Stale sequence number should be dropped");
+    helper.assertTrue(
+        SortRequestLimiter.admit(player, container, 4) == Decision.ACCEPT,
+        "Request after the queued sort started should be accepted");
+    helper.assertTrue(
+        SortRequestLimiter.admit(player, 7, 5) == Decision.DROP,
+        "Request for an unknown region should be dropped");
+
+    SortRequestLimiter.forget(player);
+    helper.succeed();
+  }
+
+  /**
+   * Tests that the per-tick sort budget shrinks as the average tick time rises past the threshold.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void sort_budget_shrinks_under_load(GameTestHelper helper) {
+    long idle = SortScheduler.budgetNanos(5.0, 10.0, 40.0, 50.0);
+    long busy = SortScheduler.budgetNanos(5.0, 45.0, 40.0, 50.0);
+    long overloaded = SortScheduler.budgetNanos(5.0, 60.0, 40.0, 50.0);
+
+    helper.assertTrue(idle == 5_000_000L, "Idle server should get the full budget, got " + idle);
+    helper.assertTrue(
+        busy == 2_500_000L, "Budget should halve halfway to a full tick, got " + busy);
+    helper.assertTrue(
+        overloaded == 0L, "Overloaded server should get no budget, got " + overloaded);
+
+    helper.succeed();
+  }
+
+  /**
+   * Tests that a queued sort that throws does not stop the sorts queued after it.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void sort_scheduler_survives_failing_sort(GameTestHelper helper) {
+    AtomicBoolean ran = new AtomicBoolean();
+    SortScheduler.submit(
+        SortScheduler.Priority.INTERACTIVE,
+        () -> {
+          throw new IllegalStateException("Slot rejected the stack");
+        });
+    SortScheduler.submit(SortScheduler.Priority.INTERACTIVE, () -> ran.set(true));
+
+    SortScheduler.tick(helper.getLevel().getServer());
+    helper.assertTrue(ran.get(), "The sort after a failing sort should still run");
+
+    helper.succeed();
+  }
+
+  /**
+   * Tests that a sort sync payload survives encoding, sending moves as slot references and only
+   * full stacks in full.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void sort_sync_payload_round_trips(GameTestHelper helper) {
+    ItemStack named = new ItemStack(Items.DIAMOND_SWORD);
+    named.set(DataComponents.CUSTOM_NAME, Component.literal("Blade"));
+    SortSyncPayload payload =
+        new SortSyncPayload(
+            3,
+            17,
+            41,
+            42,
+            List.of(
+                SortSyncPayload.Change.move(0, 5, 64),
+                SortSyncPayload.Change.full(1, named),
+                SortSyncPayload.Change.full(2, ItemStack.EMPTY)));
+
+    RegistryFriendlyByteBuf moveOnly =
+        new RegistryFriendlyByteBuf(Unpooled.buffer(), helper.getLevel().registryAccess());
+    SortSyncPayload.STREAM_CODEC.encode(
+        moveOnly,
+        new SortSyncPayload(3, 17, 41, 42, List.of(SortSyncPayload.Change.move(0, 5, 64))));
+    helper.assertTrue(
+        moveOnly.readableBytes() <= 12,
+        "A move should take a few bytes, took " + moveOnly.readableBytes());
+
+    RegistryFriendlyByteBuf buffer =
+        new RegistryFriendlyByteBuf(Unpooled.buffer(), helper.getLevel().registryAccess());
+    SortSyncPayload.STREAM_CODEC.encode(buffer, payload);
+    SortSyncPayload decoded = SortSyncPayload.STREAM_CODEC.decode(buffer);
+    helper.assertTrue(
+        decoded.containerId() == 3
+            && decoded.sequence() == 17
+            && decoded.previousStateId() == 41
+            && decoded.stateId() == 42,
+        "Menu, sequence, and state IDs should survive encoding");
+    helper.assertTrue(decoded.changes().size() == 3, "All changes should survive encoding");
+    SortSyncPayload.Change move = decoded.changes().get(0);
+    helper.assertTrue(
+        move.slot() == 0 && move.source() == 5 && move.count() == 64,
+        "A move should keep its slot, source, and count");
+    SortSyncPayload.Change full = decoded.changes().get(1);
+    helper.assertTrue(
+        full.source() == -1 && ItemStack.matches(full.stack(), named),
+        "A full stack should keep its components");
+    helper.assertTrue(
+        decoded.changes().get(2).stack().isEmpty(), "An emptied slot should decode as empty");
+
+    helper.succeed();
+  }
+
+  /**
+   * Tests that the latency histogram reports percentiles within a bucket of the recorded values.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void latency_histogram_reports_percentiles(GameTestHelper helper) {
+    LatencyHistogram histogram = new LatencyHistogram();
+    helper.assertTrue(
+        histogram.count() == 0 && histogram.percentile(50) == 0 && histogram.max() == 0,
+        "An empty histogram should report zero");
+
+    // 1..1000 microseconds, one of each
+    for (long micros = 1; micros <= 1000; micros++) {
+      histogram.record(micros * 1000);
+    }
+    long p50 = histogram.percentile(50);
+    long p99 = histogram.percentile(99);
+    helper.assertTrue(histogram.count() == 1000, "Every duration should be counted");
+    helper.assertTrue(
+        p50 >= 500_000 && p50 <= 625_000, "p50 should be within 25% above 500us, was " + p50);
+    helper.assertTrue(
+        p99 >= 990_000 && p99 <= 1_000_000, "p99 should be capped at the maximum, was " + p99);
+    helper.assertTrue(histogram.max() == 1_000_000, "Max should be the longest duration");
+    helper.assertTrue(histogram.percentile(100) == histogram.max(), "p100 should be the maximum");
+
+    helper.succeed();
+  }
 }
@@ -0,0 +1,164 @@
+package xyz.bannach.bnnch_sort.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import net.minecraft.core.component.DataComponents;
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.component.ItemLore;
+
+/**
+ * Generates synthetic inventories for benchmarks from a seed.
+ *
+ * <p>Each inventory draws its items from a palette chosen by the seed out of a fixed list of
+ * vanilla items, so the same seed and workload always give the same inventory, whatever other mods
+ * are installed. A {@link Workload} sets how many slots are empty, how many stacks are partial, and
+ * how many carry components.
+ *
+ * <h2>Side: Common</h2>
+ *
+ * <p>Used by the benchmarks in {@code src/jmh} and by GameTests. Requires bootstrapped registries.
+ *
+ * @since 1.2.0
+ */
+public final class InventoryGenerator {
+
+  /** Seed used by the benchmarks, so every run sorts the same inventories. */
+  public static final long SEED = 0x5EED_B4C4L;
+
+  /** Number of distinct custom names, so named stacks still merge with some others. */
+  private static final int NAMES = 8;
+
+  /**
+   * Vanilla items palettes are chosen from, in a fixed order: blocks, materials, and food that
+   * stack to 64, items that stack to 16, and unstackable tools, armor, and other gear.
+   */
+  private static final Item[] ITEMS = {
+    Items.STONE, Items.COBBLESTONE, Items.DEEPSLATE, Items.DIRT,
+    Items.GRASS_BLOCK, Items.SAND, Items.GRAVEL, Items.OAK_LOG,
+    Items.SPRUCE_LOG, Items.BIRCH_PLANKS, Items.OAK_PLANKS, Items.GLASS,
+    Items.BRICKS, Items.TORCH, Items.STICK, Items.COAL,
+    Items.CHARCOAL, Items.RAW_IRON, Items.IRON_INGOT, Items.RAW_GOLD,
+    Items.GOLD_INGOT, Items.COPPER_INGOT, Items.DIAMOND, Items.EMERALD,
+    Items.LAPIS_LAZULI, Items.REDSTONE, Items.QUARTZ, Items.FLINT,
+    Items.STRING, Items.LEATHER, Items.FEATHER, Items.GUNPOWDER,
+    Items.BONE, Items.ROTTEN_FLESH, Items.SPIDER_EYE, Items.WHEAT,
+    Items.WHEAT_SEEDS, Items.BREAD, Items.APPLE, Items.CARROT,
+    Items.POTATO, Items.COOKED_BEEF, Items.ARROW, Items.PAPER,
+    Items.BOOK, Items.WHITE_WOOL, Items.OBSIDIAN, Items.HOPPER,
+    Items.ENDER_PEARL, Items.SNOWBALL, Items.EGG, Items.OAK_SIGN,
+    Items.BUCKET, Items.HONEY_BOTTLE, Items.ARMOR_STAND, Items.WHITE_BANNER,
+    Items.DIAMOND_SWORD, Items.IRON_PICKAXE, Items.STONE_SHOVEL, Items.GOLDEN_AXE,
+    Items.BOW, Items.SHIELD, Items.IRON_HELMET, Items.DIAMOND_CHESTPLATE,
+    Items.LEATHER_BOOTS, Items.FISHING_ROD, Items.SHEARS, Items.WATER_BUCKET,
+    Items.ENCHANTED_BOOK, Items.TOTEM_OF_UNDYING, Items.SADDLE, Items.MUSIC_DISC_CAT
+  };
+
+  /** Private constructor to prevent instantiation. */
+  private InventoryGenerator() {}
+
+  /** The shape of a generated inventory. */
+  public enum Workload {
+    /** A lived-in inventory: some empty slots, some partial stacks, few components. */
+    TYPICAL(0.3, 0.3, 0.05, 48),
+
+    /** Mostly partial stacks of few items, as after picking up mined blocks. */
+    PARTIAL_HEAVY(0.1, 0.9, 0.0, 24),
+
+    /** Mostly named, damaged, or annotated stacks, as in a gear or loot chest. */
+    COMPONENT_HEAVY(0.1, 0.3, 0.8, 48);
+
+    /** Fraction of slots left empty. */
+    private final double emptyFraction;
+
+    /** Fraction of stacks below their maximum size. */
+    private final double partialFraction;
+
+    /** Fraction of stacks carrying components. */
+    private final double componentFraction;
+
+    /** Number of distinct items to draw from. */
+    private final int palette;
+
+    /**
+     * Creates a workload.
+     *
+     * @param emptyFraction the fraction of slots left empty
+     * @param partialFraction the fraction of stacks below their maximum size
+     * @param componentFraction the fraction of stacks carrying components
+     * @param palette the number of distinct items to draw from
+     */
+    Workload(double emptyFraction, double partialFraction, double componentFraction, int palette) {
+      this.emptyFraction = emptyFraction;
+      this.partialFraction = partialFraction;
+      this.componentFraction = componentFraction;
+      this.palette = palette;
+    }
+  }
+
+  /**
+   * Generates an inventory.
+   *
+   * @param slots the number of slots
+   * @param workload the shape of the inventory
+   * @param seed the seed
+   * @return the slot contents, in slot order
+   */
+  public static List<ItemStack> generate(int slots, Workload workload, long seed) {
+    Random random = new Random(seed);
+    Item[] palette = palette(workload.palette, random);
+    List<ItemStack> stacks = new ArrayList<>(slots);
+    for (int i = 0; i < slots; i++) {
+      if (random.nextDouble() < workload.emptyFraction) {
+        stacks.add(ItemStack.EMPTY);
+        continue;
+      }
+      ItemStack stack = new ItemStack(palette[random.nextInt(palette.length)]);
+      int max = stack.getMaxStackSize();
+      boolean partial = max > 1 && random.nextDouble() < workload.partialFraction;
+      stack.setCount(partial ? 1 + random.nextInt(max - 1) : max);
+      if (random.nextDouble() < workload.componentFraction) {
+        addComponents(stack, random);
+      }
+      stacks.add(stack);
+    }
+    return stacks;
+  }
+
+  /**
+   * Chooses the distinct items an inventory is drawn from.
+   *
+   * @param size the number of items, at most the length of {@link #ITEMS}
+   * @param random the seeded random source
+   * @return the items
+   */
+  private static Item[] palette(int size, Random random) {
+    Item[] items = ITEMS.clone();
+    for (int i = 0; i < size; i++) {
+      int j = i + random.nextInt(items.length - i);
+      Item item = items[j];
+      items[j] = items[i];
+      items[i] = item;
+    }
+    return Arrays.copyOf(items, size);
+  }
+
+  /**
+   * Adds a custom name and lore to a stack, and damage if it can be damaged.
+   *
+   * @param stack the stack to modify
+   * @param random the seeded random source
+   */
+  private static void addComponents(ItemStack stack, Random random) {
+    int name = random.nextInt(NAMES);
+    stack.set(DataComponents.CUSTOM_NAME, Component.literal("Item " + name));
+    stack.set(DataComponents.LORE, new ItemLore(List.of(Component.literal("Batch " + name))));
+    if (stack.isDamageableItem()) {
+      stack.setDamageValue(random.nextInt(stack.getMaxDamage()));
+    }
+  }
+}
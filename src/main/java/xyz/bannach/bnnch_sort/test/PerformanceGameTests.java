@@ -0,0 +1,470 @@
+package xyz.bannach.bnnch_sort.test;
+
+import com.google.gson.JsonObject;
+import com.mojang.logging.LogUtils;
+import com.sun.management.ThreadMXBean;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.world.CompoundContainer;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.ChestMenu;
+import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.GameType;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.ChestBlockEntity;
+import net.neoforged.fml.ModList;
+import net.neoforged.neoforge.gametest.GameTestHolder;
+import net.neoforged.neoforge.gametest.PrefixGameTestTemplate;
+import net.neoforged.neoforge.items.ItemStackHandler;
+import net.neoforged.neoforge.items.SlotItemHandler;
+import org.slf4j.Logger;
+import xyz.bannach.bnnch_sort.BnnchSort;
+import xyz.bannach.bnnch_sort.ModAttachments;
+import xyz.bannach.bnnch_sort.metrics.SortMetrics;
+import xyz.bannach.bnnch_sort.server.SortHandler;
+import xyz.bannach.bnnch_sort.server.SortScheduler;
+import xyz.bannach.bnnch_sort.sorting.LockedSlots;
+
+/**
+ * Game tests that hold sorting of large inventories to wall time and allocation budgets.
+ *
+ * <p>Each test sorts a freshly scrambled inventory many times through {@link SortHandler}, and
+ * asserts that the 99th percentile wall time and the mean allocation of one sort stay
+ * within budget. Inventories come from {@link InventoryGenerator}, so every run sorts the same
+ * contents.
+ *
+ * <h2>Test Categories</h2>
+ *
+ * <ul>
+ *   <li>Double chests - 54 slots through a vanilla chest menu
+ *   <li>Item handler menus - Thousands of {@link SlotItemHandler} slots, as in storage mods
+ *   <li>Locked inventories - Player inventories that are partly or fully locked
+ * </ul>
+ *
+ * <h2>Budgets</h2>
+ *
+ * <p>Budgets scale with the number of slots and are read from system properties, which {@code
+ * runGameTestServer} passes on from Gradle properties of the same name:
+ *
+ * <ul>
+ *   <li>{@code bnnch_sort.perf.iterations} - Measured sorts per test (default 200)
+ *   <li>{@code bnnch_sort.perf.warmup} - Unmeasured sorts before them (default 50)
+ *   <li>{@code bnnch_sort.perf.budget.baseMicros} and {@code
+ *       bnnch_sort.perf.budget.nanosPerSlot} - Wall time budget (default 2 ms plus 2 µs per slot)
+ *   <li>{@code bnnch_sort.perf.budget.baseBytes} and {@code bnnch_sort.perf.budget.bytesPerSlot}
+ *       - Allocation budget (default 16 KiB plus 512 bytes per slot)
+ *   <li>{@code bnnch_sort.perf.handlerSlots} - Slots of the item handler menu (default 4096)
+ *   <li>{@code bnnch_sort.perf.results} - Results file (default {@code
+ *       bnnch_sort-perf-results.jsonl} in the server directory)
+ * </ul>
+ *
+ * <p>Container sorts are timed from the request until the sorted result is written, so a region
+ * large enough to be planned on {@link xyz.bannach.bnnch_sort.server.SortWorkers} includes the
+ * wait for the worker and the {@link SortScheduler} tasks that snapshot and apply it. Allocations
+ * are only counted on the server thread.
+ *
+ * <p>After the warmup, the sort's scratch buffers have grown to size, so a sort only allocates per
+ * slot: the copy written to each changed slot, the menu's copy for its listeners, the captured
+ * layout, and for off-thread sorts the snapshot's copy of each stack. That comes to under 256 bytes
+ * per slot; the default allocation budget allows twice that, and the base covers the per-sort
+ * lists, tasks, and events. Compare {@code meanAllocatedBytes} in the results file before changing
+ * it.
+ *
+ * <h2>Results</h2>
+ *
+ * <p>Every test appends one JSON object per line to the results file, whether it passes or not,
+ * with the mod and game versions, so results can be compared across releases.
+ *
+ * <h2>Running Tests</h2>
+ *
+ * <pre>{@code ./gradlew.bat runGameTestServer -Pbnnch_sort.perf.iterations=500}</pre>
+ *
+ * @see InventoryGenerator
+ * @see SortHandler
+ * @since 1.2.0
+ */
+@GameTestHolder("bnnch_sort")
+@PrefixGameTestTemplate(false)
+public class PerformanceGameTests {
+
+  /** Prefix of every system property read by these tests. */
+  private static final String PROPERTY_PREFIX = "bnnch_sort.perf.";
+
+  /** Number of distinct scrambled layouts each test cycles through. */
+  private static final int LAYOUTS = 8;
+
+  /** Seconds a container sort may take to finish before the test fails. */
+  private static final int DRAIN_TIMEOUT_SECONDS = 10;
+
+  /** Allocation counter of the current thread, or null if the JVM does not provide one. */
+  private static final ThreadMXBean THREADS = threads();
+
+  /** Logger instance for this class. */
+  private static final Logger LOGGER = LogUtils.getLogger();
+
+  /** Private constructor to prevent instantiation of this test class. */
+  private PerformanceGameTests() {}
+  /**
+   * Tests that a double chest sorts within budget.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void double_chest_sorts_within_budget(GameTestHelper helper) {
+    ServerPlayer player = helper.makeMockServerPlayerInLevel();
+    BlockPos leftPos = new BlockPos(1, 1, 1);
+    BlockPos rightPos = new BlockPos(2, 1, 1);
+    helper.setBlock(leftPos, Blocks.CHEST);
+    helper.setBlock(rightPos, Blocks.CHEST);
+    ChestBlockEntity left = helper.getBlockEntity(leftPos);
+    ChestBlockEntity right = helper.getBlockEntity(rightPos);
+    ChestMenu menu =
+        ChestMenu.sixRows(0, player.getInventory(), new CompoundContainer(left, right));
+
+    List<Slot> slots = SortHandler.getTargetSlots(menu, SortHandler.REGION_CONTAINER);
+    helper.assertTrue(slots.size() == 54, "A double chest should have 54 sortable slots");
+    measureContainer(
+        helper, "double_chest", player, menu, slots, InventoryGenerator.Workload.COMPONENT_HEAVY);
+  }
+
+  /**
+   * Tests that a modded-style menu with thousands of item handler slots sorts within budget.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void item_handler_menu_sorts_within_budget(GameTestHelper helper) {
+    ServerPlayer player = helper.makeMockServerPlayerInLevel();
+    int size = Integer.getInteger(PROPERTY_PREFIX + "handlerSlots", 4096);
+    HandlerMenu menu = new HandlerMenu(player.getInventory(), new ItemStackHandler(size));
+
+    List<Slot> slots = SortHandler.getTargetSlots(menu, SortHandler.REGION_CONTAINER);
+    helper.assertTrue(
+        slots.size() == size, "Every item handler slot should be sortable, got " + slots.size());
+    measureContainer(
+        helper, "item_handler_menu", player, menu, slots, InventoryGenerator.Workload.TYPICAL);
+  }
+
+  /**
+   * Tests that a fully locked player inventory is skipped within budget.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void fully_locked_inventory_sorts_within_budget(GameTestHelper helper) {
+    Player player = helper.makeMockPlayer(GameType.SURVIVAL);
+    player.setData(ModAttachments.LOCKED_SLOTS, new LockedSlots((1L << 36) - 1));
+    measureInventory(helper, "fully_locked_inventory", player);
+  }
+
+  /**
+   * Tests that a player inventory with every third slot locked sorts within budget, topping up
+   * locked partial stacks along the way.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void partly_locked_inventory_sorts_within_budget(GameTestHelper helper) {
+    Player player = helper.makeMockPlayer(GameType.SURVIVAL);
+    LockedSlots locked = LockedSlots.EMPTY;
+    for (int slot = 0; slot < 36; slot += 3) {
+      locked = locked.toggle(slot);
+    }
+    player.setData(ModAttachments.LOCKED_SLOTS, locked);
+    measureInventory(helper, "partly_locked_inventory", player);
+  }
+
+  /**
+   * Measures container sorts through {@link SortHandler#sortContainer}, queued on {@link
+   * SortScheduler} like a player's request and run until the result is written.
+   *
+   * @param helper the game test helper
+   * @param name the scenario name written to the results
+   * @param player the player who has the menu open
+   * @param menu the menu to open
+   * @param slots the container region's slots
+   * @param workload the shape of the scrambled inventories
+   */
+  private static void measureContainer(
+      GameTestHelper helper,
+      String name,
+      ServerPlayer player,
+      AbstractContainerMenu menu,
+      List<Slot> slots,
+      InventoryGenerator.Workload workload) {
+    player.containerMenu = menu;
+    MinecraftServer server = helper.getLevel().getServer();
+    List<List<ItemStack>> layouts = layouts(slots.size(), workload);
+    measure(
+        helper,
+        name,
+        slots.size(),
+        iteration -> fill(slots, layouts.get(iteration % LAYOUTS)),
+        () -> {
+          long sorted = SortMetrics.sorts(SortHandler.REGION_CONTAINER) + 1;
+          SortScheduler.submit(
+              SortScheduler.Priority.INTERACTIVE, () -> SortHandler.sortContainer(player));
+          drain(helper, server, sorted);
+        });
+    player.containerMenu = player.inventoryMenu;
+  }
+
+  /**
+   * Runs scheduled sort tasks, waiting for workers in between, until a container sort has finished.
+   *
+   * @param helper the game test helper
+   * @param server the server
+   * @param sorted the number of container sorts counted once it has finished
+   */
+  private static void drain(GameTestHelper helper, MinecraftServer server, long sorted) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_TIMEOUT_SECONDS);
+    while (SortMetrics.sorts(SortHandler.REGION_CONTAINER) < sorted) {
+      if (System.nanoTime() > deadline) {
+        helper.fail("A container sort did not finish within " + DRAIN_TIMEOUT_SECONDS + " seconds");
+      }
+      if (SortScheduler.pending() > 0) {
+        SortScheduler.tick(server);
+      } else {
+        Thread.onSpinWait();
+      }
+    }
+  }
+
+  /**
+   * Measures sorts of a player's main inventory and hotbar through {@link SortHandler#sortRegion}.
+   *
+   * @param helper the game test helper
+   * @param name the scenario name written to the results
+   * @param player the player whose inventory is sorted, with their locked slots set
+   */
+  private static void measureInventory(GameTestHelper helper, String name, Player player) {
+    AbstractContainerMenu menu = player.inventoryMenu;
+    List<Slot> main = SortHandler.getTargetSlots(menu, SortHandler.REGION_PLAYER_MAIN);
+    List<Slot> hotbar = SortHandler.getTargetSlots(menu, SortHandler.REGION_PLAYER_HOTBAR);
+    List<Slot> slots = new ArrayList<>(main);
+    slots.addAll(hotbar);
+    List<List<ItemStack>> layouts = layouts(slots.size(), InventoryGenerator.Workload.TYPICAL);
+    measure(
+        helper,
+        name,
+        slots.size(),
+        iteration -> fill(slots, layouts.get(iteration % LAYOUTS)),
+        () -> {
+          SortHandler.sortRegion(player, menu, SortHandler.REGION_PLAYER_MAIN);
+          SortHandler.sortRegion(player, menu, SortHandler.REGION_PLAYER_HOTBAR);
+        });
+  }
+
+  /**
+   * Runs a sort many times, writes the results, and asserts they are within budget.
+   *
+   * @param helper the game test helper
+   * @param name the scenario name written to the results
+   * @param slots the number of slots each sort covers
+   * @param scramble refills the slots before each sort, unmeasured
+   * @param sort performs one sort
+   */
+  private static void measure(
+      GameTestHelper helper, String name, int slots, Scramble scramble, Runnable sort) {
+    int warmup = Integer.getInteger(PROPERTY_PREFIX + "warmup", 50);
+    int iterations = Math.max(1, Integer.getInteger(PROPERTY_PREFIX + "iterations", 200));
+    long[] nanos = new long[iterations];
+    long allocated = 0;
+    for (int i = -warmup; i < iterations; i++) {
+      scramble.fill(i + warmup);
+      long bytesBefore = allocatedBytes();
+      long start = System.nanoTime();
+      sort.run();
+      long elapsed = System.nanoTime() - start;
+      long bytes = allocatedBytes() - bytesBefore;
+      if (i >= 0) {
+        nanos[i] = elapsed;
+        allocated += bytes;
+      }
+    }
+    Arrays.sort(nanos);
+
+    long p50 = nanos[(iterations - 1) / 2];
+    long p99 = nanos[(int) Math.ceil(iterations * 0.99) - 1];
+    long meanBytes = THREADS == null ? -1 : allocated / iterations;
+    long timeBudget =
+        TimeUnit.MICROSECONDS.toNanos(Long.getLong(PROPERTY_PREFIX + "budget.baseMicros", 2_000))
+            + Long.getLong(PROPERTY_PREFIX + "budget.nanosPerSlot", 2_000) * slots;
+    long byteBudget =
+        Long.getLong(PROPERTY_PREFIX + "budget.baseBytes", 16 * 1024)
+            + Long.getLong(PROPERTY_PREFIX + "budget.bytesPerSlot", 512) * slots;
+    boolean withinTime = p99 <= timeBudget;
+    boolean withinBytes = meanBytes <= byteBudget;
+
+    JsonObject result = new JsonObject();
+    result.addProperty("test", name);
+    result.addProperty("timestamp", Instant.now().toString());
+    result.addProperty("modVersion", modVersion());
+    result.addProperty("minecraftVersion", SharedConstants.getCurrentVersion().getName());
+    result.addProperty("slots", slots);
+    result.addProperty("sorts", iterations);
+    result.addProperty("p50Nanos", p50);
+    result.addProperty("p99Nanos", p99);
+    result.addProperty("maxNanos", nanos[iterations - 1]);
+    result.addProperty("meanAllocatedBytes", meanBytes);
+    result.addProperty("timeBudgetNanos", timeBudget);
+    result.addProperty("allocationBudgetBytes", byteBudget);
+    result.addProperty("passed", withinTime && withinBytes);
+    writeResult(result);
+
+    helper.assertTrue(
+        withinTime,
+        name + ": p99 sort took " + p99 + " ns, over the budget of " + timeBudget + " ns");
+    helper.assertTrue(
+        withinBytes,
+        name + ": a sort allocated " + meanBytes + " bytes, over the budget of " + byteBudget);
+    helper.succeed();
+  }
+
+  /**
+   * Generates the scrambled layouts a test cycles through.
+   *
+   * @param slots the number of slots
+   * @param workload the shape of the layouts
+   * @return {@link #LAYOUTS} layouts from consecutive seeds
+   */
+  private static List<List<ItemStack>> layouts(int slots, InventoryGenerator.Workload workload) {
+    List<List<ItemStack>> layouts = new ArrayList<>(LAYOUTS);
+    for (int i = 0; i < LAYOUTS; i++) {
+      layouts.add(InventoryGenerator.generate(slots, workload, InventoryGenerator.SEED + i));
+    }
+    return layouts;
+  }
+
+  /**
+   * Fills slots with copies of a layout.
+   *
+   * @param slots the slots to fill
+   * @param layout the stacks to copy, one per slot
+   */
+  private static void fill(List<Slot> slots, List<ItemStack> layout) {
+    for (int i = 0; i < slots.size(); i++) {
+      slots.get(i).set(layout.get(i).copy());
+    }
+  }
+
+  /**
+   * Returns the number of bytes the current thread has allocated.
+   *
+   * @return the allocated bytes, or 0 if the JVM does not count them
+   */
+  private static long allocatedBytes() {
+    return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+  }
+
+  /**
+   * Returns the JVM's per-thread allocation counter if it has one.
+   *
+   * @return the thread bean, or null if allocations cannot be measured
+   */
+  private static ThreadMXBean threads() {
+    if (ManagementFactory.getThreadMXBean() instanceof ThreadMXBean threads
+        && threads.isThreadAllocatedMemorySupported()) {
+      threads.setThreadAllocatedMemoryEnabled(true);
+      return threads;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the mod's version.
+   *
+   * @return the version, or "unknown" if the mod is not loaded
+   */
+  private static String modVersion() {
+    return ModList.get()
+        .getModContainerById(BnnchSort.MODID)
+        .map(container -> container.getModInfo().getVersion().toString())
+        .orElse("unknown");
+  }
+
+  /**
+   * Appends a result to the results file as one line of JSON.
+   *
+   * @param result the result to write
+   */
+  private static void writeResult(JsonObject result) {
+    Path path =
+        Path.of(System.getProperty(PROPERTY_PREFIX + "results", "bnnch_sort-perf-results.jsonl"));
+    try {
+      Files.writeString(
+          path,
+          result + System.lineSeparator(),
+          StandardCharsets.UTF_8,
+          StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      LOGGER.warn("Failed to write performance results to {}", path, e);
+    }
+  }
+
+  /** Refills the measured slots before a sort. */
+  @FunctionalInterface
+  private interface Scramble {
+
+    /**
+     * Refills the slots.
+     *
+     * @param iteration the number of sorts run so far, warmup included
+     */
+    void fill(int iteration);
+  }
+
+  /**
+   * A menu of item handler slots followed by the player's inventory, as storage mods build them.
+   */
+  private static final class HandlerMenu extends AbstractContainerMenu {
+
+    /**
+     * Creates a menu.
+     *
+     * @param inventory the player's inventory
+     * @param handler the item handler whose slots come first
+     */
+    HandlerMenu(Inventory inventory, ItemStackHandler handler) {
+      super(null, 0);
+      for (int i = 0; i < handler.getSlots(); i++) {
+        addSlot(new SlotItemHandler(handler, i, 0, 0));
+      }
+      for (int i = 9; i < 36; i++) {
+        addSlot(new Slot(inventory, i, 0, 0));
+      }
+      for (int i = 0; i < 9; i++) {
+        addSlot(new Slot(inventory, i, 0, 0));
+      }
+    }
+
+    @Override
+    public ItemStack quickMoveStack(Player player, int index) {
+      return ItemStack.EMPTY;
+    }
+
+    @Override
+    public boolean stillValid(Player player) {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,273 @@
+package xyz.bannach.bnnch_sort.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.item.CreativeModeTab;
+import net.minecraft.world.item.CreativeModeTabs;
+import net.minecraft.world.item.ItemStack;
+import xyz.bannach.bnnch_sort.sorting.ItemSorter;
+import xyz.bannach.bnnch_sort.sorting.LockedSlots;
+import xyz.bannach.bnnch_sort.sorting.SlotSorter;
+import xyz.bannach.bnnch_sort.sorting.SortMethod;
+import xyz.bannach.bnnch_sort.sorting.SortOrder;
+import xyz.bannach.bnnch_sort.sorting.SortPreference;
+
+/**
+ * A frozen, deliberately simple copy of the sorting behavior of {@link SlotSorter} and {@link
+ * ItemSorter}, used as the expected result in differential tests.
+ *
+ * <p>Every step works on copied stacks with lists and comparators, the way sorting worked before it
+ * was optimized. The orderings are frozen here too: names come from {@link
+ * ItemStack#getHoverName()} and categories from scanning {@link CreativeModeTabs#allTabs()} with
+ * {@link CreativeModeTab#contains}. The reference therefore shares none of the packed keys, sort
+ * engines, scratch buffers, or precomputed name and tab tables it checks. Do not optimize this
+ * class; change it only when the intended sort result changes.
+ *
+ * <h2>Pipeline</h2>
+ *
+ * <ol>
+ *   <li>Top up partial stacks in locked slots from unlocked stacks, in slot order
+ *   <li>Merge the unlocked stacks into full stacks, dropping empty ones
+ *   <li>Sort them stably by comparator, reversed if descending
+ *   <li>Within each run of stacks the comparator ties, keep stacks in slots that already hold an
+ *       identical stack
+ *   <li>Pad with empty stacks and write them back to the unlocked slots
+ * </ol>
+ *
+ * <h2>Side: Common</h2>
+ *
+ * <p>Test-only; never called by the mod itself.
+ *
+ * @see DifferentialGameTests
+ * @since 1.2.0
+ */
+public final class ReferenceItemSorter {
+
+  /** Offset added to registry IDs for uncategorized items to ensure they sort last. */
+  private static final int UNCATEGORIZED_OFFSET = 1_000_000;
+
+  /** Orders stacks by display name, ignoring case. */
+  private static final Comparator<ItemStack> ALPHABETICAL =
+      (a, b) ->
+          String.CASE_INSENSITIVE_ORDER.compare(
+              a.getHoverName().getString(), b.getHoverName().getString());
+
+  /** Orders stacks by creative tab, then by name. */
+  private static final Comparator<ItemStack> CATEGORY =
+      Comparator.comparingInt(ReferenceItemSorter::tabIndex).thenComparing(ALPHABETICAL);
+
+  /** Orders stacks by count, largest first, then by name. */
+  private static final Comparator<ItemStack> QUANTITY =
+      Comparator.<ItemStack>comparingInt(stack -> -stack.getCount()).thenComparing(ALPHABETICAL);
+
+  /** Orders stacks by registry namespace, ignoring case, then by name. */
+  private static final Comparator<ItemStack> MOD_ID =
+      Comparator.<ItemStack, String>comparing(
+              stack -> BuiltInRegistries.ITEM.getKey(stack.getItem()).getNamespace(),
+              String.CASE_INSENSITIVE_ORDER)
+          .thenComparing(ALPHABETICAL);
+
+  /** Private constructor to prevent instantiation. */
+  private ReferenceItemSorter() {}
+
+  /**
+   * Sorts slot contents the way {@link SlotSorter#sort} sorts the slots holding them.
+   *
+   * @param contents the slot contents, where slot {@code i} has container index {@code i} (not
+   *     modified)
+   * @param lockedSlots the locked slots
+   * @param preference the sorting preferences containing method and order
+   * @return the new slot contents
+   */
+  public static List<ItemStack> sortSlots(
+      List<ItemStack> contents, LockedSlots lockedSlots, SortPreference preference) {
+    List<ItemStack> result = new ArrayList<>(contents.size());
+    List<ItemStack> unlocked = new ArrayList<>();
+    for (int i = 0; i < contents.size(); i++) {
+      ItemStack copy = contents.get(i).copy();
+      result.add(copy);
+      if (!lockedSlots.isLocked(i)) {
+        unlocked.add(copy);
+      }
+    }
+
+    // Top up locked partial stacks, draining unlocked stacks in slot order
+    for (int i = 0; i < contents.size(); i++) {
+      ItemStack receiver = result.get(i);
+      if (!lockedSlots.isLocked(i) || receiver.isEmpty() || receiver.getMaxStackSize() <= 1) {
+        continue;
+      }
+      for (ItemStack donor : unlocked) {
+        int space = receiver.getMaxStackSize() - receiver.getCount();
+        if (space <= 0) {
+          break;
+        }
+        if (!donor.isEmpty() && ItemStack.isSameItemSameComponents(receiver, donor)) {
+          int transfer = Math.min(space, donor.getCount());
+          receiver.grow(transfer);
+          donor.shrink(transfer);
+        }
+      }
+    }
+
+    List<ItemStack> sorted = sort(unlocked, preference);
+    int position = 0;
+    for (int i = 0; i < contents.size(); i++) {
+      if (!lockedSlots.isLocked(i)) {
+        result.set(i, sorted.get(position++));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Sorts stacks the way {@link ItemSorter#sort} does.
+   *
+   * @param stacks the current slot layout (not modified)
+   * @param preference the sorting preferences containing method and order
+   * @return a new list containing the sorted stacks with preserved slot count
+   */
+  public static List<ItemStack> sort(List<ItemStack> stacks, SortPreference preference) {
+    // 1. Condense partial stacks
+    List<ItemStack> items = mergeStacks(stacks);
+
+    // 2. Sort by comparator
+    Comparator<ItemStack> comparator = comparator(preference.method());
+    items.sort(comparator);
+
+    // 3. Reverse if descending
+    if (preference.order() == SortOrder.DESCENDING) {
+      Collections.reverse(items);
+    }
+
+    // 4. Keep tied stacks in the slots they already occupy
+    keepTiedPlacement(stacks, items, comparator);
+
+    // 5. Pad with empties to restore original size
+    while (items.size() < stacks.size()) {
+      items.add(ItemStack.EMPTY);
+    }
+    return items;
+  }
+
+  /**
+   * Merges partial stacks of the same item type into full stacks.
+   *
+   * @param stacks the list of item stacks to merge (not modified)
+   * @return a new list containing merged copies (empty stacks are excluded)
+   */
+  public static List<ItemStack> mergeStacks(List<ItemStack> stacks) {
+    List<ItemStack> result = new ArrayList<>();
+
+    for (ItemStack original : stacks) {
+      if (original.isEmpty()) {
+        continue;
+      }
+
+      ItemStack toMerge = original.copy();
+
+      // Try to merge into existing stacks in result
+      for (ItemStack existing : result) {
+        if (toMerge.isEmpty()) {
+          break;
+        }
+        if (ItemStack.isSameItemSameComponents(existing, toMerge)) {
+          int space = existing.getMaxStackSize() - existing.getCount();
+          if (space > 0) {
+            int transfer = Math.min(space, toMerge.getCount());
+            existing.grow(transfer);
+            toMerge.shrink(transfer);
+          }
+        }
+      }
+
+      // If there's anything left, add as new stack
+      if (!toMerge.isEmpty()) {
+        result.add(toMerge);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Reorders each run of tied stacks so that stacks land in slots that already hold an identical
+   * stack.
+   *
+   * <p>Slots are matched in order, each taking the first unmatched run member with the same item,
+   * components, and count. Slots without a match take the remaining members in sorted order.
+   *
+   * @param current the current slot layout
+   * @param items the sorted stacks, reordered in place
+   * @param comparator the comparator the stacks were sorted with
+   */
+  private static void keepTiedPlacement(
+      List<ItemStack> current, List<ItemStack> items, Comparator<ItemStack> comparator) {
+    int start = 0;
+    while (start < items.size()) {
+      int end = start + 1;
+      while (end < items.size() && comparator.compare(items.get(start), items.get(end)) == 0) {
+        end++;
+      }
+
+      List<ItemStack> run = new ArrayList<>(items.subList(start, end));
+      ItemStack[] placed = new ItemStack[end - start];
+      for (int slot = start; slot < end; slot++) {
+        ItemStack here = current.get(slot);
+        if (here.isEmpty()) {
+          continue;
+        }
+        for (Iterator<ItemStack> members = run.iterator(); members.hasNext(); ) {
+          ItemStack member = members.next();
+          if (ItemStack.matches(member, here)) {
+            placed[slot - start] = member;
+            members.remove();
+            break;
+          }
+        }
+      }
+
+      Iterator<ItemStack> rest = run.iterator();
+      for (int k = 0; k < placed.length; k++) {
+        items.set(start + k, placed[k] != null ? placed[k] : rest.next());
+      }
+      start = end;
+    }
+  }
+
+  /**
+   * Returns the reference ordering for a sort method.
+   *
+   * @param method the sort method
+   * @return the comparator that defines the method's ascending order
+   */
+  public static Comparator<ItemStack> comparator(SortMethod method) {
+    return switch (method) {
+      case ALPHABETICAL -> ALPHABETICAL;
+      case CATEGORY -> CATEGORY;
+      case QUANTITY -> QUANTITY;
+      case MOD_ID -> MOD_ID;
+    };
+  }
+
+  /**
+   * Returns the index of the first creative tab that contains a stack.
+   *
+   * @param stack the item stack to look up
+   * @return the tab index, or {@link #UNCATEGORIZED_OFFSET} plus the registry ID for uncategorized
+   *     items
+   */
+  private static int tabIndex(ItemStack stack) {
+    List<CreativeModeTab> tabs = CreativeModeTabs.allTabs();
+    for (int i = 0; i < tabs.size(); i++) {
+      if (tabs.get(i).contains(stack)) {
+        return i;
+      }
+    }
+    return UNCATEGORIZED_OFFSET + BuiltInRegistries.ITEM.getId(stack.getItem());
+  }
+}
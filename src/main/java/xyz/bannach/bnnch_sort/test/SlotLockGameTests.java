@@ -2,6 +2,11 @@ package xyz.bannach.bnnch_sort.test;
 
 import net.minecraft.gametest.framework.GameTest;
 import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.nbt.IntTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.LongTag;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.Tag;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.Items;
@@ -22,7 +27,7 @@ import xyz.bannach.bnnch_sort.sorting.LockedSlots;
  * <h2>Test Categories</h2>
  *
  * <ul>
- *   <li>LockedSlots record tests - Toggle, isLocked, countInRange, EMPTY
+ *   <li>LockedSlots record tests - Toggle, isLocked, countInRange, codec, EMPTY
  *   <li>Lock-aware sorting tests - Locked slots stay in place during sorts
  *   <li>Pre-sort merge tests - Non-full locked stacks receive matching items
  *   <li>Attachment tests - Persistence, defaults, unlock command
@@ -54,7 +59,7 @@ public class SlotLockGameTests {
   public static void locked_slots_empty_has_no_locked(GameTestHelper helper) {
     LockedSlots empty = LockedSlots.EMPTY;
 
-    helper.assertTrue(empty.slots().isEmpty(), "EMPTY should have no slots");
+    helper.assertTrue(empty.isEmpty(), "EMPTY should have no slots");
     helper.assertTrue(!empty.isLocked(0), "Slot 0 should not be locked in EMPTY");
     helper.assertTrue(!empty.isLocked(9), "Slot 9 should not be locked in EMPTY");
     helper.assertTrue(!empty.isLocked(35), "Slot 35 should not be locked in EMPTY");
@@ -124,6 +129,30 @@ public class SlotLockGameTests {
     helper.succeed();
   }
 
+  /**
+   * Tests that the codec round-trips the mask and still reads the legacy integer list format.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void locked_slots_codec_reads_mask_and_legacy_list(GameTestHelper helper) {
+    LockedSlots locked = LockedSlots.EMPTY.toggle(0).toggle(9).toggle(35);
+
+    Tag encoded = LockedSlots.CODEC.encodeStart(NbtOps.INSTANCE, locked).getOrThrow();
+    helper.assertTrue(encoded instanceof LongTag, "Mask should be stored as a long tag");
+    LockedSlots decoded = LockedSlots.CODEC.parse(NbtOps.INSTANCE, encoded).getOrThrow();
+    helper.assertTrue(decoded.equals(locked), "Mask should round-trip, got " + decoded);
+
+    ListTag legacy = new ListTag();
+    legacy.add(IntTag.valueOf(0));
+    legacy.add(IntTag.valueOf(9));
+    legacy.add(IntTag.valueOf(35));
+    LockedSlots migrated = LockedSlots.CODEC.parse(NbtOps.INSTANCE, legacy).getOrThrow();
+    helper.assertTrue(migrated.equals(locked), "Legacy list should decode, got " + migrated);
+
+    helper.succeed();
+  }
+
   // ===== Attachment Tests =====
 
   /**
@@ -137,8 +166,8 @@ public class SlotLockGameTests {
     LockedSlots locked = player.getData(ModAttachments.LOCKED_SLOTS);
 
     helper.assertTrue(
-        locked.slots().isEmpty(),
-        "Default locked slots should be empty, got " + locked.slots().size() + " slots");
+        locked.isEmpty(),
+        "Default locked slots should be empty, got " + locked.count() + " slots");
 
     helper.succeed();
   }
@@ -508,13 +537,13 @@ public class SlotLockGameTests {
 
     // Verify they're locked
     LockedSlots before = player.getData(ModAttachments.LOCKED_SLOTS);
-    helper.assertTrue(before.slots().size() == 5, "Expected 5 locked slots before unlock");
+    helper.assertTrue(before.count() == 5, "Expected 5 locked slots before unlock");
 
     // Simulate /bnnchsort unlock
     player.setData(ModAttachments.LOCKED_SLOTS, LockedSlots.EMPTY);
 
     LockedSlots after = player.getData(ModAttachments.LOCKED_SLOTS);
-    helper.assertTrue(after.slots().isEmpty(), "All slots should be unlocked after unlock command");
+    helper.assertTrue(after.isEmpty(), "All slots should be unlocked after unlock command");
 
     helper.succeed();
   }
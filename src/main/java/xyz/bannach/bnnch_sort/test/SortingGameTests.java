@@ -1,14 +1,22 @@
 package xyz.bannach.bnnch_sort.test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.component.DataComponents;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.gametest.framework.GameTest;
 import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.SimpleContainer;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.inventory.ChestMenu;
 import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.CreativeModeTab;
+import net.minecraft.world.item.CreativeModeTabs;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.Items;
 import net.minecraft.world.item.enchantment.Enchantments;
@@ -17,11 +25,25 @@ import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.entity.ChestBlockEntity;
 import net.neoforged.neoforge.gametest.GameTestHolder;
 import net.neoforged.neoforge.gametest.PrefixGameTestTemplate;
+import xyz.bannach.bnnch_sort.metrics.SortEvent;
+import xyz.bannach.bnnch_sort.metrics.SortMetrics;
 import xyz.bannach.bnnch_sort.server.SortHandler;
+import xyz.bannach.bnnch_sort.server.SortSnapshot;
+import xyz.bannach.bnnch_sort.sorting.CreativeTabIndex;
 import xyz.bannach.bnnch_sort.sorting.ItemSorter;
+import xyz.bannach.bnnch_sort.sorting.LockedSlots;
+import xyz.bannach.bnnch_sort.sorting.SlotSorter;
+import xyz.bannach.bnnch_sort.sorting.SortEngine;
+import xyz.bannach.bnnch_sort.sorting.SortKeys;
 import xyz.bannach.bnnch_sort.sorting.SortMethod;
 import xyz.bannach.bnnch_sort.sorting.SortOrder;
+import xyz.bannach.bnnch_sort.sorting.SortPhases;
+import xyz.bannach.bnnch_sort.sorting.SortPlan;
 import xyz.bannach.bnnch_sort.sorting.SortPreference;
+import xyz.bannach.bnnch_sort.sorting.SortScratch;
+import xyz.bannach.bnnch_sort.util.SlotLayout;
+import xyz.bannach.bnnch_sort.util.SortabilityRegistry;
+import xyz.bannach.bnnch_sort.util.SortabilityRegistry.Verdict;
 
 /**
  * Game tests for core sorting functionality.
@@ -75,6 +97,33 @@ public class SortingGameTests {
     helper.succeed();
   }
 
+  /**
+   * Tests that custom-named stacks sort by their custom name alongside ranked stacks.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void alphabetical_sort_uses_custom_names(GameTestHelper helper) {
+    ItemStack named = new ItemStack(Items.STONE);
+    named.set(DataComponents.CUSTOM_NAME, Component.literal("Aardvark"));
+
+    List<ItemStack> stacks = new ArrayList<>();
+    stacks.add(new ItemStack(Items.DIAMOND));
+    stacks.add(new ItemStack(Items.APPLE));
+    stacks.add(named);
+
+    SortPreference pref = new SortPreference(SortMethod.ALPHABETICAL, SortOrder.ASCENDING);
+    List<ItemStack> sorted = ItemSorter.sort(stacks, pref);
+
+    helper.assertTrue(
+        sorted.get(0).has(DataComponents.CUSTOM_NAME),
+        "Custom-named stack should sort first, got " + sorted.get(0));
+    assertItem(helper, sorted, 1, Items.APPLE);
+    assertItem(helper, sorted, 2, Items.DIAMOND);
+
+    helper.succeed();
+  }
+
   /**
    * Tests category sorting groups items by creative tab.
    *
@@ -100,6 +149,125 @@ public class SortingGameTests {
     helper.succeed();
   }
 
+  /**
+   * Tests that the precomputed creative tab index agrees with a direct scan of the tabs, including
+   * for damaged and renamed stacks that no tab displays.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void category_tab_index_matches_tab_scan(GameTestHelper helper) {
+    CreativeTabIndex.rebuild();
+    List<CreativeModeTab> tabs = CreativeModeTabs.allTabs();
+
+    ItemStack damaged = new ItemStack(Items.DIAMOND_SWORD);
+    damaged.setDamageValue(10);
+    ItemStack renamed = new ItemStack(Items.STONE);
+    renamed.set(DataComponents.CUSTOM_NAME, Component.literal("Renamed"));
+    for (ItemStack stack :
+        List.of(
+            new ItemStack(Items.DIAMOND_SWORD),
+            new ItemStack(Items.OAK_PLANKS),
+            new ItemStack(Items.APPLE),
+            new ItemStack(Items.STONE),
+            damaged,
+            renamed)) {
+      int expected = -1;
+      for (int i = 0; i < tabs.size(); i++) {
+        if (tabs.get(i).contains(stack)) {
+          expected = i;
+          break;
+        }
+      }
+      int actual = CreativeTabIndex.tabIndex(stack);
+      if (expected >= 0) {
+        helper.assertTrue(
+            actual == expected,
+            "Expected tab " + expected + " for " + stack + ", got " + actual);
+      } else {
+        helper.assertTrue(
+            actual >= CreativeTabIndex.UNCATEGORIZED_OFFSET,
+            "Expected " + stack + " to be uncategorized, got " + actual);
+      }
+    }
+
+    helper.succeed();
+  }
+
+  /**
+   * Tests that packed sort keys order stacks exactly like display names and a direct scan of the
+   * creative tabs for every sort method.
+   *
+   * <p>The expected orderings come from {@link ReferenceItemSorter#comparator}, which reads
+   * neither the name rank table nor the creative tab index the keys are built from.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void packed_keys_match_comparators(GameTestHelper helper) {
+    ItemStack named = new ItemStack(Items.DIRT, 3);
+    named.set(DataComponents.CUSTOM_NAME, Component.literal("Stone"));
+    ItemStack lowerCase = new ItemStack(Items.APPLE, 5);
+    lowerCase.set(DataComponents.CUSTOM_NAME, Component.literal("oak planks"));
+    ItemStack damaged = new ItemStack(Items.IRON_SWORD);
+    damaged.setDamageValue(20);
+    List<ItemStack> stacks =
+        List.of(
+            new ItemStack(Items.STONE, 3),
+            named,
+            lowerCase,
+            damaged,
+            new ItemStack(Items.APPLE, 12),
+            new ItemStack(Items.DIAMOND_SWORD),
+            new ItemStack(Items.OAK_PLANKS, 40),
+            new ItemStack(Items.APPLE, 3));
+
+    for (SortMethod method : SortMethod.values()) {
+      Comparator<ItemStack> comparator = ReferenceItemSorter.comparator(method);
+      long[] keys = SortKeys.extract(stacks, method);
+      for (int a = 0; a < stacks.size(); a++) {
+        for (int b = 0; b < stacks.size(); b++) {
+          int expected = Integer.signum(comparator.compare(stacks.get(a), stacks.get(b)));
+          int actual = Long.compare(keys[a], keys[b]);
+          helper.assertTrue(
+              actual == expected,
+              method
+                  + ": key order disagrees with comparator for "
+                  + stacks.get(a)
+                  + " and "
+                  + stacks.get(b));
+        }
+      }
+    }
+
+    helper.succeed();
+  }
+
+  /**
+   * Tests that every sort engine produces the same stable order, including ties.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void sort_engines_produce_identical_order(GameTestHelper helper) {
+    Random random = new Random(42);
+    for (int size : new int[] {0, 1, 20, 300, 3000}) {
+      long[] keys = new long[size];
+      for (int i = 0; i < size; i++) {
+        keys[i] = SortKeys.pack(Integer.MAX_VALUE - 1 - random.nextInt(64), random.nextInt(40));
+      }
+
+      int[] expected = SortEngine.MERGE.order(keys);
+      for (SortEngine engine : SortEngine.values()) {
+        helper.assertTrue(
+            Arrays.equals(engine.order(keys), expected),
+            engine + " disagrees with merge sort for " + size + " keys");
+      }
+    }
+
+    helper.succeed();
+  }
+
   /**
    * Tests quantity sorting orders by stack count.
    *
@@ -268,6 +436,38 @@ public class SortingGameTests {
     helper.succeed();
   }
 
+  /**
+   * Tests that interleaved partial stacks of several items merge in first-appearance order.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void merge_stacks_interleaved_groups_keep_order(GameTestHelper helper) {
+    List<ItemStack> stacks = new ArrayList<>();
+    stacks.add(new ItemStack(Items.STONE, 30));
+    stacks.add(new ItemStack(Items.DIRT, 10));
+    stacks.add(new ItemStack(Items.STONE, 40));
+    stacks.add(new ItemStack(Items.DIRT, 60));
+    stacks.add(new ItemStack(Items.STONE, 64));
+
+    List<ItemStack> merged = ItemSorter.mergeStacks(stacks);
+
+    helper.assertTrue(merged.size() == 5, "Expected 5 stacks, got " + merged.size());
+    int[] expectedCounts = {64, 64, 64, 6, 6};
+    net.minecraft.world.item.Item[] expectedItems = {
+      Items.STONE, Items.DIRT, Items.STONE, Items.DIRT, Items.STONE
+    };
+    for (int i = 0; i < expectedCounts.length; i++) {
+      assertItem(helper, merged, i, expectedItems[i]);
+      helper.assertTrue(
+          merged.get(i).getCount() == expectedCounts[i],
+          "Expected count " + expectedCounts[i] + " at index " + i + ", got "
+              + merged.get(i).getCount());
+    }
+
+    helper.succeed();
+  }
+
   /**
    * Tests that descending order reverses the sort result.
    *
@@ -290,6 +490,104 @@ public class SortingGameTests {
     helper.succeed();
   }
 
+  /**
+   * Tests that stacks sharing a sort key stay in the slots they already occupy.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void sort_keeps_equal_key_stacks_in_place(GameTestHelper helper) {
+    // Merging yields [64, 10]; both stacks tie, so the current [10, 64] layout is kept
+    List<ItemStack> stacks = new ArrayList<>();
+    stacks.add(new ItemStack(Items.STONE, 10));
+    stacks.add(new ItemStack(Items.STONE, 64));
+
+    List<ItemStack> sorted = ItemSorter.sort(stacks, SortPreference.DEFAULT);
+
+    helper.assertTrue(
+        sorted.get(0).getCount() == 10, "Slot 0 should keep 10 stone, got " + sorted.get(0));
+    helper.assertTrue(
+        sorted.get(1).getCount() == 64, "Slot 1 should keep 64 stone, got " + sorted.get(1));
+
+    helper.succeed();
+  }
+
+  /**
+   * Tests that the already-sorted check accepts sorted layouts and rejects any that would change.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void already_sorted_check_detects_unsorted_layouts(GameTestHelper helper) {
+    SortPreference pref = SortPreference.DEFAULT;
+
+    helper.assertTrue(
+        ItemSorter.isSorted(
+            List.of(
+                new ItemStack(Items.APPLE),
+                new ItemStack(Items.STONE, 10),
+                new ItemStack(Items.STONE, 64),
+                ItemStack.EMPTY),
+            pref),
+        "Merged, ordered, padded layout should be sorted");
+    helper.assertTrue(
+        !ItemSorter.isSorted(
+            List.of(new ItemStack(Items.STONE), new ItemStack(Items.APPLE)), pref),
+        "Out-of-order layout should not be sorted");
+    helper.assertTrue(
+        !ItemSorter.isSorted(
+            List.of(new ItemStack(Items.STONE, 10), new ItemStack(Items.STONE, 20)), pref),
+        "Two partial stacks of the same item should not be sorted");
+    helper.assertTrue(
+        !ItemSorter.isSorted(
+            List.of(new ItemStack(Items.APPLE), ItemStack.EMPTY, new ItemStack(Items.STONE)),
+            pref),
+        "Empty slot before an item should not be sorted");
+
+    helper.succeed();
+  }
+
+  /**
+   * Tests that a pooled sort plan leaves its input stacks untouched and refers back to them.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void sort_plan_leaves_input_stacks_untouched(GameTestHelper helper) {
+    ItemStack stone = new ItemStack(Items.STONE, 40);
+    ItemStack apple = new ItemStack(Items.APPLE, 5);
+    ItemStack moreStone = new ItemStack(Items.STONE, 40);
+
+    SortScratch scratch = SortScratch.get();
+    scratch.ensureCapacity(4);
+    ItemStack[] stacks = scratch.stacks();
+    int[] counts = scratch.counts();
+    ItemStack[] input = {stone, apple, moreStone, ItemStack.EMPTY};
+    for (int i = 0; i < input.length; i++) {
+      stacks[i] = input[i];
+      counts[i] = input[i].getCount();
+    }
+
+    SortPlan plan = ItemSorter.plan(stacks, counts, 4, SortPreference.DEFAULT, scratch);
+
+    helper.assertTrue(plan.size() == 4, "Plan should cover all 4 slots");
+    helper.assertTrue(
+        plan.source(0) == 1 && plan.count(0) == 5, "Slot 0 should take 5 apples from input 1");
+    helper.assertTrue(
+        stacks[plan.source(1)].is(Items.STONE) && plan.count(1) == 64,
+        "Slot 1 should take 64 stone");
+    helper.assertTrue(
+        stacks[plan.source(2)].is(Items.STONE) && plan.count(2) == 16,
+        "Slot 2 should take the remaining 16 stone");
+    helper.assertTrue(plan.source(3) == -1, "Slot 3 should stay empty");
+    helper.assertTrue(
+        stone.getCount() == 40 && moreStone.getCount() == 40 && apple.getCount() == 5,
+        "Input stacks should not be modified");
+    scratch.release(4);
+
+    helper.succeed();
+  }
+
   /**
    * Tests that empty slots are moved to the end after sorting.
    *
@@ -495,6 +793,126 @@ public class SortingGameTests {
     helper.succeed();
   }
 
+  /**
+   * Tests that a menu's slot layout is computed once and recomputed after invalidation.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void slot_layout_is_cached_per_menu(GameTestHelper helper) {
+    Player player = helper.makeMockPlayer(GameType.SURVIVAL);
+    BlockPos chestPos = new BlockPos(1, 1, 1);
+
+    helper.setBlock(chestPos, Blocks.CHEST);
+    ChestBlockEntity chest = helper.getBlockEntity(chestPos);
+    ChestMenu menu = ChestMenu.threeRows(0, player.getInventory(), chest);
+
+    SlotLayout layout = SlotLayout.of(menu);
+    helper.assertTrue(SlotLayout.of(menu) == layout, "Layout should be cached for the same menu");
+    helper.assertTrue(
+        layout.indices(SortHandler.REGION_CONTAINER).length == 27,
+        "Expected 27 container slot indices");
+    helper.assertTrue(
+        layout.indices(SortHandler.REGION_CONTAINER)[0] == 0,
+        "Container region should start at menu slot 0");
+
+    SlotLayout.invalidate(menu);
+    helper.assertTrue(SlotLayout.of(menu) != layout, "Layout should be recomputed after closing");
+
+    helper.succeed();
+  }
+
+  /**
+   * Tests that declared slot classes override the built-in sortability rules.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void sortability_registry_applies_declarations(GameTestHelper helper) {
+    Slot custom = new Slot(new SimpleContainer(1), 0, 0, 0) {};
+    Class<?> customClass = custom.getClass();
+
+    helper.assertTrue(
+        SortabilityRegistry.isSortableSlotClass(Slot.class), "Base slots should be sortable");
+    helper.assertTrue(
+        !SortabilityRegistry.isSortableSlotClass(customClass),
+        "Undeclared slot subclasses should not be sortable");
+
+    SortabilityRegistry.applyConfig(
+        List.of(customClass.getName()),
+        List.of(),
+        List.of(),
+        List.of(SimpleContainer.class.getName()));
+    boolean declaredSortable = SortabilityRegistry.isSortableSlotClass(customClass);
+    Verdict containerVerdict = SortabilityRegistry.containerVerdict(SimpleContainer.class);
+    SortabilityRegistry.applyConfig(List.of(), List.of(), List.of(), List.of());
+
+    helper.assertTrue(declaredSortable, "Declared slot class should be sortable");
+    helper.assertTrue(
+        containerVerdict == Verdict.UNSORTABLE,
+        "Declared container class should be unsortable, got " + containerVerdict);
+    helper.assertTrue(
+        !SortabilityRegistry.isSortableSlotClass(customClass),
+        "Clearing declarations should restore the built-in rules");
+
+    helper.succeed();
+  }
+
+  /**
+   * Tests that sorting only writes the slots whose contents change and reports their count.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void sort_handler_writes_only_changed_slots(GameTestHelper helper) {
+    Player player = helper.makeMockPlayer(GameType.SURVIVAL);
+    player.getInventory().setItem(9, new ItemStack(Items.APPLE));
+    player.getInventory().setItem(10, new ItemStack(Items.DIAMOND));
+    player.getInventory().setItem(11, new ItemStack(Items.STONE));
+
+    int unchanged =
+        SortHandler.sortRegion(player, player.inventoryMenu, SortHandler.REGION_PLAYER_MAIN);
+    helper.assertTrue(unchanged == 0, "Sorted inventory should change no slots, got " + unchanged);
+
+    player.getInventory().setItem(9, new ItemStack(Items.STONE));
+    player.getInventory().setItem(11, new ItemStack(Items.APPLE));
+
+    int changed =
+        SortHandler.sortRegion(player, player.inventoryMenu, SortHandler.REGION_PLAYER_MAIN);
+    helper.assertTrue(changed == 2, "Swapped pair should change 2 slots, got " + changed);
+    helper.assertTrue(
+        player.getInventory().getItem(9).is(Items.APPLE), "Slot 9 should be Apple after sort");
+    helper.assertTrue(
+        player.getInventory().getItem(11).is(Items.STONE), "Slot 11 should be Stone after sort");
+
+    helper.succeed();
+  }
+
+  /**
+   * Tests that re-sorting a region whose contents did not change is answered from the sort memo.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void sort_handler_skips_unchanged_region(GameTestHelper helper) {
+    Player player = helper.makeMockPlayer(GameType.SURVIVAL);
+    player.getInventory().setItem(9, new ItemStack(Items.STONE));
+    player.getInventory().setItem(10, new ItemStack(Items.APPLE));
+
+    int first =
+        SortHandler.sortRegion(player, player.inventoryMenu, SortHandler.REGION_PLAYER_MAIN);
+    helper.assertTrue(first == 2, "First sort should change 2 slots, got " + first);
+
+    long memoHits = SortMetrics.memoHits();
+    int second =
+        SortHandler.sortRegion(player, player.inventoryMenu, SortHandler.REGION_PLAYER_MAIN);
+    helper.assertTrue(second == 0, "Second sort should change nothing, got " + second);
+    helper.assertTrue(
+        SortMetrics.memoHits() > memoHits, "Second sort should be answered from the memo");
+
+    helper.succeed();
+  }
+
   /**
    * Tests that invalid region codes return no slots.
    *
@@ -570,4 +988,297 @@ public class SortingGameTests {
 
     helper.succeed();
   }
+
+  /**
+   * Tests that a snapshot detects slots changed after it was taken and that copied plans survive
+   * later sorts on the same scratch.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void sort_snapshot_detects_changes_and_plan_copy_is_detached(
+      GameTestHelper helper) {
+    SimpleContainer container = new SimpleContainer(3);
+    container.setItem(0, new ItemStack(Items.STONE, 10));
+    container.setItem(1, new ItemStack(Items.APPLE, 5));
+    List<Slot> slots = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      slots.add(new Slot(container, i, 0, 0));
+    }
+
+    SortSnapshot snapshot = SortSnapshot.take(slots);
+    helper.assertTrue(snapshot.matches(slots), "Unchanged slots should match the snapshot");
+    container.getItem(0).grow(1);
+    helper.assertTrue(!snapshot.matches(slots), "A count changed in place should be detected");
+
+    snapshot = SortSnapshot.take(slots);
+    container.setItem(1, new ItemStack(Items.APPLE, 5));
+    helper.assertTrue(!snapshot.matches(slots), "A replaced stack should be detected");
+
+    SortScratch scratch = SortScratch.get();
+    scratch.ensureCapacity(3);
+    ItemStack[] stacks = {container.getItem(0), container.getItem(1), ItemStack.EMPTY};
+    int[] counts = {11, 5, 0};
+    SortPlan copy = ItemSorter.plan(stacks, counts, 3, SortPreference.DEFAULT, scratch).copy();
+    ItemStack[] reversed = {ItemStack.EMPTY, container.getItem(1), container.getItem(0)};
+    int[] reversedCounts = {0, 5, 11};
+    ItemSorter.plan(reversed, reversedCounts, 3, SortPreference.DEFAULT, scratch);
+    scratch.release(3);
+    helper.assertTrue(
+        copy.size() == 3 && copy.source(0) == 1 && copy.source(1) == 0 && copy.source(2) == -1,
+        "Copied plan should not change when the scratch plans again");
+
+    helper.succeed();
+  }
+
+  /**
+   * Tests that a snapshot read in chunks covers every slot and catches slots changed after their
+   * chunk was read.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void sort_snapshot_reads_in_chunks(GameTestHelper helper) {
+    SimpleContainer container = new SimpleContainer(5);
+    List<Slot> slots = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      container.setItem(i, new ItemStack(Items.STONE, i + 1));
+      slots.add(new Slot(container, i, 0, 0));
+    }
+
+    SortSnapshot.Builder builder = new SortSnapshot.Builder(5);
+    helper.assertTrue(!builder.read(slots, 2), "First chunk should not complete the snapshot");
+    helper.assertTrue(!builder.read(slots, 2), "Second chunk should not complete the snapshot");
+    boolean threw = false;
+    try {
+      builder.build();
+    } catch (IllegalStateException e) {
+      threw = true;
+    }
+    helper.assertTrue(threw, "Building an incomplete snapshot should fail");
+
+    // Slot 0 was read in the first chunk; changing it now must invalidate the snapshot
+    container.setItem(0, new ItemStack(Items.DIAMOND));
+    helper.assertTrue(builder.read(slots, 2), "Third chunk should complete the snapshot");
+    helper.assertTrue(builder.position() == 5, "All 5 slots should have been read");
+    SortSnapshot snapshot = builder.build();
+    helper.assertTrue(
+        !snapshot.matches(slots), "A slot changed after its chunk was read should be detected");
+
+    helper.succeed();
+  }
+
+  /**
+   * Tests that a stale snapshot locates its changed slots and reads only that range again.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void sort_snapshot_rereads_changed_range(GameTestHelper helper) {
+    SimpleContainer container = new SimpleContainer(6);
+    List<Slot> slots = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      container.setItem(i, new ItemStack(Items.STONE, i + 1));
+      slots.add(new Slot(container, i, 0, 0));
+    }
+    SortSnapshot stale = SortSnapshot.take(slots);
+    helper.assertTrue(stale.firstMismatch(slots) == -1, "Unchanged slots should have no mismatch");
+
+    container.setItem(2, new ItemStack(Items.APPLE));
+    container.getItem(4).grow(1);
+    int from = stale.firstMismatch(slots);
+    int to = stale.lastMismatch(slots) + 1;
+    helper.assertTrue(from == 2 && to == 5, "Changed range should be slots 2 to 4, got " + from);
+
+    SortSnapshot.Builder builder = new SortSnapshot.Builder(stale, from, to);
+    helper.assertTrue(builder.percentRead() == 0, "Nothing of the range should be read yet");
+    helper.assertTrue(!builder.read(slots, 2), "Two of three changed slots should not complete");
+    helper.assertTrue(builder.read(slots, 2), "The last changed slot should complete the range");
+    helper.assertTrue(builder.position() == 5, "Reading should stop after the changed range");
+    helper.assertTrue(builder.build().matches(slots), "Re-read snapshot should match the slots");
+    helper.assertTrue(!stale.matches(slots), "The stale snapshot should not be modified");
+
+    helper.succeed();
+  }
+
+  /**
+   * Tests that sorting identical slots gives identical prediction keys, as the client and server
+   * must, and that a different starting layout gives a different key.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void slot_sorter_prediction_key_matches_identical_sorts(GameTestHelper helper) {
+    SortPreference preference = new SortPreference(SortMethod.ALPHABETICAL, SortOrder.ASCENDING);
+    ItemStack[] layout = {
+      new ItemStack(Items.STONE, 10),
+      ItemStack.EMPTY,
+      new ItemStack(Items.DIRT, 5),
+      new ItemStack(Items.STONE, 20),
+      new ItemStack(Items.APPLE, 3)
+    };
+    long[] keys = new long[3];
+    for (int run = 0; run < keys.length; run++) {
+      SimpleContainer container = new SimpleContainer(layout.length);
+      List<Slot> slots = new ArrayList<>();
+      for (int i = 0; i < layout.length; i++) {
+        // The third run starts from a layout with one more stone
+        int extra = run == 2 && i == 0 ? 1 : 0;
+        container.setItem(i, layout[i].copyWithCount(layout[i].getCount() + extra));
+        slots.add(new Slot(container, i, 0, 0));
+      }
+      long before = SlotSorter.checksum(slots);
+      int changed = SlotSorter.sort(slots, LockedSlots.EMPTY, preference);
+      helper.assertTrue(changed > 0, "Unsorted slots should be changed, got " + changed);
+      keys[run] = SlotSorter.predictionKey(before, SlotSorter.checksum(slots));
+    }
+
+    helper.assertTrue(keys[0] != SlotSorter.NO_PREDICTION, "A key should never mean no prediction");
+    helper.assertTrue(keys[0] == keys[1], "Identical sorts should give identical keys");
+    helper.assertTrue(keys[0] != keys[2], "A different starting layout should give another key");
+
+    helper.succeed();
+  }
+
+  /**
+   * Tests that the inventory generator gives the same inventory for the same seed, and respects
+   * its workload's shape.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void inventory_generator_is_deterministic(GameTestHelper helper) {
+    InventoryGenerator.Workload workload = InventoryGenerator.Workload.COMPONENT_HEAVY;
+    List<ItemStack> first = InventoryGenerator.generate(1000, workload, 42);
+    List<ItemStack> second = InventoryGenerator.generate(1000, workload, 42);
+    List<ItemStack> other = InventoryGenerator.generate(1000, workload, 43);
+
+    helper.assertTrue(first.size() == 1000, "The inventory should have the requested size");
+    boolean same = true;
+    boolean differs = false;
+    int named = 0;
+    for (int i = 0; i < first.size(); i++) {
+      same &= ItemStack.matches(first.get(i), second.get(i));
+      differs |= !ItemStack.matches(first.get(i), other.get(i));
+      if (first.get(i).has(DataComponents.CUSTOM_NAME)) {
+        named++;
+      }
+      helper.assertTrue(
+          first.get(i).getCount() <= first.get(i).getMaxStackSize(),
+          "Stacks should never exceed their maximum size");
+    }
+    helper.assertTrue(same, "The same seed should give the same inventory");
+    helper.assertTrue(differs, "Another seed should give another inventory");
+    helper.assertTrue(named > 500, "Most stacks of a component-heavy inventory should be named");
+
+    helper.succeed();
+  }
+
+  /**
+   * Tests that a timed sort fills in its phase timings and sorts exactly like an untimed one, and
+   * that the sort's JFR event asks for no timings while it is not recorded.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void slot_sorter_times_phases_only_when_asked(GameTestHelper helper) {
+    SortPreference preference = new SortPreference(SortMethod.ALPHABETICAL, SortOrder.ASCENDING);
+    ItemStack[] layout = {
+      new ItemStack(Items.STONE, 10),
+      ItemStack.EMPTY,
+      new ItemStack(Items.DIRT, 5),
+      new ItemStack(Items.STONE, 20),
+      new ItemStack(Items.APPLE, 3)
+    };
+    SortPhases phases = new SortPhases();
+    long[] checksums = new long[2];
+    for (int run = 0; run < checksums.length; run++) {
+      SimpleContainer container = new SimpleContainer(layout.length);
+      List<Slot> slots = new ArrayList<>();
+      for (int i = 0; i < layout.length; i++) {
+        container.setItem(i, layout[i].copy());
+        slots.add(new Slot(container, i, 0, 0));
+      }
+      SlotSorter.sort(slots, LockedSlots.EMPTY, preference, run == 0 ? phases : null);
+      checksums[run] = SlotSorter.checksum(slots);
+    }
+
+    helper.assertTrue(checksums[0] == checksums[1], "Timing a sort should not change its result");
+    long total = 0;
+    for (int phase = SortPhases.SNAPSHOT; phase <= SortPhases.WRITE_BACK; phase++) {
+      helper.assertTrue(phases.nanos(phase) >= 0, "Phase " + phase + " should not be negative");
+      total += phases.nanos(phase);
+    }
+    helper.assertTrue(total > 0, "A timed sort should charge time to its phases");
+    helper.assertTrue(
+        phases.nanos(SortPhases.BROADCAST) == 0, "The sorter should leave broadcasting to callers");
+    helper.assertTrue(
+        new SortEvent().phases() == null, "Sorts should not be timed while the event is disabled");
+
+    helper.succeed();
+  }
+
+  /**
+   * Tests that a plan computed without writing the slots is accepted and applied, while plans that
+   * create items or break the order are rejected without writing anything.
+   *
+   * @param helper the game test helper
+   */
+  @GameTest(template = "empty")
+  public static void slot_sorter_checks_plans_before_applying(GameTestHelper helper) {
+    SortPreference preference = new SortPreference(SortMethod.ALPHABETICAL, SortOrder.ASCENDING);
+    SimpleContainer container = new SimpleContainer(4);
+    container.setItem(0, new ItemStack(Items.STONE, 10));
+    container.setItem(1, new ItemStack(Items.APPLE, 3));
+    container.setItem(2, new ItemStack(Items.STONE, 20));
+    container.setItem(3, new ItemStack(Items.DIRT, 5));
+    List<Slot> slots = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      slots.add(new Slot(container, i, 0, 0));
+    }
+
+    long before = SlotSorter.checksum(slots);
+    SortPlan plan = SlotSorter.plan(slots, LockedSlots.EMPTY, preference);
+    helper.assertTrue(plan != null, "Unsorted slots should be planned");
+    helper.assertTrue(SlotSorter.checksum(slots) == before, "Planning should not write any slot");
+
+    int[] sources = new int[plan.size()];
+    int[] counts = new int[plan.size()];
+    for (int i = 0; i < plan.size(); i++) {
+      sources[i] = plan.source(i);
+      counts[i] = plan.count(i);
+    }
+    int[] inflated = counts.clone();
+    inflated[0]++;
+    SortPlan created = SortPlan.of(sources, inflated);
+    helper.assertTrue(
+        SlotSorter.applyPlan(slots, LockedSlots.EMPTY, preference, created)
+            == SlotSorter.INVALID_PLAN,
+        "A plan that creates items should be rejected");
+    int[] swapped = sources.clone();
+    swapped[0] = sources[1];
+    swapped[1] = sources[0];
+    int[] swappedCounts = counts.clone();
+    swappedCounts[0] = counts[1];
+    swappedCounts[1] = counts[0];
+    SortPlan unordered = SortPlan.of(swapped, swappedCounts);
+    helper.assertTrue(
+        SlotSorter.applyPlan(slots, LockedSlots.EMPTY, preference, unordered)
+            == SlotSorter.INVALID_PLAN,
+        "A plan that breaks the order should be rejected");
+    helper.assertTrue(
+        SlotSorter.checksum(slots) == before, "Rejected plans should not write any slot");
+
+    int changed = SlotSorter.applyPlan(slots, LockedSlots.EMPTY, preference, plan);
+    helper.assertTrue(changed > 0, "A valid plan should be applied, got " + changed);
+    helper.assertTrue(
+        container.getItem(0).is(Items.APPLE)
+            && container.getItem(1).is(Items.DIRT)
+            && container.getItem(2).is(Items.STONE)
+            && container.getItem(2).getCount() == 30
+            && container.getItem(3).isEmpty(),
+        "Applied plan should leave apple, dirt, 30 stone, and an empty slot");
+
+    helper.succeed();
+  }
 }
@@ -16,8 +16,16 @@
  *       inventories, special slots, and restricted containers
  *   <li>{@link xyz.bannach.bnnch_sort.test.CommandGameTests} - Tests for slash command
  *       functionality and argument parsing
+ *   <li>{@link xyz.bannach.bnnch_sort.test.PerformanceGameTests} - Wall time and allocation
+ *       budgets for sorting large and locked inventories
+ *   <li>{@link xyz.bannach.bnnch_sort.test.DifferentialGameTests} - Seeded comparison of the
+ *       optimized sort against {@link xyz.bannach.bnnch_sort.test.ReferenceItemSorter}, a frozen
+ *       copy of the sort's intended behavior
  * </ul>
  *
+ * <p>{@link xyz.bannach.bnnch_sort.test.InventoryGenerator} builds seeded synthetic inventories for
+ * tests and for the benchmarks in {@code src/jmh}.
+ *
  * <h2>Running Tests</h2>
  *
  * <p>Tests are executed using the Gradle task:
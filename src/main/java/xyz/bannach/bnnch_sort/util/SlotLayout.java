@@ -0,0 +1,170 @@
+package xyz.bannach.bnnch_sort.util;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import net.minecraft.world.Container;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.CraftingContainer;
+import net.minecraft.world.inventory.Slot;
+import xyz.bannach.bnnch_sort.util.SortabilityRegistry.Verdict;
+
+/**
+ * The sortable slots of a menu, classified once per menu instance.
+ *
+ * <p>Each layout holds the indices into {@link AbstractContainerMenu#slots} of every sort region,
+ * so screen setup, key presses, and sort requests read precomputed arrays instead of rescanning
+ * the menu's slots and containers. Only indices are stored, never the slots themselves, so a
+ * layout cannot keep its menu alive.
+ *
+ * <h2>Regions</h2>
+ *
+ * <p>Regions are addressed by the codes of {@link xyz.bannach.bnnch_sort.server.SortHandler}:
+ *
+ * <ul>
+ *   <li>0 - Container slots: sortable slot classes outside the player inventory, excluding crafting
+ *       grids, containers that also hold special slots (e.g. furnace inputs), and containers
+ *       declared unsortable; containers declared sortable are always included
+ *   <li>1 - Player main inventory slots 9-35
+ *   <li>2 - Player hotbar slots 0-8
+ * </ul>
+ *
+ * <h2>Lifetime</h2>
+ *
+ * <p>Layouts are held weakly by menu, dropped when the menu closes, and recomputed if the menu's
+ * slot count changes.
+ *
+ * <h2>Side: Common</h2>
+ *
+ * <p>Used on the client for screen buttons and keybinds, and on the server for sort requests.
+ *
+ * @see SlotUtils#isSortableSlotClass(Slot)
+ * @see SortabilityRegistry
+ * @since 1.2.0
+ */
+public final class SlotLayout {
+
+  /** Number of region codes. */
+  private static final int REGIONS = 3;
+
+  /** Indices of unknown regions. */
+  private static final int[] NO_SLOTS = new int[0];
+
+  /** Layout of each open menu. */
+  private static final Map<AbstractContainerMenu, SlotLayout> LAYOUTS =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  /** Number of menu slots the layout was computed from. */
+  private final int slotCount;
+
+  /** Menu slot indices of each region, indexed by region code. */
+  private final int[][] regions;
+
+  /**
+   * Creates a layout.
+   *
+   * @param slotCount the number of menu slots the layout was computed from
+   * @param regions the menu slot indices of each region
+   */
+  private SlotLayout(int slotCount, int[][] regions) {
+    this.slotCount = slotCount;
+    this.regions = regions;
+  }
+
+  /**
+   * Returns the layout of a menu, computing it on first use.
+   *
+   * @param menu the menu to classify
+   * @return the menu's layout
+   */
+  public static SlotLayout of(AbstractContainerMenu menu) {
+    SlotLayout layout = LAYOUTS.get(menu);
+    if (layout == null || layout.slotCount != menu.slots.size()) {
+      layout = compute(menu);
+      LAYOUTS.put(menu, layout);
+    }
+    return layout;
+  }
+
+  /**
+   * Drops the cached layout of a menu, for when it closes.
+   *
+   * @param menu the closed menu
+   */
+  public static void invalidate(AbstractContainerMenu menu) {
+    LAYOUTS.remove(menu);
+  }
+
+  /** Drops every cached layout, for when sortability declarations change. */
+  public static void invalidateAll() {
+    LAYOUTS.clear();
+  }
+
+  /**
+   * Returns the menu slot indices of a region.
+   *
+   * @param region the region code
+   * @return the slot indices in menu order; empty for unknown regions (must not be modified)
+   */
+  public int[] indices(int region) {
+    return region >= 0 && region < REGIONS ? regions[region] : NO_SLOTS;
+  }
+
+  /**
+   * Returns whether a region has any sortable slot.
+   *
+   * @param region the region code
+   * @return true if the region is non-empty
+   */
+  public boolean has(int region) {
+    return indices(region).length > 0;
+  }
+
+  /**
+   * Classifies every slot of a menu.
+   *
+   * @param menu the menu to classify
+   * @return the computed layout
+   */
+  private static SlotLayout compute(AbstractContainerMenu menu) {
+    // A base Slot sharing a container with a special subclass (e.g. furnace ingredient slot) is
+    // not sortable, unless the container is declared sortable.
+    Set<Container> specialContainers = new HashSet<>();
+    for (Slot slot : menu.slots) {
+      if (!(slot.container instanceof Inventory) && !SlotUtils.isSortableSlotClass(slot)) {
+        specialContainers.add(slot.container);
+      }
+    }
+
+    IntArrayList container = new IntArrayList();
+    IntArrayList main = new IntArrayList();
+    IntArrayList hotbar = new IntArrayList();
+    for (int i = 0; i < menu.slots.size(); i++) {
+      Slot slot = menu.slots.get(i);
+      if (slot.container instanceof Inventory) {
+        int index = slot.getContainerSlot();
+        if (index >= 9 && index <= 35) {
+          main.add(i);
+        } else if (index >= 0 && index <= 8) {
+          hotbar.add(i);
+        }
+      } else if (SlotUtils.isSortableSlotClass(slot)) {
+        Verdict verdict = SortabilityRegistry.containerVerdict(slot.container.getClass());
+        if (verdict == Verdict.SORTABLE
+            || (verdict == Verdict.UNSPECIFIED
+                && !(slot.container instanceof CraftingContainer)
+                && !specialContainers.contains(slot.container))) {
+          container.add(i);
+        }
+      }
+    }
+
+    return new SlotLayout(
+        menu.slots.size(),
+        new int[][] {container.toIntArray(), main.toIntArray(), hotbar.toIntArray()});
+  }
+}
@@ -21,17 +21,16 @@ public class SlotUtils {
    *   <li>{@link Slot} - Base vanilla slot class
    *   <li>{@code SlotItemHandler} - NeoForge ItemHandler capability slot (used by many mods like
    *       MetalBarrels, Sophisticated Storage, etc.)
+   *   <li>Any slot class declared sortable through {@link SortabilityRegistry}
    * </ul>
    *
-   * <p>This excludes special slot subclasses like ResultSlot, FurnaceFuelSlot, ArmorSlot, etc.
+   * <p>This excludes special slot subclasses like ResultSlot, FurnaceFuelSlot, ArmorSlot, etc. The
+   * verdict is computed once per slot class.
    *
    * @param slot the slot to check
    * @return true if the slot is a sortable container slot
    */
   public static boolean isSortableSlotClass(Slot slot) {
-    String className = slot.getClass().getName();
-    // Allow base Slot class and NeoForge's SlotItemHandler (used by modded containers)
-    return slot.getClass() == Slot.class
-        || className.equals("net.neoforged.neoforge.items.SlotItemHandler");
+    return SortabilityRegistry.isSortableSlotClass(slot.getClass());
   }
 }
@@ -0,0 +1,268 @@
+package xyz.bannach.bnnch_sort.util;
+
+import com.mojang.logging.LogUtils;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.minecraft.world.inventory.Slot;
+import net.neoforged.fml.InterModComms;
+import net.neoforged.neoforge.items.SlotItemHandler;
+import org.slf4j.Logger;
+
+/**
+ * Decides, once per class, whether slots and containers of that class may be sorted.
+ *
+ * <p>Verdicts are cached per class in a {@link ClassValue}, so classifying the slots of even very
+ * large modded menus costs one lookup per slot after the first menu of each kind.
+ *
+ * <h2>Default Rules</h2>
+ *
+ * <p>Without any declaration, only the base {@link Slot} class and NeoForge's {@link
+ * SlotItemHandler} are sortable slot classes, and container classes have no verdict of their own.
+ *
+ * <h2>Declarations</h2>
+ *
+ * <p>Slot and container classes can be declared sortable or unsortable by fully qualified class
+ * name. A declaration also applies to every subclass that has no declaration of its own. Sources,
+ * later ones winning:
+ *
+ * <ol>
+ *   <li>Inter-mod messages sent to {@code bnnch_sort} with the methods {@link #IMC_SORTABLE_SLOT},
+ *       {@link #IMC_UNSORTABLE_SLOT}, {@link #IMC_SORTABLE_CONTAINER}, or {@link
+ *       #IMC_UNSORTABLE_CONTAINER}, whose payload is a {@link Class} or a class name
+ *   <li>The server config lists in {@link xyz.bannach.bnnch_sort.Config}
+ * </ol>
+ *
+ * <p>A sortable container has its base slots sorted even when it also holds special slots; an
+ * unsortable container is never sorted. Declarations are compiled into fresh caches whenever a
+ * source changes.
+ *
+ * <h2>Side: Common</h2>
+ *
+ * <p>Server configs are synced to clients, so both sides reach the same verdicts.
+ *
+ * @see SlotUtils#isSortableSlotClass(Slot)
+ * @see SlotLayout
+ * @since 1.2.0
+ */
+public final class SortabilityRegistry {
+
+  /** Inter-mod message method declaring a slot class sortable. */
+  public static final String IMC_SORTABLE_SLOT = "sortable_slot";
+
+  /** Inter-mod message method declaring a slot class unsortable. */
+  public static final String IMC_UNSORTABLE_SLOT = "unsortable_slot";
+
+  /** Inter-mod message method declaring a container class sortable. */
+  public static final String IMC_SORTABLE_CONTAINER = "sortable_container";
+
+  /** Inter-mod message method declaring a container class unsortable. */
+  public static final String IMC_UNSORTABLE_CONTAINER = "unsortable_container";
+
+  /** Logger for rejected declarations. */
+  private static final Logger LOGGER = LogUtils.getLogger();
+
+  /** Slot class declarations received through inter-mod messages. */
+  private static final Map<String, Boolean> IMC_SLOTS = new HashMap<>();
+
+  /** Container class declarations received through inter-mod messages. */
+  private static final Map<String, Boolean> IMC_CONTAINERS = new HashMap<>();
+
+  /** Slot class declarations from the config. */
+  private static Map<String, Boolean> configSlots = Map.of();
+
+  /** Container class declarations from the config. */
+  private static Map<String, Boolean> configContainers = Map.of();
+
+  /** Cached verdicts compiled from the current declarations. */
+  private static volatile Verdicts verdicts = compile(Map.of(), Map.of());
+
+  /** Private constructor to prevent instantiation. */
+  private SortabilityRegistry() {}
+
+  /** A container class's declared sortability. */
+  public enum Verdict {
+    /** Declared sortable. */
+    SORTABLE,
+    /** Declared unsortable. */
+    UNSORTABLE,
+    /** No declaration; the default rules apply. */
+    UNSPECIFIED
+  }
+
+  /**
+   * Returns whether slots of the given class may be sorted.
+   *
+   * @param slotClass the slot's runtime class
+   * @return true if the class is sortable
+   */
+  public static boolean isSortableSlotClass(Class<?> slotClass) {
+    return verdicts.slots.get(slotClass) == Verdict.SORTABLE;
+  }
+
+  /**
+   * Returns the declared sortability of a container class.
+   *
+   * @param containerClass the container's runtime class
+   * @return the container verdict
+   */
+  public static Verdict containerVerdict(Class<?> containerClass) {
+    return verdicts.containers.get(containerClass);
+  }
+
+  /**
+   * Reads this mod's pending inter-mod messages and recompiles the verdicts.
+   *
+   * <p>Called from {@link net.neoforged.fml.event.lifecycle.InterModProcessEvent}.
+   *
+   * @param modId this mod's ID
+   */
+  public static synchronized void processInterModMessages(String modId) {
+    InterModComms.getMessages(modId)
+        .forEach(
+            message -> {
+              Map<String, Boolean> target =
+                  switch (message.method()) {
+                    case IMC_SORTABLE_SLOT, IMC_UNSORTABLE_SLOT -> IMC_SLOTS;
+                    case IMC_SORTABLE_CONTAINER, IMC_UNSORTABLE_CONTAINER -> IMC_CONTAINERS;
+                    default -> null;
+                  };
+              String className = className(message.messageSupplier().get());
+              if (target == null || className == null) {
+                LOGGER.warn(
+                    "Ignoring inter-mod message {} from {}",
+                    message.method(),
+                    message.senderModId());
+                return;
+              }
+              target.put(
+                  className,
+                  message.method().equals(IMC_SORTABLE_SLOT)
+                      || message.method().equals(IMC_SORTABLE_CONTAINER));
+            });
+    recompile();
+  }
+
+  /**
+   * Replaces the config declarations and recompiles the verdicts.
+   *
+   * @param sortableSlots slot class names declared sortable
+   * @param unsortableSlots slot class names declared unsortable
+   * @param sortableContainers container class names declared sortable
+   * @param unsortableContainers container class names declared unsortable
+   */
+  public static synchronized void applyConfig(
+      List<? extends String> sortableSlots,
+      List<? extends String> unsortableSlots,
+      List<? extends String> sortableContainers,
+      List<? extends String> unsortableContainers) {
+    configSlots = declarations(sortableSlots, unsortableSlots);
+    configContainers = declarations(sortableContainers, unsortableContainers);
+    recompile();
+  }
+
+  /** Compiles the current declarations into fresh verdict caches. */
+  private static void recompile() {
+    Map<String, Boolean> slots = new HashMap<>(IMC_SLOTS);
+    slots.putAll(configSlots);
+    Map<String, Boolean> containers = new HashMap<>(IMC_CONTAINERS);
+    containers.putAll(configContainers);
+    verdicts = compile(slots, containers);
+    SlotLayout.invalidateAll();
+  }
+
+  /**
+   * Merges sortable and unsortable name lists into one declaration map.
+   *
+   * @param sortable class names declared sortable
+   * @param unsortable class names declared unsortable, winning over {@code sortable}
+   * @return the declarations by class name
+   */
+  private static Map<String, Boolean> declarations(
+      List<? extends String> sortable, List<? extends String> unsortable) {
+    Map<String, Boolean> result = new HashMap<>();
+    for (String name : sortable) {
+      result.put(name.trim(), true);
+    }
+    for (String name : unsortable) {
+      result.put(name.trim(), false);
+    }
+    return result;
+  }
+
+  /**
+   * Extracts a class name from an inter-mod message payload.
+   *
+   * @param payload the payload, a {@link Class} or a class name
+   * @return the class name, or null if the payload is neither
+   */
+  private static String className(Object payload) {
+    if (payload instanceof Class<?> type) {
+      return type.getName();
+    }
+    if (payload instanceof String name && !name.isBlank()) {
+      return name.trim();
+    }
+    return null;
+  }
+
+  /**
+   * Finds the declaration for a class or its nearest declared superclass.
+   *
+   * @param type the class to look up
+   * @param declarations the declarations by class name
+   * @return the declared sortability, or null if neither the class nor a superclass is declared
+   */
+  private static Boolean declared(Class<?> type, Map<String, Boolean> declarations) {
+    for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+      Boolean declaration = declarations.get(c.getName());
+      if (declaration != null) {
+        return declaration;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Compiles declarations into fresh per-class verdict caches.
+   *
+   * @param slotDeclarations the slot class declarations by class name
+   * @param containerDeclarations the container class declarations by class name
+   * @return the verdict caches
+   */
+  private static Verdicts compile(
+      Map<String, Boolean> slotDeclarations, Map<String, Boolean> containerDeclarations) {
+    ClassValue<Verdict> slots =
+        new ClassValue<>() {
+          @Override
+          protected Verdict computeValue(Class<?> type) {
+            Boolean declaration = declared(type, slotDeclarations);
+            boolean sortable =
+                declaration != null
+                    ? declaration
+                    : type == Slot.class || type == SlotItemHandler.class;
+            return sortable ? Verdict.SORTABLE : Verdict.UNSORTABLE;
+          }
+        };
+    ClassValue<Verdict> containers =
+        new ClassValue<>() {
+          @Override
+          protected Verdict computeValue(Class<?> type) {
+            Boolean declaration = declared(type, containerDeclarations);
+            if (declaration == null) {
+              return Verdict.UNSPECIFIED;
+            }
+            return declaration ? Verdict.SORTABLE : Verdict.UNSORTABLE;
+          }
+        };
+    return new Verdicts(slots, containers);
+  }
+
+  /**
+   * Per-class verdict caches for one set of declarations.
+   *
+   * @param slots the slot verdict of each class
+   * @param containers the container verdict of each class
+   */
+  private record Verdicts(ClassValue<Verdict> slots, ClassValue<Verdict> containers) {}
+}